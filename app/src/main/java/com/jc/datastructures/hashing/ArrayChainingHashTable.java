@@ -0,0 +1,178 @@
+package com.jc.datastructures.hashing;
+
+import java.util.Arrays;
+
+/**
+ * 用数组实现链表的分离链接散列表
+ * <p>
+ * 元素、散列值和 next 下标放在三个平行数组里，heads[b] 为桶 b 的第一个元素下标 + 1，0 表示空桶，
+ * 空桶不需要任何对象。遍历链表时先比较保存的散列值，相同时才调用 equals。
+ * 删除腾出的位置串成空闲链表（同样用 next 数组）供之后的插入复用，插入不分配对象；
+ * 扩容只需要按保存的散列值重建 heads 和 next，不调用 hashCode，元素数组也不移动
+ *
+ * @param <AnyType>
+ */
+public class ArrayChainingHashTable<AnyType> {
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 1.0f;
+
+    private final float loadFactor;
+    private final HashFunctions.Strategy<? super AnyType> strategy;
+    private int[] heads;
+    private Object[] elements;
+    private int[] hashes;
+    private int[] next;
+    private int used;// elements 中用过的位置数，其中被删除的在空闲链表中
+    private int freeHead;// 空闲链表第一个位置 + 1，0 表示没有空闲位置
+    private int currentSize;
+    private int resizeAt;
+
+
+    public ArrayChainingHashTable() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public ArrayChainingHashTable(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public ArrayChainingHashTable(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, HashFunctions.<AnyType>fibonacci());
+    }
+
+    /**
+     * @param loadFactor 链表的平均长度上限，可以大于 1
+     */
+    public ArrayChainingHashTable(int expectedSize, float loadFactor, HashFunctions.Strategy<? super AnyType> strategy) {
+        if (!(loadFactor > 0) || Float.isInfinite(loadFactor)) {
+            throw new IllegalArgumentException("load factor must be positive: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.strategy = strategy;
+        allocateHeads(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+        int entries = Math.max(1, expectedSize);
+        elements = new Object[entries];
+        hashes = new int[entries];
+        next = new int[entries];
+    }
+
+    private void allocateHeads(int length) {
+        heads = new int[length];
+        resizeAt = (int) Math.min(Integer.MAX_VALUE, (long) length * loadFactor);
+    }
+
+    public int size() {
+        return currentSize;
+    }
+
+    /**
+     * 桶数
+     */
+    public int capacity() {
+        return heads.length;
+    }
+
+    public void makeEmpty() {
+        Arrays.fill(heads, 0);
+        Arrays.fill(elements, 0, used, null);
+        used = 0;
+        freeHead = 0;
+        currentSize = 0;
+    }
+
+    /**
+     * 预先扩容到能容纳 expectedSize 个元素，之后插入这么多元素不会再触发扩容
+     */
+    public void ensureCapacity(int expectedSize) {
+        int length = PrimitiveHashing.tableSize(expectedSize, loadFactor);
+        if (length > heads.length) {
+            rehash(length);
+        }
+        if (expectedSize > elements.length) {
+            growEntries(expectedSize);
+        }
+    }
+
+    private int findPos(AnyType x, int hash) {
+        for (int i = heads[hash & (heads.length - 1)] - 1; i >= 0; i = next[i] - 1) {
+            if (hashes[i] == hash && x.equals(elements[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(AnyType x) {
+        return findPos(x, strategy.hash(x)) >= 0;
+    }
+
+    /**
+     * @return x 原来不在表中时返回 true
+     */
+    public boolean insert(AnyType x) {
+        int hash = strategy.hash(x);
+        if (findPos(x, hash) >= 0) {
+            return false;
+        }
+        int i;
+        if (freeHead != 0) {
+            i = freeHead - 1;
+            freeHead = next[i];
+        } else {
+            if (used == elements.length) {
+                growEntries(PrimitiveHashing.grow(elements.length));
+            }
+            i = used++;
+        }
+        int b = hash & (heads.length - 1);
+        elements[i] = x;
+        hashes[i] = hash;
+        next[i] = heads[b];
+        heads[b] = i + 1;
+        if (++currentSize > resizeAt) {
+            rehash(PrimitiveHashing.grow(heads.length));
+        }
+        return true;
+    }
+
+    public boolean remove(AnyType x) {
+        int hash = strategy.hash(x);
+        int b = hash & (heads.length - 1);
+        for (int i = heads[b] - 1, prev = -1; i >= 0; prev = i, i = next[i] - 1) {
+            if (hashes[i] == hash && x.equals(elements[i])) {
+                if (prev < 0) {
+                    heads[b] = next[i];
+                } else {
+                    next[prev] = next[i];
+                }
+                elements[i] = null;
+                next[i] = freeHead;
+                freeHead = i + 1;
+                currentSize--;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void growEntries(int length) {
+        elements = Arrays.copyOf(elements, length);
+        hashes = Arrays.copyOf(hashes, length);
+        next = Arrays.copyOf(next, length);
+    }
+
+    /**
+     * 只重建桶，空闲位置保持在空闲链表中
+     */
+    private void rehash(int length) {
+        allocateHeads(length);
+        int mask = length - 1;
+        for (int i = 0; i < used; i++) {
+            if (elements[i] != null) {
+                int b = hashes[i] & mask;
+                next[i] = heads[b];
+                heads[b] = i + 1;
+            }
+        }
+    }
+}
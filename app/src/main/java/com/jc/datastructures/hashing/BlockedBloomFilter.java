@@ -0,0 +1,218 @@
+package com.jc.datastructures.hashing;
+
+/**
+ * 按缓存行分块的 Bloom 过滤器
+ * <p>
+ * 位数组为 long[]，每 8 个 long（512 位，一个缓存行大小）为一块。散列值的高位选块，k 个位都在这一块里，
+ * 一次查询只访问一个缓存行（long[] 不保证按缓存行对齐，最多两个）。
+ * 块内的第 i 个位取 h * C^i 的最高 9 位，C 为 64 位黄金分割常数，每次只需一次乘法。
+ * 各块中的元素个数不均，误判率比同样位数的标准 Bloom 过滤器高，位数按分块后的误判率估算，
+ * 低误判率时每个 key 要多用几位。
+ * <p>
+ * mightContain 返回 false 时元素一定没有加入过；返回 true 时元素可能加入过，误判率约为构造时给出的 fpp。
+ * 不支持删除。批量操作的分组方式与 {@link QuadraticProbingHashTable#containsAll} 相同
+ *
+ * @param <AnyType>
+ */
+public class BlockedBloomFilter<AnyType> {
+    private static final int BLOCK_SHIFT = 3;// 每块 8 个 long
+    private static final int BLOCK_BITS = 9;// 块内位下标的位数
+    private static final long GOLDEN_RATIO = 0x9E3779B97F4A7C15L;
+    private static final int MAX_HASH_FUNCTIONS = 16;
+    private static final int BATCH = 32;
+
+    private final HashFunctions.Strategy<? super AnyType> strategy;
+    private final long[] bits;
+    private final int blockMask;
+    private final int numHashFunctions;
+
+
+    public BlockedBloomFilter(int expectedInsertions, double fpp) {
+        this(expectedInsertions, fpp, HashFunctions.<AnyType>identity());
+    }
+
+    /**
+     * @param fpp      (0, 1) 之间，期望的误判率
+     * @param strategy 元素的 32 位散列值，之后还会经过 fmix64 混合，默认直接使用 hashCode()
+     */
+    public BlockedBloomFilter(int expectedInsertions, double fpp, HashFunctions.Strategy<? super AnyType> strategy) {
+        if (expectedInsertions < 0) {
+            throw new IllegalArgumentException("expected insertions must not be negative: " + expectedInsertions);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("false positive probability must be in (0, 1): " + fpp);
+        }
+        // 从标准 Bloom 过滤器的最优位数 m = -n ln p / (ln 2)^2 开始增加，直到分块后的误判率不超过 fpp
+        double bitsPerKey = Math.max(1, -Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        while (blockedFpp(bitsPerKey, optimalHashFunctions(bitsPerKey)) > fpp) {
+            bitsPerKey += 0.25;
+        }
+        long totalBits = (long) Math.ceil(Math.max(1, expectedInsertions) * bitsPerKey);
+        long blocks = (totalBits + (1 << BLOCK_BITS) - 1) >>> BLOCK_BITS;
+        if (blocks > PrimitiveHashing.MAX_CAPACITY >>> BLOCK_SHIFT) {
+            throw new IllegalArgumentException("filter too large: " + totalBits + " bits");
+        }
+        int numBlocks = PrimitiveHashing.powerOfTwo((int) blocks);
+        this.strategy = strategy;
+        bits = new long[numBlocks << BLOCK_SHIFT];
+        blockMask = numBlocks - 1;
+        numHashFunctions = optimalHashFunctions(bitsPerKey);
+    }
+
+    /**
+     * k = m / n * ln 2
+     */
+    private static int optimalHashFunctions(double bitsPerKey) {
+        return (int) Math.max(1, Math.min(MAX_HASH_FUNCTIONS, Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    /**
+     * 分块后的误判率：一块中的元素个数近似服从均值为 512 / bitsPerKey 的泊松分布，
+     * 对每种个数 i 求 512 位、i 个元素的标准 Bloom 过滤器的误判率再加权
+     */
+    private static double blockedFpp(double bitsPerKey, int k) {
+        int blockSize = 1 << BLOCK_BITS;
+        double lambda = blockSize / bitsPerKey;
+        double probability = Math.exp(-lambda);
+        double fpp = 0;
+        for (int i = 0; i < 4 * lambda + 64; i++) {
+            fpp += probability * Math.pow(1 - Math.pow(1 - 1.0 / blockSize, (double) k * i), k);
+            probability *= lambda / (i + 1);
+        }
+        return fpp;
+    }
+
+    /**
+     * 位数组的大小（位）
+     */
+    public long bitSize() {
+        return (long) bits.length << 6;
+    }
+
+    public int getNumberOfFunctions() {
+        return numHashFunctions;
+    }
+
+    public void clear() {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = 0;
+        }
+    }
+
+    private long hash(AnyType x) {
+        return HashFunctions.fmix64(strategy.hash(x));
+    }
+
+    /**
+     * 高 32 位选块
+     */
+    private int blockOf(long h) {
+        return ((int) (h >>> 32) & blockMask) << BLOCK_SHIFT;
+    }
+
+    /**
+     * @return 加入前元素一定不在过滤器中（至少改变了一位）时返回 true
+     */
+    public boolean add(AnyType x) {
+        long h = hash(x);
+        return add(blockOf(h), h);
+    }
+
+    private boolean add(int block, long h) {
+        long[] bits = this.bits;
+        boolean changed = false;
+        for (int i = 0; i < numHashFunctions; i++) {
+            h *= GOLDEN_RATIO;
+            int bit = (int) (h >>> (64 - BLOCK_BITS));
+            int word = block + (bit >>> 6);
+            long mask = 1L << bit;
+            if ((bits[word] & mask) == 0) {
+                bits[word] |= mask;
+                changed = true;
+            }
+        }
+        return changed;
+    }
+
+    public boolean mightContain(AnyType x) {
+        long h = hash(x);
+        return mightContain(blockOf(h), h);
+    }
+
+    private boolean mightContain(int block, long h) {
+        long[] bits = this.bits;
+        for (int i = 0; i < numHashFunctions; i++) {
+            h *= GOLDEN_RATIO;
+            int bit = (int) (h >>> (64 - BLOCK_BITS));
+            if ((bits[block + (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 批量加入
+     *
+     * @return 加入前一定不在过滤器中的元素个数
+     */
+    public int addAll(AnyType[] xs) {
+        int added = 0;
+        int[] blocks = new int[BATCH];
+        long[] hashes = new long[BATCH];
+        long[] words = new long[BATCH];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(xs, start, blocks, hashes, words);
+            for (int j = 0; j < n; j++) {
+                if (add(blocks[j], hashes[j])) {
+                    added++;
+                }
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 批量查询，results[i] 为 mightContain(xs[i])
+     *
+     * @return 可能在过滤器中的元素个数
+     */
+    public int mightContainAll(AnyType[] xs, boolean[] results) {
+        if (results.length < xs.length) {
+            throw new IllegalArgumentException("results shorter than keys: " + results.length + " < " + xs.length);
+        }
+        int found = 0;
+        int[] blocks = new int[BATCH];
+        long[] hashes = new long[BATCH];
+        long[] words = new long[BATCH];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(xs, start, blocks, hashes, words);
+            for (int j = 0; j < n; j++) {
+                boolean in = mightContain(blocks[j], hashes[j]);
+                results[start + j] = in;
+                if (in) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 算出一组元素的块，再一起读出每块的第一个 long，读出的值写进数组，不会被 JIT 消除
+     *
+     * @return 这一组的元素个数
+     */
+    private int prefetch(AnyType[] xs, int start, int[] blocks, long[] hashes, long[] words) {
+        int n = Math.min(BATCH, xs.length - start);
+        for (int j = 0; j < n; j++) {
+            long h = hash(xs[start + j]);
+            blocks[j] = blockOf(h);
+            hashes[j] = h;
+        }
+        for (int j = 0; j < n; j++) {
+            words[j] = bits[blocks[j]];
+        }
+        return n;
+    }
+}
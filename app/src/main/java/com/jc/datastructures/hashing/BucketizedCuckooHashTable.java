@@ -0,0 +1,287 @@
+package com.jc.datastructures.hashing;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * 分桶的布谷鸟散列
+ * <p>
+ * 每个散列函数选中的是一个桶，桶内有 slotsPerBucket 个槽，查找最多比较 函数个数 * 桶大小 个槽，
+ * 这些槽是连续的，只会带来很少的缓存未命中。两个函数、每桶 4 个槽时装填因子可以到 0.9 以上。
+ * 踢出次数用尽仍无处安放的元素先放进一个很小的溢出区（stash），溢出区也满了才重建整张表，
+ * 删除元素腾出位置后会把溢出区中能放回桶里的元素放回去。
+ * <p>
+ * 一次插入最多重建 MAX_REHASH_ATTEMPTS 次，装填因子不到上限的一半时只更换散列函数不扩容，
+ * 之后仍然放不下的元素留在溢出区，溢出区可以超过 STASH_SIZE。
+ * hashCode 相同的元素在 UniversalHashFamily 下候选桶都相同，很多时会退化为线性查找，应提供按内容散列的函数族
+ *
+ * @param <AnyType>
+ */
+public class BucketizedCuckooHashTable<AnyType> {
+    private static final int DEFAULT_EXPECTED_SIZE = 101;
+    private static final int DEFAULT_SLOTS_PER_BUCKET = 4;
+    private static final int STASH_SIZE = 4;
+    private static final int MAX_KICKS = 500;
+    private static final int ALLOWED_REHASHES = 1;
+    private static final int MAX_REHASH_ATTEMPTS = 5;
+
+    private final CuckooHashTable.HashFamily<? super AnyType> hashFunctions;
+    private final int numHashFunctions;
+    private final int slotsPerBucket;
+    private final double maxLoad;
+    private AnyType[] stash;
+    private AnyType[] array;
+    private int bucketMask;
+    private int stashSize;
+    private int currentSize;
+
+    private final Random r = new Random();
+    private int rehashes = 0;
+    private boolean rehashing;// 重建过程中放不下的元素直接进入溢出区，不再嵌套重建
+
+
+    public BucketizedCuckooHashTable(CuckooHashTable.HashFamily<? super AnyType> hashFunctions) {
+        this(hashFunctions, DEFAULT_EXPECTED_SIZE);
+    }
+
+    public BucketizedCuckooHashTable(CuckooHashTable.HashFamily<? super AnyType> hashFunctions, int expectedSize) {
+        this(hashFunctions, expectedSize, DEFAULT_SLOTS_PER_BUCKET);
+    }
+
+    /**
+     * @param slotsPerBucket 每个桶的槽数，越大装填上限越高，查找要比较的槽也越多
+     */
+    public BucketizedCuckooHashTable(CuckooHashTable.HashFamily<? super AnyType> hashFunctions, int expectedSize,
+                                     int slotsPerBucket) {
+        if (slotsPerBucket <= 0) {
+            throw new IllegalArgumentException("slots per bucket must be positive: " + slotsPerBucket);
+        }
+        this.hashFunctions = hashFunctions;
+        this.numHashFunctions = hashFunctions.getNumberOfFunctions();
+        this.slotsPerBucket = slotsPerBucket;
+        this.maxLoad = maxLoad(slotsPerBucket);
+        this.stash = (AnyType[]) new Object[STASH_SIZE];
+        int buckets = 1;
+        while (buckets * slotsPerBucket * maxLoad < expectedSize && buckets < PrimitiveHashing.MAX_CAPACITY / slotsPerBucket) {
+            buckets <<= 1;
+        }
+        allocateArray(buckets);
+    }
+
+    /**
+     * 两个散列函数时随机布谷鸟散列能达到的装填上限约为 0.5、0.9、0.98（每桶 1、2、4 个槽），这里留一些余量
+     */
+    private static double maxLoad(int slotsPerBucket) {
+        switch (slotsPerBucket) {
+            case 1:
+                return 0.4;
+            case 2:
+                return 0.8;
+            case 3:
+                return 0.88;
+            default:
+                return 0.93;
+        }
+    }
+
+    private void allocateArray(int buckets) {
+        array = (AnyType[]) new Object[buckets * slotsPerBucket];
+        bucketMask = buckets - 1;
+    }
+
+    public int size() {
+        return currentSize;
+    }
+
+    /**
+     * 桶中的槽数，不含溢出区
+     */
+    public int capacity() {
+        return array.length;
+    }
+
+    public void makeEmpty() {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = null;
+        }
+        for (int i = 0; i < stashSize; i++) {
+            stash[i] = null;
+        }
+        stashSize = 0;
+        currentSize = 0;
+    }
+
+    public boolean contains(AnyType x) {
+        return findPos(x) != -1;
+    }
+
+    private int myhash(AnyType x, int which) {
+        return PrimitiveHashing.mix(hashFunctions.hash(x, which)) & bucketMask;
+    }
+
+    /**
+     * @return 元素在 array 中的下标；在溢出区中时返回 array.length + 溢出区下标；不存在时返回 -1
+     */
+    private int findPos(AnyType x) {
+        for (int i = 0; i < numHashFunctions; i++) {
+            int start = myhash(x, i) * slotsPerBucket;
+            for (int pos = start; pos < start + slotsPerBucket; pos++) {
+                if (array[pos] != null && array[pos].equals(x)) {
+                    return pos;
+                }
+            }
+        }
+        for (int i = 0; i < stashSize; i++) {
+            if (stash[i].equals(x)) {
+                return array.length + i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean remove(AnyType x) {
+        int pos = findPos(x);
+        if (pos == -1) {
+            return false;
+        }
+        if (pos < array.length) {
+            array[pos] = null;
+            drainStash();
+        } else {
+            removeFromStash(pos - array.length);
+        }
+        currentSize--;
+        return true;
+    }
+
+    public boolean insert(AnyType x) {
+        if (contains(x)) {
+            return false;
+        }
+
+        if (currentSize >= array.length * maxLoad) {
+            expand();
+        }
+
+        insertHelper(x);
+        currentSize++;
+        return true;
+    }
+
+    private void insertHelper(AnyType x) {
+        for (int attempts = 0; ; attempts++) {
+            AnyType homeless = kick(x);
+            if (homeless == null) {
+                return;
+            }
+            if (stashSize < STASH_SIZE || rehashing || attempts >= MAX_REHASH_ATTEMPTS) {
+                if (stashSize == stash.length) {
+                    stash = Arrays.copyOf(stash, stashSize * 2);
+                }
+                stash[stashSize++] = homeless;
+                return;
+            }
+
+            // 装填因子很低时失败多半是冲突的 hashCode 造成的，扩容没有帮助，只更换散列函数
+            if (++rehashes > ALLOWED_REHASHES && currentSize - stashSize >= array.length * maxLoad / 2) {
+                expand();
+                rehashes = 0;
+            } else {
+                rehash();
+            }
+            x = homeless;
+        }
+    }
+
+    /**
+     * 不踢出其他元素，x 的候选桶中有空槽时放进去
+     */
+    private boolean placeWithoutKick(AnyType x) {
+        for (int i = 0; i < numHashFunctions; i++) {
+            int start = myhash(x, i) * slotsPerBucket;
+            for (int pos = start; pos < start + slotsPerBucket; pos++) {
+                if (array[pos] == null) {
+                    array[pos] = x;
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 随机游走踢出元素
+     *
+     * @return 放好时返回 null，否则返回最后一个无处安放的元素
+     */
+    private AnyType kick(AnyType x) {
+        int lastBucket = -1;
+        for (int count = 0; count < MAX_KICKS; count++) {
+            if (placeWithoutKick(x)) {
+                return null;
+            }
+
+            int bucket;
+            int i = 0;
+            do {
+                bucket = myhash(x, r.nextInt(numHashFunctions));
+            } while (bucket == lastBucket && i++ < 5);
+
+            int pos = (lastBucket = bucket) * slotsPerBucket + r.nextInt(slotsPerBucket);
+            AnyType tmp = array[pos];
+            array[pos] = x;
+            x = tmp;
+        }
+        return x;
+    }
+
+    private void drainStash() {
+        for (int i = stashSize - 1; i >= 0; i--) {
+            if (placeWithoutKick(stash[i])) {
+                removeFromStash(i);
+            }
+        }
+    }
+
+    private void removeFromStash(int i) {
+        stash[i] = stash[--stashSize];
+        stash[stashSize] = null;
+    }
+
+    private void expand() {
+        rehash((bucketMask + 1) * 2);
+    }
+
+    private void rehash() {
+        hashFunctions.generateNewFunctions();
+        rehash(bucketMask + 1);
+    }
+
+    private void rehash(int buckets) {
+        if (buckets * slotsPerBucket > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalStateException("table is full");
+        }
+        AnyType[] oldArray = array;
+        AnyType[] oldStash = stash.clone();
+        int oldStashSize = stashSize;
+        allocateArray(buckets);
+        makeEmpty();
+
+        boolean wasRehashing = rehashing;
+        rehashing = true;
+        try {
+            for (AnyType x : oldArray) {
+                if (x != null) {
+                    insertHelper(x);
+                    currentSize++;
+                }
+            }
+            for (int i = 0; i < oldStashSize; i++) {
+                insertHelper(oldStash[i]);
+                currentSize++;
+            }
+        } finally {
+            rehashing = wasRehashing;
+        }
+    }
+}
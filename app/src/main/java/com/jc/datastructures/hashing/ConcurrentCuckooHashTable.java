@@ -0,0 +1,435 @@
+package com.jc.datastructures.hashing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 线程安全的布谷鸟散列
+ * <p>
+ * 1. 每个元素只有两个候选桶（散列函数族的第 0、1 个函数），每个桶 4 个槽，装填因子可以到 0.95；
+ * 2. 分段锁同时是版本号：偶数表示空闲，写线程用 CAS 加一上锁、解锁时再加一。
+ * contains 不加锁，读两个桶前后各读一次两个分段的版本号，没有变化就说明读到的是一致的状态；
+ * 3. 桶满时先不加锁地随机游走找一条踢出路径，再从路径末端往回逐步搬动元素，
+ * 每一步只锁住源桶和目标桶两个分段，并确认元素还在原处，否则重新开始；
+ * 4. 找不到路径或超过装填上限时锁住所有分段，容量翻倍后重建；
+ * 5. 装填因子不到上限的一半时找不到路径，多半是 hashCode 相同的元素挤满了两个桶，翻倍也分不开，
+ * 这时把元素放进 stash。stash 是只在锁住所有分段时整体替换的数组，contains 在同一个版本号窗口内检查它，
+ * 重建时放不下的元素也进入新表的 stash。这样的 key 很多时退化为线性查找，应提供按内容散列的函数族
+ * <p>
+ * 散列函数族必须是无状态的，多个线程会同时调用 hash，不会调用 generateNewFunctions
+ *
+ * @param <AnyType>
+ */
+public class ConcurrentCuckooHashTable<AnyType> {
+    private static final int DEFAULT_EXPECTED_SIZE = 101;
+    private static final double MAX_LOAD = 0.95;
+    private static final int SLOTS_PER_BUCKET = 4;
+    private static final int MAX_PATH_LENGTH = 256;
+
+    private static final int STRIPES = 1024;
+    private static final int STRIPE_MASK = STRIPES - 1;
+
+    private final CuckooHashTable.HashFamily<? super AnyType> hashFunctions;
+    private final AtomicLongArray versions = new AtomicLongArray(STRIPES);
+    private final AtomicInteger currentSize = new AtomicInteger();
+    private volatile Table table;
+
+
+    private static final Object[] EMPTY_STASH = new Object[0];
+
+    private static final class Table {
+        final AtomicReferenceArray<Object> slots;
+        final int bucketMask;
+        final int maxSize;
+        volatile Object[] stash = EMPTY_STASH;// 只在持有所有分段锁时替换
+
+        Table(int buckets) {
+            slots = new AtomicReferenceArray<>(buckets * SLOTS_PER_BUCKET);
+            bucketMask = buckets - 1;
+            maxSize = (int) (buckets * SLOTS_PER_BUCKET * MAX_LOAD);
+        }
+    }
+
+
+    public ConcurrentCuckooHashTable(CuckooHashTable.HashFamily<? super AnyType> hashFunctions) {
+        this(hashFunctions, DEFAULT_EXPECTED_SIZE);
+    }
+
+    public ConcurrentCuckooHashTable(CuckooHashTable.HashFamily<? super AnyType> hashFunctions, int expectedSize) {
+        if (hashFunctions.getNumberOfFunctions() < 2) {
+            throw new IllegalArgumentException("need at least 2 hash functions: " + hashFunctions.getNumberOfFunctions());
+        }
+        this.hashFunctions = hashFunctions;
+        int slots = PrimitiveHashing.tableSize(expectedSize, (float) MAX_LOAD);
+        table = new Table(Math.max(1, slots / SLOTS_PER_BUCKET));
+    }
+
+    public int size() {
+        return currentSize.get();
+    }
+
+    public int capacity() {
+        return table.slots.length();
+    }
+
+    private int bucket(Table t, Object x, int which) {
+        return PrimitiveHashing.mix(hashFunctions.hash((AnyType) x, which)) & t.bucketMask;
+    }
+
+    /**
+     * 元素 x 的另一个候选桶
+     */
+    private int altBucket(Table t, Object x, int b) {
+        int b0 = bucket(t, x, 0);
+        return b0 == b ? bucket(t, x, 1) : b0;
+    }
+
+    private static int find(Table t, Object x, int b) {
+        for (int i = b * SLOTS_PER_BUCKET, end = i + SLOTS_PER_BUCKET; i < end; i++) {
+            Object e = t.slots.get(i);
+            if (e == x || (e != null && x.equals(e))) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int indexOf(Object[] stash, Object x) {
+        for (int i = 0; i < stash.length; i++) {
+            if (stash[i] == x || x.equals(stash[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static int freeSlot(Table t, int b) {
+        for (int i = b * SLOTS_PER_BUCKET, end = i + SLOTS_PER_BUCKET; i < end; i++) {
+            if (t.slots.get(i) == null) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean contains(AnyType x) {
+        while (true) {
+            Table t = table;
+            int b1 = bucket(t, x, 0);
+            int b2 = bucket(t, x, 1);
+            int s1 = b1 & STRIPE_MASK;
+            int s2 = b2 & STRIPE_MASK;
+            long v1 = versions.get(s1);
+            long v2 = versions.get(s2);
+            if (((v1 | v2) & 1) != 0) {
+                Thread.yield();
+                continue;
+            }
+            // 扩容会锁住所有分段，版本号之后读到的 table 一定是最新的
+            if (t != table) {
+                continue;
+            }
+            boolean found = find(t, x, b1) >= 0 || find(t, x, b2) >= 0 || indexOf(t.stash, x) >= 0;
+            if (versions.get(s1) == v1 && versions.get(s2) == v2) {
+                return found;
+            }
+        }
+    }
+
+    /**
+     * @return x 原来不在表中时返回 true
+     */
+    public boolean insert(AnyType x) {
+        while (true) {
+            Table t = table;
+            int b1 = bucket(t, x, 0);
+            int b2 = bucket(t, x, 1);
+            int s1 = b1 & STRIPE_MASK;
+            int s2 = b2 & STRIPE_MASK;
+            lockPair(s1, s2);
+            try {
+                if (t != table) {
+                    continue;
+                }
+                if (find(t, x, b1) >= 0 || find(t, x, b2) >= 0 || indexOf(t.stash, x) >= 0) {
+                    return false;
+                }
+                int free = freeSlot(t, b1);
+                if (free < 0) {
+                    free = freeSlot(t, b2);
+                }
+                if (free >= 0 && currentSize.get() < t.maxSize) {
+                    t.slots.set(free, x);
+                    currentSize.incrementAndGet();
+                    return true;
+                }
+            } finally {
+                unlockPair(s1, s2);
+            }
+            if (currentSize.get() < t.maxSize && makeRoom(t, b1, b2)) {
+                continue;
+            }
+
+            lockAll();
+            try {
+                if (t != table) {
+                    continue;
+                }
+                // 放开分段锁之后其他线程可能已经插入了 x，或者删除元素腾出了槽
+                if (find(t, x, b1) >= 0 || find(t, x, b2) >= 0 || indexOf(t.stash, x) >= 0) {
+                    return false;
+                }
+                int free = freeSlot(t, b1);
+                if (free < 0) {
+                    free = freeSlot(t, b2);
+                }
+                if (free >= 0 && currentSize.get() < t.maxSize) {
+                    t.slots.set(free, x);
+                    currentSize.incrementAndGet();
+                    return true;
+                }
+                if (currentSize.get() - t.stash.length < t.maxSize / 2) {
+                    t.stash = withAdded(t.stash, x);
+                    currentSize.incrementAndGet();
+                    return true;
+                }
+                table = grow(t);
+            } finally {
+                unlockAll();
+            }
+        }
+    }
+
+    public boolean remove(AnyType x) {
+        while (true) {
+            Table t = table;
+            int b1 = bucket(t, x, 0);
+            int b2 = bucket(t, x, 1);
+            int s1 = b1 & STRIPE_MASK;
+            int s2 = b2 & STRIPE_MASK;
+            lockPair(s1, s2);
+            try {
+                if (t != table) {
+                    continue;
+                }
+                int pos = find(t, x, b1);
+                if (pos < 0) {
+                    pos = find(t, x, b2);
+                }
+                if (pos >= 0) {
+                    t.slots.set(pos, null);
+                    currentSize.decrementAndGet();
+                    return true;
+                }
+                if (t.stash.length == 0) {
+                    return false;
+                }
+            } finally {
+                unlockPair(s1, s2);
+            }
+
+            // 只有 stash 不为空时才需要锁住所有分段
+            lockAll();
+            try {
+                if (t != table) {
+                    continue;
+                }
+                int pos = find(t, x, b1);
+                if (pos < 0) {
+                    pos = find(t, x, b2);
+                }
+                if (pos >= 0) {
+                    t.slots.set(pos, null);
+                } else if ((pos = indexOf(t.stash, x)) >= 0) {
+                    t.stash = withRemoved(t.stash, pos);
+                } else {
+                    return false;
+                }
+                currentSize.decrementAndGet();
+                return true;
+            } finally {
+                unlockAll();
+            }
+        }
+    }
+
+    public void makeEmpty() {
+        lockAll();
+        try {
+            table = new Table(table.bucketMask + 1);
+            currentSize.set(0);
+        } finally {
+            unlockAll();
+        }
+    }
+
+    /**
+     * 在 b1 或 b2 中腾出一个空槽
+     *
+     * @return 没有找到踢出路径时返回 false；路径执行中途被其他线程打断也返回 true，由调用方重试
+     */
+    private boolean makeRoom(Table t, int b1, int b2) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        int[] from = new int[MAX_PATH_LENGTH];
+        int[] to = new int[MAX_PATH_LENGTH];
+        Object[] moved = new Object[MAX_PATH_LENGTH];
+        int length = 0;
+        int b = r.nextBoolean() ? b1 : b2;
+        while (freeSlot(t, b) < 0) {
+            if (length == MAX_PATH_LENGTH) {
+                return false;
+            }
+            int slot = b * SLOTS_PER_BUCKET + r.nextInt(SLOTS_PER_BUCKET);
+            Object e = t.slots.get(slot);
+            if (e == null) {
+                continue;
+            }
+            b = altBucket(t, e, b);
+            from[length] = slot;
+            to[length] = b;
+            moved[length] = e;
+            length++;
+        }
+        // 从末端往回搬，每一步都把元素搬进上一步刚腾出的槽
+        for (int k = length - 1; k >= 0; k--) {
+            if (!move(t, from[k], to[k], moved[k])) {
+                break;
+            }
+        }
+        return true;
+    }
+
+    private boolean move(Table t, int from, int toBucket, Object e) {
+        int s1 = (from / SLOTS_PER_BUCKET) & STRIPE_MASK;
+        int s2 = toBucket & STRIPE_MASK;
+        lockPair(s1, s2);
+        try {
+            if (t != table || t.slots.get(from) != e) {
+                return false;
+            }
+            int free = freeSlot(t, toBucket);
+            if (free < 0) {
+                return false;
+            }
+            t.slots.set(free, e);
+            t.slots.set(from, null);
+            return true;
+        } finally {
+            unlockPair(s1, s2);
+        }
+    }
+
+    /**
+     * 持有所有分段锁时调用，容量翻倍后重建，新表中放不下的元素进入新表的 stash
+     */
+    private Table grow(Table old) {
+        int buckets = old.bucketMask + 1;
+        if (buckets * SLOTS_PER_BUCKET > PrimitiveHashing.MAX_CAPACITY / 2) {
+            throw new IllegalStateException("table is full");
+        }
+        Table t = new Table(buckets << 1);
+        List<Object> homeless = new ArrayList<>();
+        for (int i = 0; i < old.slots.length(); i++) {
+            Object e = old.slots.get(i);
+            if (e != null && (e = placeExclusive(t, e)) != null) {
+                homeless.add(e);
+            }
+        }
+        for (Object e : old.stash) {
+            if ((e = placeExclusive(t, e)) != null) {
+                homeless.add(e);
+            }
+        }
+        if (!homeless.isEmpty()) {
+            t.stash = homeless.toArray();
+        }
+        return t;
+    }
+
+    /**
+     * @return 踢出 MAX_PATH_LENGTH 次之后仍然没有位置的元素，不一定是 x；全部放下时返回 null
+     */
+    private Object placeExclusive(Table t, Object x) {
+        ThreadLocalRandom r = ThreadLocalRandom.current();
+        for (int count = 0; count < MAX_PATH_LENGTH; count++) {
+            int b1 = bucket(t, x, 0);
+            int b2 = bucket(t, x, 1);
+            int free = freeSlot(t, b1);
+            if (free < 0) {
+                free = freeSlot(t, b2);
+            }
+            if (free >= 0) {
+                t.slots.set(free, x);
+                return null;
+            }
+            int slot = (r.nextBoolean() ? b1 : b2) * SLOTS_PER_BUCKET + r.nextInt(SLOTS_PER_BUCKET);
+            Object evicted = t.slots.get(slot);
+            t.slots.set(slot, x);
+            x = evicted;
+        }
+        return x;
+    }
+
+    private static Object[] withAdded(Object[] stash, Object x) {
+        Object[] copy = Arrays.copyOf(stash, stash.length + 1);
+        copy[stash.length] = x;
+        return copy;
+    }
+
+    private static Object[] withRemoved(Object[] stash, int index) {
+        Object[] copy = new Object[stash.length - 1];
+        System.arraycopy(stash, 0, copy, 0, index);
+        System.arraycopy(stash, index + 1, copy, index, copy.length - index);
+        return copy;
+    }
+
+    private void lock(int stripe) {
+        while (true) {
+            long v = versions.get(stripe);
+            if ((v & 1) == 0 && versions.compareAndSet(stripe, v, v + 1)) {
+                return;
+            }
+            Thread.yield();
+        }
+    }
+
+    private void unlock(int stripe) {
+        versions.incrementAndGet(stripe);
+    }
+
+    /**
+     * 总是先锁编号小的分段，避免死锁
+     */
+    private void lockPair(int s1, int s2) {
+        if (s1 == s2) {
+            lock(s1);
+        } else {
+            lock(Math.min(s1, s2));
+            lock(Math.max(s1, s2));
+        }
+    }
+
+    private void unlockPair(int s1, int s2) {
+        unlock(s1);
+        if (s2 != s1) {
+            unlock(s2);
+        }
+    }
+
+    private void lockAll() {
+        for (int i = 0; i < STRIPES; i++) {
+            lock(i);
+        }
+    }
+
+    private void unlockAll() {
+        for (int i = STRIPES - 1; i >= 0; i--) {
+            unlock(i);
+        }
+    }
+}
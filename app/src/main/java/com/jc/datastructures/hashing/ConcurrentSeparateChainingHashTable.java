@@ -0,0 +1,282 @@
+package com.jc.datastructures.hashing;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 线程安全的分离链接散列表
+ * <p>
+ * 1. 桶数组是 AtomicReferenceArray，链表节点的 next 是 volatile，contains 不加锁；
+ * 2. insert / remove 只锁住桶所在的分段，分段锁的个数固定，桶 i 使用第 i % 分段数 把锁。
+ * 桶数始终是分段数的倍数，扩容后桶 i 拆分出的 i 和 i + n 仍然属于同一把锁；
+ * 3. 扩容不一次完成：先分配两倍大小的新数组，之后每次 insert / remove 顺带迁移若干个桶。
+ * 迁移时复制链表节点，正在读旧链表的线程不受影响；迁移完的旧桶放一个转发节点，
+ * 读写遇到它就转到新数组。所有桶迁移完后新数组成为当前数组
+ *
+ * @param <AnyType>
+ */
+public class ConcurrentSeparateChainingHashTable<AnyType> {
+    private static final int DEFAULT_EXPECTED_SIZE = 101;
+    private static final int DEFAULT_CONCURRENCY_LEVEL = 64;
+
+    /**
+     * 每次 insert / remove 最多顺带迁移的桶数
+     */
+    private static final int MIGRATE_STEP = 16;
+
+    private static final int MAX_STRIPES = 1 << 16;
+
+    private static final int MOVED = -1;
+
+    private volatile AtomicReferenceArray<Node<AnyType>> table;
+    private volatile Resize<AnyType> resize;// 没有进行中的扩容时为 null
+    private final Object resizeLock = new Object();
+    private final Object[] locks;
+    private final int lockMask;
+    private final AtomicInteger currentSize = new AtomicInteger();
+
+
+    private static class Node<AnyType> {
+        final AnyType element;
+        final int hash;
+        volatile Node<AnyType> next;
+
+        Node(AnyType element, int hash, Node<AnyType> next) {
+            this.element = element;
+            this.hash = hash;
+            this.next = next;
+        }
+    }
+
+    /**
+     * 已迁移的旧桶中放置的转发节点
+     */
+    private static final class Forward<AnyType> extends Node<AnyType> {
+        final AtomicReferenceArray<Node<AnyType>> nextTable;
+
+        Forward(AtomicReferenceArray<Node<AnyType>> nextTable) {
+            super(null, MOVED, null);
+            this.nextTable = nextTable;
+        }
+    }
+
+    /**
+     * 一次扩容的状态，迁移时从高位的桶往低位分配
+     */
+    private static final class Resize<AnyType> {
+        final AtomicReferenceArray<Node<AnyType>> from;
+        final AtomicReferenceArray<Node<AnyType>> to;
+        final Forward<AnyType> forward;
+        final AtomicInteger transferIndex;
+        final AtomicInteger remaining;
+
+        Resize(AtomicReferenceArray<Node<AnyType>> from) {
+            this.from = from;
+            this.to = new AtomicReferenceArray<>(from.length() * 2);
+            this.forward = new Forward<>(to);
+            this.transferIndex = new AtomicInteger(from.length());
+            this.remaining = new AtomicInteger(from.length());
+        }
+    }
+
+
+    public ConcurrentSeparateChainingHashTable() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_CONCURRENCY_LEVEL);
+    }
+
+    /**
+     * @param expectedSize     预计元素个数
+     * @param concurrencyLevel 分段锁的个数，向上取 2 的幂
+     */
+    public ConcurrentSeparateChainingHashTable(int expectedSize, int concurrencyLevel) {
+        if (concurrencyLevel <= 0) {
+            throw new IllegalArgumentException("concurrency level must be positive: " + concurrencyLevel);
+        }
+        int stripes = 1;
+        while (stripes < concurrencyLevel && stripes < MAX_STRIPES) {
+            stripes <<= 1;
+        }
+        locks = new Object[stripes];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        lockMask = locks.length - 1;
+        int capacity = Math.max(locks.length, PrimitiveHashing.tableSize(expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR));
+        table = new AtomicReferenceArray<>(capacity);
+    }
+
+    public int size() {
+        return currentSize.get();
+    }
+
+    public int capacity() {
+        return table.length();
+    }
+
+    private static int myhash(Object x) {
+        return PrimitiveHashing.mix(x.hashCode()) & 0x7FFFFFFF;
+    }
+
+    public boolean contains(AnyType x) {
+        int hash = myhash(x);
+        AtomicReferenceArray<Node<AnyType>> tab = table;
+        while (true) {
+            Node<AnyType> e = tab.get(hash & (tab.length() - 1));
+            if (e != null && e.hash == MOVED) {
+                tab = ((Forward<AnyType>) e).nextTable;
+                continue;
+            }
+            for (; e != null; e = e.next) {
+                if (e.hash == hash && x.equals(e.element)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * @return x 原来不在表中时返回 true
+     */
+    public boolean insert(AnyType x) {
+        int hash = myhash(x);
+        AtomicReferenceArray<Node<AnyType>> tab = table;
+        while (true) {
+            int i = hash & (tab.length() - 1);
+            synchronized (locks[i & lockMask]) {
+                Node<AnyType> head = tab.get(i);
+                if (head == null || head.hash != MOVED) {
+                    for (Node<AnyType> e = head; e != null; e = e.next) {
+                        if (e.hash == hash && x.equals(e.element)) {
+                            return false;
+                        }
+                    }
+                    tab.set(i, new Node<>(x, hash, head));
+                    break;
+                }
+            }
+            tab = ((Forward<AnyType>) tab.get(i)).nextTable;
+        }
+        int n = tab.length();
+        if (currentSize.incrementAndGet() > n - (n >>> 2)) {
+            startResize(tab);
+        }
+        helpMigrate();
+        return true;
+    }
+
+    public boolean remove(AnyType x) {
+        int hash = myhash(x);
+        AtomicReferenceArray<Node<AnyType>> tab = table;
+        boolean removed = false;
+        while (true) {
+            int i = hash & (tab.length() - 1);
+            synchronized (locks[i & lockMask]) {
+                Node<AnyType> head = tab.get(i);
+                if (head == null || head.hash != MOVED) {
+                    for (Node<AnyType> e = head, prev = null; e != null; prev = e, e = e.next) {
+                        if (e.hash == hash && x.equals(e.element)) {
+                            // 正在读 e 的线程仍然可以沿着 e.next 走下去
+                            if (prev == null) {
+                                tab.set(i, e.next);
+                            } else {
+                                prev.next = e.next;
+                            }
+                            removed = true;
+                            break;
+                        }
+                    }
+                    break;
+                }
+            }
+            tab = ((Forward<AnyType>) tab.get(i)).nextTable;
+        }
+        if (removed) {
+            currentSize.decrementAndGet();
+            helpMigrate();
+        }
+        return removed;
+    }
+
+    /**
+     * 清空表；与并发的 insert 同时进行时，这些插入可能保留也可能被清除
+     */
+    public void makeEmpty() {
+        while (true) {
+            while (resize != null) {
+                helpMigrate();
+            }
+            AtomicReferenceArray<Node<AnyType>> tab = table;
+            boolean moved = false;
+            for (int i = 0; i < tab.length() && !moved; i++) {
+                synchronized (locks[i & lockMask]) {
+                    Node<AnyType> head = tab.get(i);
+                    if (head != null && head.hash == MOVED) {
+                        moved = true;
+                    } else {
+                        int count = 0;
+                        for (Node<AnyType> e = head; e != null; e = e.next) {
+                            count++;
+                        }
+                        tab.set(i, null);
+                        currentSize.addAndGet(-count);
+                    }
+                }
+            }
+            if (!moved) {
+                return;
+            }
+        }
+    }
+
+    private void startResize(AtomicReferenceArray<Node<AnyType>> tab) {
+        if (resize != null || table != tab || tab.length() > PrimitiveHashing.MAX_CAPACITY / 2) {
+            return;
+        }
+        // 完成扩容时先写 table 再清空 resize，这里看到 resize 为 null 时 table 一定已经是最新的
+        synchronized (resizeLock) {
+            if (resize == null && table == tab) {
+                resize = new Resize<>(tab);
+            }
+        }
+    }
+
+    /**
+     * 领取并迁移至多 MIGRATE_STEP 个桶，最后一个完成迁移的线程切换到新数组
+     */
+    private void helpMigrate() {
+        Resize<AnyType> r = resize;
+        if (r == null) {
+            return;
+        }
+        int end = r.transferIndex.getAndAdd(-MIGRATE_STEP);
+        if (end <= 0) {
+            return;
+        }
+        int start = Math.max(0, end - MIGRATE_STEP);
+        for (int i = end - 1; i >= start; i--) {
+            migrate(r, i);
+        }
+        if (r.remaining.addAndGet(start - end) == 0) {
+            table = r.to;
+            resize = null;
+        }
+    }
+
+    private void migrate(Resize<AnyType> r, int i) {
+        int n = r.from.length();
+        synchronized (locks[i & lockMask]) {
+            Node<AnyType> lo = null, hi = null;
+            for (Node<AnyType> e = r.from.get(i); e != null; e = e.next) {
+                if ((e.hash & n) == 0) {
+                    lo = new Node<>(e.element, e.hash, lo);
+                } else {
+                    hi = new Node<>(e.element, e.hash, hi);
+                }
+            }
+            r.to.set(i, lo);
+            r.to.set(i + n, hi);
+            r.from.set(i, r.forward);
+        }
+    }
+}
@@ -0,0 +1,317 @@
+package com.jc.datastructures.hashing;
+
+import java.util.Random;
+
+/**
+ * 布谷鸟过滤器
+ * <p>
+ * 每个桶 BUCKET_SIZE 个槽，槽中只存 f 位的指纹，全部指纹紧密排列在一个 long[] 位数组中，指纹可以跨越两个 long。
+ * 元素的两个候选桶为 i1 = h 和 i2 = i1 ^ hash(指纹)，只凭桶下标和指纹就能算出另一个桶，踢出时不需要原来的元素。
+ * 两个桶都满时按 CuckooHashTable.insertHelper1 的方式随机踢出一个指纹（避免立刻踢回刚放入的槽），
+ * 被踢出的指纹去它的另一个桶。踢了 MAX_KICKS 次仍无空槽时没有元素可以用来重建，
+ * 最后一个被踢出的指纹放在 victim 中（查找也会检查它），之后的 add 返回 false，表示过滤器已满。
+ * <p>
+ * f = ceil(log2(2 * BUCKET_SIZE / fpp))，误判率不超过 fpp。
+ * 支持删除，但只能删除加入过的元素；同一个元素加入多次会占用多个槽，需要删除同样多次
+ *
+ * @param <AnyType>
+ */
+public class CuckooFilter<AnyType> {
+    private static final int BUCKET_SIZE = 4;
+    private static final double MAX_LOAD = 0.95;
+    private static final int MAX_KICKS = 500;
+    private static final int MAX_FINGERPRINT_BITS = 32;
+    private static final int MIN_FINGERPRINT_BITS = 4;
+    private static final int BATCH = 32;
+
+    private final HashFunctions.Strategy<? super AnyType> strategy;
+    private final int fingerprintBits;
+    private final long fingerprintMask;
+    private final int bucketMask;
+    private final long[] bits;
+    private final Random r = new Random();
+    private int currentSize;
+    private boolean hasVictim;
+    private int victimBucket;
+    private long victimFingerprint;
+
+
+    public CuckooFilter(int expectedInsertions, double fpp) {
+        this(expectedInsertions, fpp, HashFunctions.<AnyType>identity());
+    }
+
+    /**
+     * @param fpp      (0, 1) 之间，期望的误判率
+     * @param strategy 元素的 32 位散列值，之后还会经过 fmix64 混合，默认直接使用 hashCode()
+     */
+    public CuckooFilter(int expectedInsertions, double fpp, HashFunctions.Strategy<? super AnyType> strategy) {
+        if (expectedInsertions < 0) {
+            throw new IllegalArgumentException("expected insertions must not be negative: " + expectedInsertions);
+        }
+        if (!(fpp > 0 && fpp < 1)) {
+            throw new IllegalArgumentException("false positive probability must be in (0, 1): " + fpp);
+        }
+        int f = (int) Math.ceil(Math.log(2.0 * BUCKET_SIZE / fpp) / Math.log(2));
+        if (f > MAX_FINGERPRINT_BITS) {
+            throw new IllegalArgumentException("false positive probability too small: " + fpp);
+        }
+        fingerprintBits = Math.max(MIN_FINGERPRINT_BITS, f);
+        fingerprintMask = (1L << fingerprintBits) - 1;
+
+        long needed = (long) Math.ceil(expectedInsertions / (BUCKET_SIZE * MAX_LOAD));
+        if (needed > PrimitiveHashing.MAX_CAPACITY) {
+            throw new IllegalArgumentException("expected insertions too large: " + expectedInsertions);
+        }
+        int numBuckets = PrimitiveHashing.powerOfTwo((int) needed);
+        long words = ((long) numBuckets * BUCKET_SIZE * fingerprintBits + 63) >>> 6;
+        if (words + 1 > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("filter too large: " + numBuckets + " buckets");
+        }
+        this.strategy = strategy;
+        bucketMask = numBuckets - 1;
+        // 多留一个 long，读写最后一个跨越边界的指纹时不用判断
+        bits = new long[(int) words + 1];
+    }
+
+    public int size() {
+        return currentSize;
+    }
+
+    /**
+     * 位数组的大小（位）
+     */
+    public long bitSize() {
+        return (long) bits.length << 6;
+    }
+
+    public int getFingerprintBits() {
+        return fingerprintBits;
+    }
+
+    public void clear() {
+        for (int i = 0; i < bits.length; i++) {
+            bits[i] = 0;
+        }
+        currentSize = 0;
+        hasVictim = false;
+    }
+
+    private long hash(AnyType x) {
+        return HashFunctions.fmix64(strategy.hash(x));
+    }
+
+    /**
+     * 高 32 位取指纹，0 表示空槽，指纹为 0 时改为 1
+     */
+    private long fingerprintOf(long h) {
+        long fp = (h >>> 32) & fingerprintMask;
+        return fp != 0 ? fp : 1;
+    }
+
+    private int bucketOf(long h) {
+        return (int) h & bucketMask;
+    }
+
+    private int altBucket(int bucket, long fp) {
+        return bucket ^ (PrimitiveHashing.mix((int) fp) & bucketMask);
+    }
+
+    private long get(long slot) {
+        long bitPos = slot * fingerprintBits;
+        int word = (int) (bitPos >>> 6);
+        int offset = (int) bitPos & 63;
+        long v = bits[word] >>> offset;
+        if (offset + fingerprintBits > 64) {
+            v |= bits[word + 1] << (64 - offset);
+        }
+        return v & fingerprintMask;
+    }
+
+    private void set(long slot, long fp) {
+        long bitPos = slot * fingerprintBits;
+        int word = (int) (bitPos >>> 6);
+        int offset = (int) bitPos & 63;
+        bits[word] = bits[word] & ~(fingerprintMask << offset) | (fp << offset);
+        if (offset + fingerprintBits > 64) {
+            int shift = 64 - offset;
+            bits[word + 1] = bits[word + 1] & ~(fingerprintMask >>> shift) | (fp >>> shift);
+        }
+    }
+
+    private boolean bucketContains(int bucket, long fp) {
+        long slot = (long) bucket * BUCKET_SIZE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            if (get(slot + i) == fp) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean insertInto(int bucket, long fp) {
+        long slot = (long) bucket * BUCKET_SIZE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            if (get(slot + i) == 0) {
+                set(slot + i, fp);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean deleteFrom(int bucket, long fp) {
+        long slot = (long) bucket * BUCKET_SIZE;
+        for (int i = 0; i < BUCKET_SIZE; i++) {
+            if (get(slot + i) == fp) {
+                set(slot + i, 0);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return 过滤器已满时返回 false，元素没有加入
+     */
+    public boolean add(AnyType x) {
+        long h = hash(x);
+        return add(bucketOf(h), fingerprintOf(h));
+    }
+
+    private boolean add(int bucket, long fp) {
+        if (hasVictim) {
+            return false;
+        }
+        currentSize++;
+        long lastPos = -1;
+        for (int count = 0; count < MAX_KICKS; count++) {
+            int alt = altBucket(bucket, fp);
+            if (insertInto(bucket, fp) || insertInto(alt, fp)) {
+                return true;
+            }
+
+            int i = 0;
+            long pos;
+            do {
+                pos = (long) (r.nextBoolean() ? bucket : alt) * BUCKET_SIZE + r.nextInt(BUCKET_SIZE);
+            } while (pos == lastPos && i++ < 5);
+
+            long tmp = get(lastPos = pos);
+            set(pos, fp);
+            fp = tmp;
+            // 被踢出的指纹下一轮去它的另一个桶
+            bucket = altBucket((int) (pos / BUCKET_SIZE), fp);
+        }
+        hasVictim = true;
+        victimBucket = bucket;
+        victimFingerprint = fp;
+        return true;
+    }
+
+    public boolean mightContain(AnyType x) {
+        long h = hash(x);
+        return mightContain(bucketOf(h), fingerprintOf(h));
+    }
+
+    private boolean mightContain(int bucket, long fp) {
+        int alt = altBucket(bucket, fp);
+        return bucketContains(bucket, fp) || bucketContains(alt, fp)
+                || (hasVictim && victimFingerprint == fp && (victimBucket == bucket || victimBucket == alt));
+    }
+
+    /**
+     * 删除一个加入过的元素，删除没有加入过的元素可能会删掉别的元素的指纹
+     *
+     * @return 找到并删除了 x 的指纹时返回 true
+     */
+    public boolean remove(AnyType x) {
+        long h = hash(x);
+        int bucket = bucketOf(h);
+        long fp = fingerprintOf(h);
+        int alt = altBucket(bucket, fp);
+        if (hasVictim && victimFingerprint == fp && (victimBucket == bucket || victimBucket == alt)) {
+            hasVictim = false;
+            currentSize--;
+            return true;
+        }
+        if (!deleteFrom(bucket, fp) && !deleteFrom(alt, fp)) {
+            return false;
+        }
+        currentSize--;
+        if (hasVictim) {
+            // 腾出了一个槽，重新放入 victim
+            hasVictim = false;
+            currentSize--;
+            add(victimBucket, victimFingerprint);
+        }
+        return true;
+    }
+
+    /**
+     * 批量加入，过滤器满了之后剩下的元素不再加入
+     *
+     * @return 加入的元素个数
+     */
+    public int addAll(AnyType[] xs) {
+        int added = 0;
+        int[] buckets = new int[BATCH];
+        long[] fingerprints = new long[BATCH];
+        long[] words = new long[2 * BATCH];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(xs, start, buckets, fingerprints, words);
+            for (int j = 0; j < n; j++) {
+                if (!add(buckets[j], fingerprints[j])) {
+                    return added;
+                }
+                added++;
+            }
+        }
+        return added;
+    }
+
+    /**
+     * 批量查询，results[i] 为 mightContain(xs[i])
+     *
+     * @return 可能在过滤器中的元素个数
+     */
+    public int mightContainAll(AnyType[] xs, boolean[] results) {
+        if (results.length < xs.length) {
+            throw new IllegalArgumentException("results shorter than keys: " + results.length + " < " + xs.length);
+        }
+        int found = 0;
+        int[] buckets = new int[BATCH];
+        long[] fingerprints = new long[BATCH];
+        long[] words = new long[2 * BATCH];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(xs, start, buckets, fingerprints, words);
+            for (int j = 0; j < n; j++) {
+                boolean in = mightContain(buckets[j], fingerprints[j]);
+                results[start + j] = in;
+                if (in) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 算出一组元素的两个桶，再一起读出两个桶所在的 long，读出的值写进数组，不会被 JIT 消除
+     *
+     * @return 这一组的元素个数
+     */
+    private int prefetch(AnyType[] xs, int start, int[] buckets, long[] fingerprints, long[] words) {
+        int n = Math.min(BATCH, xs.length - start);
+        for (int j = 0; j < n; j++) {
+            long h = hash(xs[start + j]);
+            buckets[j] = bucketOf(h);
+            fingerprints[j] = fingerprintOf(h);
+        }
+        long bucketBits = (long) BUCKET_SIZE * fingerprintBits;
+        for (int j = 0; j < n; j++) {
+            words[2 * j] = bits[(int) (buckets[j] * bucketBits >>> 6)];
+            words[2 * j + 1] = bits[(int) (altBucket(buckets[j], fingerprints[j]) * bucketBits >>> 6)];
+        }
+        return n;
+    }
+}
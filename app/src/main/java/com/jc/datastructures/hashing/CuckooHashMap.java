@@ -0,0 +1,300 @@
+package com.jc.datastructures.hashing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 布谷鸟散列映射，散列方式、踢出和重建的策略与 CuckooHashTable 相同
+ * <p>
+ * key 和 value 放在两个平行数组中，踢出时 key 和 value 一起移动。
+ * get 最多检查散列函数个数个槽，命中时 value 就在同一下标。
+ * 与 CuckooHashTable 一样，更换 MAX_REHASH_ATTEMPTS 次散列函数仍然放不下的 key 连同 value 进入 stash，
+ * 默认的 UniversalHashFamily 分不开 hashCode 相同的 key，这样的 key 很多时应提供按内容散列的函数族
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class CuckooHashMap<K, V> {
+    private static final float DEFAULT_LOAD_FACTOR = 0.4f;
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final int ALLOWED_REHASHES = 1;
+    private static final int COUNT_LIMIT = 100;
+    private static final int MAX_REHASH_ATTEMPTS = 5;
+
+    private final CuckooHashTable.HashFamily<? super K> hashFunctions;
+    private final int numHashFunctions;
+    private final float loadFactor;
+    private final Random r = new Random();
+    private Object[] keys;
+    private Object[] values;
+    private int currentSize;// 包括 stash 中的 key
+    private int rehashes = 0;
+    private final List<Object> stashKeys = new ArrayList<>();
+    private final List<Object> stashValues = new ArrayList<>();
+    private boolean rehashing;
+
+
+    public CuckooHashMap() {
+        this(new UniversalHashFamily<K>(3));
+    }
+
+    public CuckooHashMap(CuckooHashTable.HashFamily<? super K> hashFunctions) {
+        this(hashFunctions, DEFAULT_EXPECTED_SIZE);
+    }
+
+    public CuckooHashMap(CuckooHashTable.HashFamily<? super K> hashFunctions, int expectedSize) {
+        this(hashFunctions, expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public CuckooHashMap(CuckooHashTable.HashFamily<? super K> hashFunctions, int expectedSize, float loadFactor) {
+        this.hashFunctions = hashFunctions;
+        this.numHashFunctions = hashFunctions.getNumberOfFunctions();
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        allocateArrays(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    private void allocateArrays(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+    }
+
+    public int size() {
+        return currentSize;
+    }
+
+    public boolean isEmpty() {
+        return currentSize == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public void makeEmpty() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        stashKeys.clear();
+        stashValues.clear();
+        currentSize = 0;
+    }
+
+    /**
+     * 预先扩容到能容纳 expectedSize 个 key，之后插入这么多 key 不会再因为装填因子扩容
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = PrimitiveHashing.tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    private int myhash(Object key, int which) {
+        return PrimitiveHashing.mix(hashFunctions.hash(asKey(key), which)) & (keys.length - 1);
+    }
+
+    /**
+     * keys / values 和 stash 中只会放入 K、V，以下三个方法集中做未检查的转换
+     */
+    @SuppressWarnings("unchecked")
+    private K asKey(Object key) {
+        return (K) key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int pos) {
+        return (V) values[pos];
+    }
+
+    @SuppressWarnings("unchecked")
+    private V stashValueAt(int i) {
+        return (V) stashValues.get(i);
+    }
+
+    private int findPos(Object key) {
+        for (int i = 0; i < numHashFunctions; i++) {
+            int pos = myhash(key, i);
+            Object k = keys[pos];
+            if (k != null && (k == key || k.equals(key))) {
+                return pos;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @return key 在 stash 中的下标，不在时返回 -1
+     */
+    private int findInStash(Object key) {
+        for (int i = 0; i < stashKeys.size(); i++) {
+            if (stashKeys.get(i).equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    public boolean containsKey(K key) {
+        return findPos(key) != -1 || findInStash(key) != -1;
+    }
+
+    /**
+     * @return key 对应的值，不存在时返回 null
+     */
+    public V get(K key) {
+        int pos = findPos(key);
+        if (pos != -1) {
+            return valueAt(pos);
+        }
+        pos = findInStash(key);
+        return pos != -1 ? stashValueAt(pos) : null;
+    }
+
+    /**
+     * @return key 原来对应的值，原来不存在时返回 null
+     */
+    public V put(K key, V value) {
+        int pos = findPos(key);
+        if (pos != -1) {
+            V old = valueAt(pos);
+            values[pos] = value;
+            return old;
+        }
+        pos = findInStash(key);
+        if (pos != -1) {
+            V old = stashValueAt(pos);
+            stashValues.set(pos, value);
+            return old;
+        }
+        insert(key, value);
+        return null;
+    }
+
+    /**
+     * key 不存在时用 mappingFunction 计算 value 并放入，函数返回 null 时不放入
+     *
+     * @return key 当前对应的值
+     */
+    public V computeIfAbsent(K key, QuadraticProbingHashMap.MappingFunction<? super K, ? extends V> mappingFunction) {
+        int pos = findPos(key);
+        if (pos != -1) {
+            return valueAt(pos);
+        }
+        pos = findInStash(key);
+        if (pos != -1) {
+            return stashValueAt(pos);
+        }
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            // 函数中可能已经放入了 key
+            put(key, value);
+        }
+        return value;
+    }
+
+    /**
+     * @return 被删除的值，key 不存在时返回 null
+     */
+    public V remove(K key) {
+        int pos = findPos(key);
+        if (pos == -1) {
+            pos = findInStash(key);
+            if (pos == -1) {
+                return null;
+            }
+            V old = stashValueAt(pos);
+            stashKeys.remove(pos);
+            stashValues.remove(pos);
+            currentSize--;
+            return old;
+        }
+        V old = valueAt(pos);
+        keys[pos] = null;
+        values[pos] = null;
+        currentSize--;
+        return old;
+    }
+
+    private void insert(Object key, Object value) {
+        if (currentSize >= keys.length * loadFactor) {
+            expand();
+        }
+
+        for (int attempts = 0; ; attempts++) {
+            int lastPos = -1;
+            int pos;
+
+            for (int count = 0; count < COUNT_LIMIT; count++) {
+                for (int i = 0; i < numHashFunctions; i++) {
+                    pos = myhash(key, i);
+
+                    if (keys[pos] == null) {
+                        keys[pos] = key;
+                        values[pos] = value;
+                        currentSize++;
+                        return;
+                    }
+                }
+
+                int i = 0;
+                do {
+                    pos = myhash(key, r.nextInt(numHashFunctions));
+                } while (pos == lastPos && i++ < 5);
+
+                Object tmpKey = keys[lastPos = pos];
+                Object tmpValue = values[pos];
+                keys[pos] = key;
+                values[pos] = value;
+                key = tmpKey;
+                value = tmpValue;
+            }
+
+            // 此时 key 是最后被踢出的 key
+            if (rehashing || attempts >= MAX_REHASH_ATTEMPTS) {
+                stashKeys.add(key);
+                stashValues.add(value);
+                currentSize++;
+                return;
+            }
+            // 装填因子很低时失败多半是冲突的 hashCode 造成的，扩容没有帮助，只更换散列函数
+            if (++rehashes > ALLOWED_REHASHES && currentSize - stashKeys.size() >= keys.length * loadFactor / 2) {
+                expand();
+                rehashes = 0;
+            } else {
+                hashFunctions.generateNewFunctions();
+                rehash(keys.length);
+            }
+        }
+    }
+
+    private void expand() {
+        rehash(PrimitiveHashing.grow(keys.length));
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        Object[] stashedKeys = stashKeys.toArray();
+        Object[] stashedValues = stashValues.toArray();
+        allocateArrays(capacity);
+        stashKeys.clear();
+        stashValues.clear();
+        currentSize = 0;
+
+        boolean wasRehashing = rehashing;
+        rehashing = true;
+        try {
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) {
+                    insert(oldKeys[i], oldValues[i]);
+                }
+            }
+            for (int i = 0; i < stashedKeys.length; i++) {
+                insert(stashedKeys[i], stashedValues[i]);
+            }
+        } finally {
+            rehashing = wasRehashing;
+        }
+    }
+}
@@ -1,21 +1,58 @@
 package com.jc.datastructures.hashing;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
 
 /**
  * 布谷鸟散列
+ * <p>
+ * 数组长度是 2 的幂，散列函数族的结果再经过一次混合后用掩码取低位，
+ * 只有低位随机性较差的函数族也能使用。默认的函数族为 UniversalHashFamily。
+ * 元素个数达到 数组长度 * loadFactor 时扩容，两个函数时 loadFactor 不应超过 0.5，三个函数时不应超过 0.9
+ * <p>
+ * 一次插入最多更换 MAX_REHASH_ATTEMPTS 次散列函数（或扩容），仍然放不下的元素进入 stash，查找时逐个比较。
+ * UniversalHashFamily 只对 hashCode() 散列，hashCode 相同的元素在任何一组函数下候选位置都相同，
+ * 超过 numHashFunctions 个时只能放进 stash，大量这样的 key（例如刻意构造的字符串）会退化为线性查找，
+ * 这时应提供按元素内容散列的函数族
+ * <p>
+ * 渐进式扩容模式下，扩容时新旧两个数组并存，之后每次 insert / remove 顺带把旧数组中
+ * MIGRATE_STEP 个槽里的元素搬到新数组，查找两个数组都要查。
+ * 迁移中途需要更换散列函数或再次扩容时，退回到一次性重建
+ * <p>
+ * 快照保存每个元素所在的槽和更换散列函数的次数，读入时按同样的次数更换函数后直接放回原来的槽，
+ * stash 中的元素槽号记为 -1，读入时重新插入
+ * <p>
+ * 批量操作把 key 按 BATCH 个一组，先算出一组所有 key 的全部候选位置，再一起读出这些槽，最后逐个比较，
+ * 同一组的缓存未命中可以同时进行
  *
  * @param <AnyType>
  */
 public class CuckooHashTable<AnyType> {
-    private static final double MAX_LOAD = 0.4;
+    private static final float DEFAULT_LOAD_FACTOR = 0.4f;
     private static final int ALLOWED_REHASHES = 1;
-    private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final int MAX_REHASH_ATTEMPTS = 5;
+    private static final int DEFAULT_EXPECTED_SIZE = 101;
+    private static final int MIGRATE_STEP = 8;
+    private static final int BATCH = 32;
+    private static final int SNAPSHOT_MAGIC = 0x434B4F4F;// "CKOO"
 
     private final HashFamily<? super AnyType> hashFunctions;
     private final int numHashFunctions;
+    private final float loadFactor;
+    private final boolean incrementalResize;
     private AnyType[] array;
-    private int currentSize;
+    private AnyType[] oldArray;// 没有进行中的迁移时为 null
+    private int migrateIndex;
+    private int currentSize;// 包括 stash 中的元素
+    private int generations;// 调用 generateNewFunctions 的次数
+    private final List<AnyType> stash = new ArrayList<>();// 踢出后找不到空槽的元素
+    private boolean rehashing;// 重建过程中放不下的元素直接进入 stash，不再嵌套重建
 
 
     public interface HashFamily<AnyType> {
@@ -27,12 +64,38 @@ public class CuckooHashTable<AnyType> {
     }
 
 
+    public CuckooHashTable() {
+        this(new UniversalHashFamily<AnyType>(3));
+    }
+
     public CuckooHashTable(HashFamily<? super AnyType> hashFunctions) {
-        this(hashFunctions, DEFAULT_TABLE_SIZE);
+        this(hashFunctions, DEFAULT_EXPECTED_SIZE);
+    }
+
+    public CuckooHashTable(HashFamily<? super AnyType> hashFunctions, int expectedSize) {
+        this(hashFunctions, expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public CuckooHashTable(HashFamily<? super AnyType> hashFunctions, int expectedSize, float loadFactor) {
+        this(hashFunctions, expectedSize, loadFactor, false);
     }
 
-    public CuckooHashTable(HashFamily<? super AnyType> hashFunctions, int size) {
-        allocateArray(newtPrime(size));
+    /**
+     * @param incrementalResize 为 true 时扩容分摊到之后的 insert / remove 中完成
+     */
+    public CuckooHashTable(HashFamily<? super AnyType> hashFunctions, int expectedSize, boolean incrementalResize) {
+        this(hashFunctions, expectedSize, DEFAULT_LOAD_FACTOR, incrementalResize);
+    }
+
+    /**
+     * @param expectedSize 预计元素个数，插入这么多元素之前不会因为装填因子扩容
+     * @param loadFactor   (0, 1) 之间
+     */
+    public CuckooHashTable(HashFamily<? super AnyType> hashFunctions, int expectedSize, float loadFactor,
+                           boolean incrementalResize) {
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        this.incrementalResize = incrementalResize;
+        allocateArray(PrimitiveHashing.tableSize(expectedSize, loadFactor));
         doClear();
         this.hashFunctions = hashFunctions;
         numHashFunctions = hashFunctions.getNumberOfFunctions();
@@ -40,6 +103,8 @@ public class CuckooHashTable<AnyType> {
 
     private void doClear() {
         currentSize = 0;
+        oldArray = null;
+        stash.clear();
         for (int i = 0; i < array.length; i++) {
             array[i] = null;
         }
@@ -53,27 +118,43 @@ public class CuckooHashTable<AnyType> {
         return array.length;
     }
 
+    /**
+     * 预先扩容到能容纳 expectedSize 个元素，之后插入这么多元素不会再因为装填因子扩容
+     */
+    public void ensureCapacity(int expectedSize) {
+        int length = PrimitiveHashing.tableSize(expectedSize, loadFactor);
+        if (length > array.length) {
+            rehash(length);
+        }
+    }
+
     public void makeEmpty() {
         doClear();
     }
 
     public boolean contains(AnyType x) {
-        return findPos(x) != -1;
+        return findPos(x) != -1 || (oldArray != null && findPos(oldArray, x) != -1) || inStash(x);
+    }
+
+    private boolean inStash(AnyType x) {
+        return !stash.isEmpty() && stash.contains(x);
     }
 
     private int myhash(AnyType x, int which) {
-        int hashVal = hashFunctions.hash(x, which);
-        hashVal %= array.length;
-        if (hashVal < 0) {
-            hashVal += array.length;
-        }
+        return myhash(x, which, array.length);
+    }
 
-        return hashVal;
+    private int myhash(AnyType x, int which, int length) {
+        return PrimitiveHashing.mix(hashFunctions.hash(x, which)) & (length - 1);
     }
 
     private int findPos(AnyType x) {
+        return findPos(array, x);
+    }
+
+    private int findPos(AnyType[] array, AnyType x) {
         for (int i = 0; i < numHashFunctions; i++) {
-            int pos = myhash(x, i);
+            int pos = myhash(x, i, array.length);
             if (array[pos] != null && array[pos].equals(x)) {
                 return pos;
             }
@@ -82,20 +163,28 @@ public class CuckooHashTable<AnyType> {
     }
 
     public boolean remove(AnyType x) {
+        migrate();
         int pos = findPos(x);
         if (pos != -1) {
             array[pos] = null;
             currentSize--;
+        } else if (oldArray != null && (pos = findPos(oldArray, x)) != -1) {
+            oldArray[pos] = null;
+            currentSize--;
+        } else if (!stash.isEmpty() && stash.remove(x)) {
+            currentSize--;
+            return true;
         }
         return pos != -1;
     }
 
     public boolean insert(AnyType x) {
+        migrate();
         if (contains(x)) {
             return false;
         }
 
-        if (currentSize >= array.length * MAX_LOAD) {
+        if (currentSize >= array.length * loadFactor) {
             expand();
         }
 
@@ -108,7 +197,7 @@ public class CuckooHashTable<AnyType> {
     private boolean insertHelper1(AnyType x) {
         final int COUNT_LIMIT = 100;
 
-        while (true) {
+        for (int attempts = 0; ; attempts++) {
             int lastPos = -1;
             int pos;
 
@@ -133,7 +222,14 @@ public class CuckooHashTable<AnyType> {
                 x = tmp;
             }
 
-            if (++rehashes > ALLOWED_REHASHES) {
+            // 此时 x 是最后被踢出的元素，不一定是传入的元素
+            if (rehashing || attempts >= MAX_REHASH_ATTEMPTS) {
+                stash.add(x);
+                currentSize++;
+                return true;
+            }
+            // 装填因子很低时失败多半是冲突的 hashCode 造成的，扩容没有帮助，只更换散列函数
+            if (++rehashes > ALLOWED_REHASHES && currentSize - stash.size() >= array.length * loadFactor / 2) {
                 expand();
                 rehashes = 0;
             } else {
@@ -173,63 +269,313 @@ public class CuckooHashTable<AnyType> {
     }
 
     private void expand() {
-        rehash((int) (array.length / MAX_LOAD));
+        int newLength = PrimitiveHashing.grow(array.length);
+        if (!incrementalResize || oldArray != null) {
+            rehash(newLength);
+            return;
+        }
+        oldArray = array;
+        allocateArray(newLength);
+        migrateIndex = 0;
+    }
+
+    /**
+     * 旧数组中的元素先计为不在表中，再按新数组重新插入
+     */
+    private void migrate() {
+        for (int n = 0; n < MIGRATE_STEP && oldArray != null; n++) {
+            AnyType x = oldArray[migrateIndex];
+            oldArray[migrateIndex] = null;
+            if (++migrateIndex == oldArray.length) {
+                oldArray = null;
+            }
+            if (x != null) {
+                currentSize--;
+                insertHelper1(x);
+            }
+        }
     }
 
     private void rehash() {
         hashFunctions.generateNewFunctions();
+        generations++;
         rehash(array.length);
     }
 
 
     private void rehash(int newLength) {
-        AnyType[] oldArray = array;
-        allocateArray(newtPrime(newLength));
+        AnyType[] previous = array;
+        AnyType[] migrating = oldArray;
+        List<AnyType> stashed = new ArrayList<>(stash);
+        oldArray = null;
+        stash.clear();
+        allocateArray(newLength);
         currentSize = 0;
 
-        for (AnyType x : oldArray) {
-            if (x != null) {
+        boolean wasRehashing = rehashing;
+        rehashing = true;
+        try {
+            for (AnyType x : previous) {
+                if (x != null) {
+                    insert(x);
+                }
+            }
+            if (migrating != null) {
+                for (AnyType x : migrating) {
+                    if (x != null) {
+                        insert(x);
+                    }
+                }
+            }
+            for (AnyType x : stashed) {
                 insert(x);
             }
+        } finally {
+            rehashing = wasRehashing;
         }
 
     }
 
-    private void allocateArray(int arraySize) {
-        array = (AnyType[]) new Object[arraySize];
-    }
+    /**
+     * 写出快照：装填因子、数组长度、更换散列函数的次数、元素个数，之后每个元素为 槽、元素，stash 中的元素槽为 -1。
+     * 有进行中的迁移时先完成迁移
+     */
+    public void writeTo(WritableByteChannel channel, HashTableSnapshot.Serializer<? super AnyType> serializer)
+            throws IOException {
+        while (oldArray != null) {
+            migrate();
+        }
+        long bodySize = 16;
+        for (AnyType x : array) {
+            if (x != null) {
+                bodySize += 4 + serializer.sizeOf(x);
+            }
+        }
+        for (AnyType x : stash) {
+            bodySize += 4 + serializer.sizeOf(x);
+        }
 
-    private int newtPrime(int size) {
-        if (size / 2 == 0) {
-            size++;
+        ByteBuffer buf = HashTableSnapshot.allocate(SNAPSHOT_MAGIC, bodySize);
+        buf.putFloat(loadFactor).putInt(array.length).putInt(generations).putInt(currentSize);
+        for (int i = 0; i < array.length; i++) {
+            if (array[i] != null) {
+                buf.putInt(i);
+                serializer.write(array[i], buf);
+            }
         }
+        for (AnyType x : stash) {
+            buf.putInt(-1);
+            serializer.write(x, buf);
+        }
+        HashTableSnapshot.write(channel, buf);
+    }
 
-        for (; isPrime(size); size += 2) {
+    public static <AnyType> CuckooHashTable<AnyType> readFrom(
+            ReadableByteChannel channel, HashFamily<? super AnyType> hashFunctions,
+            HashTableSnapshot.Serializer<? extends AnyType> serializer) throws IOException {
+        return readFrom(channel, hashFunctions, serializer, false);
+    }
 
+    /**
+     * 读入 {@link #writeTo} 写出的快照，数组长度和元素位置与写出时相同。
+     * <p>
+     * hashFunctions 应与写出时的函数族以同样的方式构造（例如种子相同的 UniversalHashFamily），
+     * 读入时先按记录的次数调用 generateNewFunctions 得到相同的函数。
+     * 元素原来的槽不是它在这组函数下的位置时，重新插入这个元素，结果仍然正确，只是更慢
+     */
+    public static <AnyType> CuckooHashTable<AnyType> readFrom(
+            ReadableByteChannel channel, HashFamily<? super AnyType> hashFunctions,
+            HashTableSnapshot.Serializer<? extends AnyType> serializer, boolean incrementalResize) throws IOException {
+        ByteBuffer body = HashTableSnapshot.read(channel, SNAPSHOT_MAGIC);
+        try {
+            float loadFactor = body.getFloat();
+            int length = body.getInt();
+            int generations = body.getInt();
+            int count = body.getInt();
+            if (length <= 0 || length > PrimitiveHashing.MAX_CAPACITY || Integer.bitCount(length) != 1
+                    || generations < 0 || count < 0) {
+                throw new IOException("corrupted snapshot");
+            }
+            CuckooHashTable<AnyType> table = new CuckooHashTable<>(hashFunctions, 0, loadFactor, incrementalResize);
+            for (int g = 0; g < generations; g++) {
+                hashFunctions.generateNewFunctions();
+            }
+            table.generations = generations;
+            table.allocateArray(length);
+
+            List<AnyType> misplaced = new ArrayList<>();
+            for (int n = 0; n < count; n++) {
+                int slot = body.getInt();
+                AnyType x = serializer.read(body);
+                if (slot >= 0 && slot < length && table.array[slot] == null && table.isPosition(x, slot)) {
+                    table.array[slot] = x;
+                    table.currentSize++;
+                } else {
+                    misplaced.add(x);
+                }
+            }
+            for (AnyType x : misplaced) {
+                table.insert(x);
+            }
+            return table;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("snapshot truncated", e);
         }
-
-        return size;
     }
 
+    /**
+     * 批量查找，results[i] 为 xs[i] 是否在表中
+     *
+     * @return 在表中的 key 个数
+     */
+    public int containsAll(AnyType[] xs, boolean[] results) {
+        if (results.length < xs.length) {
+            throw new IllegalArgumentException("results shorter than keys: " + results.length + " < " + xs.length);
+        }
+        int found = 0;
+        int[] pos = new int[BATCH * numHashFunctions];
+        Object[] slots = new Object[BATCH * numHashFunctions];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(xs, start, pos, slots);
+            for (int j = 0; j < n; j++) {
+                AnyType x = xs[start + j];
+                boolean in = findIn(slots, j, x) >= 0 || (oldArray != null && findPos(oldArray, x) != -1)
+                        || inStash(x);
+                results[start + j] = in;
+                if (in) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
 
-    private static boolean isPrime(int n) {
-        if (n == 2 || n == 3) {
-            return true;
+    /**
+     * 批量插入，xs 中重复的 key 只插入一次
+     *
+     * @return 新插入的 key 个数
+     */
+    public int insertAll(AnyType[] xs) {
+        while (oldArray != null) {
+            migrate();
         }
+        int inserted = 0;
+        int[] pos = new int[BATCH * numHashFunctions];
+        Object[] slots = new Object[BATCH * numHashFunctions];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(xs, start, pos, slots);
+            AnyType[] array = this.array;
+            int generation = generations;
+            for (int j = 0; j < n; j++) {
+                AnyType x = xs[start + j];
+                // 扩容或更换散列函数之后这一组算好的位置失效，剩下的 key 逐个插入
+                if (array != this.array || generation != generations || oldArray != null) {
+                    if (insert(x)) {
+                        inserted++;
+                    }
+                    continue;
+                }
+                if (!contains(array, pos, j, x) && !inStash(x)) {
+                    if (currentSize >= array.length * loadFactor) {
+                        expand();
+                    }
+                    insertHelper1(x);
+                    inserted++;
+                }
+            }
+        }
+        return inserted;
+    }
 
+    /**
+     * 批量删除
+     *
+     * @return 被删除的 key 个数
+     */
+    public int removeAll(AnyType[] xs) {
+        while (oldArray != null) {
+            migrate();
+        }
+        int removed = 0;
+        int[] pos = new int[BATCH * numHashFunctions];
+        Object[] slots = new Object[BATCH * numHashFunctions];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(xs, start, pos, slots);
+            for (int j = 0; j < n; j++) {
+                AnyType x = xs[start + j];
+                boolean found = false;
+                for (int i = j * numHashFunctions, end = i + numHashFunctions; i < end; i++) {
+                    if (array[pos[i]] != null && array[pos[i]].equals(x)) {
+                        array[pos[i]] = null;
+                        found = true;
+                        break;
+                    }
+                }
+                if (found || (!stash.isEmpty() && stash.remove(x))) {
+                    currentSize--;
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
 
-        if (n == 1 || n % 2 == 0) {
-            return false;
+    /**
+     * 算出 xs[start..] 中一组 key 的所有候选位置，再一起读出这些槽。
+     * 第 j 个 key 的位置在 pos[j * numHashFunctions] 开始的 numHashFunctions 个元素中
+     *
+     * @return 这一组的 key 个数
+     */
+    private int prefetch(AnyType[] xs, int start, int[] pos, Object[] slots) {
+        int n = Math.min(BATCH, xs.length - start);
+        int d = numHashFunctions;
+        for (int j = 0; j < n; j++) {
+            AnyType x = xs[start + j];
+            for (int i = 0; i < d; i++) {
+                pos[j * d + i] = myhash(x, i);
+            }
         }
+        AnyType[] array = this.array;
+        for (int i = 0, end = n * d; i < end; i++) {
+            slots[i] = array[pos[i]];
+        }
+        return n;
+    }
 
+    /**
+     * @return 第 j 个 key 在读出的槽中的下标，不在时返回 -1
+     */
+    private int findIn(Object[] slots, int j, Object x) {
+        for (int i = j * numHashFunctions, end = i + numHashFunctions; i < end; i++) {
+            if (slots[i] != null && slots[i].equals(x)) {
+                return i;
+            }
+        }
+        return -1;
+    }
 
-        for (int i = 3; i * i <= n; i += 2) {
-            if (n % i == 0) {
-                return false;
+    /**
+     * 按算好的位置重新读取槽，同一组前面的插入可能已经踢走了这些槽中的元素
+     */
+    private boolean contains(AnyType[] array, int[] pos, int j, Object x) {
+        for (int i = j * numHashFunctions, end = i + numHashFunctions; i < end; i++) {
+            if (array[pos[i]] != null && array[pos[i]].equals(x)) {
+                return true;
             }
         }
-        return true;
+        return false;
     }
 
+    private boolean isPosition(AnyType x, int slot) {
+        for (int i = 0; i < numHashFunctions; i++) {
+            if (myhash(x, i) == slot) {
+                return true;
+            }
+        }
+        return false;
+    }
 
+    private void allocateArray(int arraySize) {
+        array = (AnyType[]) new Object[arraySize];
+    }
 }
@@ -0,0 +1,120 @@
+package com.jc.datastructures.hashing;
+
+/**
+ * 散列函数与散列策略
+ * <p>
+ * 表长为 2 的幂时用掩码取低位代替取模，hashCode() 低位分布不均（例如都是 8 的倍数）会集中到少数桶里。
+ * 策略在 hashCode() 之后再做一次混合，让每一位输入都影响到低位：
+ * <ul>
+ * <li>identity：直接使用 hashCode()，适合已经分布均匀的 key；</li>
+ * <li>fibonacci：乘以黄金分割常数再折叠高位，一次乘法，各个表的默认策略；</li>
+ * <li>murmur3：MurmurHash3 的 fmix32 终结函数，雪崩效果好，适合很弱的 hashCode()；</li>
+ * <li>xxHash：xxHash32 的 avalanche 步骤，与 murmur3 质量相近</li>
+ * </ul>
+ */
+public final class HashFunctions {
+
+    public interface Strategy<AnyType> {
+        int hash(AnyType x);
+    }
+
+
+    private static final Strategy<Object> IDENTITY = new Strategy<Object>() {
+        @Override
+        public int hash(Object x) {
+            return x.hashCode();
+        }
+    };
+
+    private static final Strategy<Object> FIBONACCI = new Strategy<Object>() {
+        @Override
+        public int hash(Object x) {
+            return PrimitiveHashing.mix(x.hashCode());
+        }
+    };
+
+    private static final Strategy<Object> MURMUR3 = new Strategy<Object>() {
+        @Override
+        public int hash(Object x) {
+            return fmix32(x.hashCode());
+        }
+    };
+
+    private static final Strategy<Object> XXHASH = new Strategy<Object>() {
+        @Override
+        public int hash(Object x) {
+            return xxh32Avalanche(x.hashCode());
+        }
+    };
+
+    private HashFunctions() {
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <AnyType> Strategy<AnyType> identity() {
+        return (Strategy<AnyType>) IDENTITY;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <AnyType> Strategy<AnyType> fibonacci() {
+        return (Strategy<AnyType>) FIBONACCI;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <AnyType> Strategy<AnyType> murmur3() {
+        return (Strategy<AnyType>) MURMUR3;
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <AnyType> Strategy<AnyType> xxHash() {
+        return (Strategy<AnyType>) XXHASH;
+    }
+
+    /**
+     * MurmurHash3 的 32 位终结函数
+     */
+    public static int fmix32(int h) {
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE35;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * MurmurHash3 的 64 位终结函数
+     */
+    public static long fmix64(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    /**
+     * xxHash32 的 avalanche 步骤
+     */
+    public static int xxh32Avalanche(int h) {
+        h ^= h >>> 15;
+        h *= 0x85EBCA77;
+        h ^= h >>> 13;
+        h *= 0xC2B2AE3D;
+        h ^= h >>> 16;
+        return h;
+    }
+
+    /**
+     * xxHash64 的 avalanche 步骤
+     */
+    public static long xxh64Avalanche(long h) {
+        h ^= h >>> 33;
+        h *= 0xC2B2AE3D27D4EB4FL;
+        h ^= h >>> 29;
+        h *= 0x165667B19E3779F9L;
+        h ^= h >>> 32;
+        return h;
+    }
+}
@@ -0,0 +1,162 @@
+package com.jc.datastructures.hashing;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+
+/**
+ * 散列表快照的二进制格式与元素序列化
+ * <p>
+ * 快照 = 16 字节前缀（魔数、版本、正文字节数）+ 正文。正文由各个表自己定义，保存表的最终布局，
+ * 读入时按布局直接放回，不需要逐个插入，也不会触发扩容。
+ * 写出时整个快照先写进一个直接缓冲区再一次写出，读入时一次读入整个正文，
+ * 单个 ByteBuffer 不能超过 2GB，快照也不能超过 2GB。
+ */
+public final class HashTableSnapshot {
+    private static final int PREFIX_SIZE = 16;
+    private static final int VERSION = 1;
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    /**
+     * 元素的序列化方式，sizeOf 返回 write 写入的字节数
+     */
+    public interface Serializer<AnyType> {
+        int sizeOf(AnyType x);
+
+        void write(AnyType x, ByteBuffer buf);
+
+        AnyType read(ByteBuffer buf);
+    }
+
+
+    private static final Serializer<Integer> INTEGERS = new Serializer<Integer>() {
+        @Override
+        public int sizeOf(Integer x) {
+            return 4;
+        }
+
+        @Override
+        public void write(Integer x, ByteBuffer buf) {
+            buf.putInt(x);
+        }
+
+        @Override
+        public Integer read(ByteBuffer buf) {
+            return buf.getInt();
+        }
+    };
+
+    private static final Serializer<Long> LONGS = new Serializer<Long>() {
+        @Override
+        public int sizeOf(Long x) {
+            return 8;
+        }
+
+        @Override
+        public void write(Long x, ByteBuffer buf) {
+            buf.putLong(x);
+        }
+
+        @Override
+        public Long read(ByteBuffer buf) {
+            return buf.getLong();
+        }
+    };
+
+    /**
+     * 4 字节长度 + UTF-8 编码。sizeOf 需要先编码一次，写出时再编码一次
+     */
+    private static final Serializer<String> STRINGS = new Serializer<String>() {
+        @Override
+        public int sizeOf(String x) {
+            return 4 + x.getBytes(UTF_8).length;
+        }
+
+        @Override
+        public void write(String x, ByteBuffer buf) {
+            byte[] bytes = x.getBytes(UTF_8);
+            buf.putInt(bytes.length);
+            buf.put(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer buf) {
+            byte[] bytes = new byte[buf.getInt()];
+            buf.get(bytes);
+            return new String(bytes, UTF_8);
+        }
+    };
+
+    private HashTableSnapshot() {
+    }
+
+    public static Serializer<Integer> integers() {
+        return INTEGERS;
+    }
+
+    public static Serializer<Long> longs() {
+        return LONGS;
+    }
+
+    public static Serializer<String> strings() {
+        return STRINGS;
+    }
+
+    /**
+     * 分配整个快照的缓冲区并写好前缀，调用者接着写入 bodySize 字节的正文
+     */
+    static ByteBuffer allocate(int magic, long bodySize) {
+        if (bodySize > Integer.MAX_VALUE - PREFIX_SIZE) {
+            throw new IllegalStateException("snapshot too large: " + bodySize + " bytes");
+        }
+        ByteBuffer buf = ByteBuffer.allocateDirect(PREFIX_SIZE + (int) bodySize);
+        buf.putInt(magic).putInt(VERSION).putLong(bodySize);
+        return buf;
+    }
+
+    static void write(WritableByteChannel channel, ByteBuffer buf) throws IOException {
+        if (buf.hasRemaining()) {
+            throw new IllegalStateException("snapshot size mismatch: " + buf.remaining() + " bytes unwritten");
+        }
+        buf.flip();
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /**
+     * 读入前缀并检查，再一次读入整个正文
+     *
+     * @return 正文，position 为 0
+     */
+    static ByteBuffer read(ReadableByteChannel channel, int magic) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(PREFIX_SIZE);
+        readFully(channel, prefix);
+        if (prefix.getInt() != magic) {
+            throw new IOException("not a snapshot of this table type");
+        }
+        int version = prefix.getInt();
+        if (version != VERSION) {
+            throw new IOException("unsupported snapshot version: " + version);
+        }
+        long bodySize = prefix.getLong();
+        if (bodySize < 0 || bodySize > Integer.MAX_VALUE - PREFIX_SIZE) {
+            throw new IOException("corrupted snapshot: body size " + bodySize);
+        }
+        ByteBuffer body = ByteBuffer.allocateDirect((int) bodySize);
+        readFully(channel, body);
+        return body;
+    }
+
+    private static void readFully(ReadableByteChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            if (channel.read(buf) < 0) {
+                throw new EOFException("snapshot truncated");
+            }
+        }
+        buf.flip();
+    }
+}
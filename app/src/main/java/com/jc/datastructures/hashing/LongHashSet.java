@@ -0,0 +1,158 @@
+package com.jc.datastructures.hashing;
+
+/**
+ * 元素为 long 的散列集合，开放定址 + 线性探测
+ * <p>
+ * 元素直接存放在 long[] 中，容量为 2 的幂，用掩码代替取模；0 表示空槽，元素 0 单独用一个标志记录，
+ * 因此任何 long 都可以存入。删除时把后面同一探测链上的元素向前移动填补空位，不留删除标记。
+ * insert / contains / remove 都不分配内存
+ */
+public class LongHashSet {
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    private final float loadFactor;
+    private long[] keys;
+    private int mask;
+    private int size;// 不含 0
+    private int resizeAt;
+    private boolean containsZero;
+
+
+    public LongHashSet() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public LongHashSet(int expectedSize) {
+        this(expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * @param expectedSize 预计元素个数，插入这么多元素之前不会扩容
+     * @param loadFactor   装填因子上限，(0, 1) 之间
+     */
+    public LongHashSet(int expectedSize, float loadFactor) {
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        allocateArray(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    private void allocateArray(int capacity) {
+        keys = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, loadFactor);
+    }
+
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public void makeEmpty() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0;
+        }
+        size = 0;
+        containsZero = false;
+    }
+
+    public boolean contains(long x) {
+        if (x == 0) {
+            return containsZero;
+        }
+        long[] keys = this.keys;
+        for (int pos = PrimitiveHashing.mix(x) & mask; ; pos = (pos + 1) & mask) {
+            long k = keys[pos];
+            if (k == x) {
+                return true;
+            }
+            if (k == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * @return x 原来不在集合中时返回 true
+     */
+    public boolean insert(long x) {
+        if (x == 0) {
+            if (containsZero) {
+                return false;
+            }
+            containsZero = true;
+            return true;
+        }
+        long[] keys = this.keys;
+        int pos = PrimitiveHashing.mix(x) & mask;
+        for (long k; (k = keys[pos]) != 0; pos = (pos + 1) & mask) {
+            if (k == x) {
+                return false;
+            }
+        }
+        keys[pos] = x;
+        if (++size > resizeAt) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean remove(long x) {
+        if (x == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+        long[] keys = this.keys;
+        for (int pos = PrimitiveHashing.mix(x) & mask; ; pos = (pos + 1) & mask) {
+            long k = keys[pos];
+            if (k == x) {
+                shiftKeys(pos);
+                size--;
+                return true;
+            }
+            if (k == 0) {
+                return false;
+            }
+        }
+    }
+
+    /**
+     * 删除 gap 处的元素：向后扫描同一段连续的非空槽，把起始位置不在 (gap, slot] 之间的元素移到 gap
+     */
+    private void shiftKeys(int gap) {
+        long[] keys = this.keys;
+        for (int slot = (gap + 1) & mask; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == 0) {
+                break;
+            }
+            int home = PrimitiveHashing.mix(k) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = k;
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        allocateArray(PrimitiveHashing.grow(oldKeys.length));
+        long[] keys = this.keys;
+        for (long k : oldKeys) {
+            if (k != 0) {
+                int pos = PrimitiveHashing.mix(k) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = k;
+            }
+        }
+    }
+}
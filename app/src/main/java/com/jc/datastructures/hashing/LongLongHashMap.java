@@ -0,0 +1,168 @@
+package com.jc.datastructures.hashing;
+
+/**
+ * long 到 long 的散列映射，结构与 {@link LongHashSet} 相同
+ * <p>
+ * key 和 value 分别存放在两个平行的 long[] 中，key 为 0 的映射单独记录
+ */
+public class LongLongHashMap {
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    private final float loadFactor;
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;// 不含 key 0
+    private int resizeAt;
+    private boolean containsZero;
+    private long zeroValue;
+
+
+    public LongLongHashMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public LongLongHashMap(int expectedSize) {
+        this(expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public LongLongHashMap(int expectedSize, float loadFactor) {
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        allocateArrays(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    private void allocateArrays(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, loadFactor);
+    }
+
+    public int size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public void makeEmpty() {
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = 0;
+        }
+        size = 0;
+        containsZero = false;
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : findPos(key) >= 0;
+    }
+
+    /**
+     * @return key 对应的值，不存在时返回 defaultValue
+     */
+    public long get(long key, long defaultValue) {
+        if (key == 0) {
+            return containsZero ? zeroValue : defaultValue;
+        }
+        int pos = findPos(key);
+        return pos >= 0 ? values[pos] : defaultValue;
+    }
+
+    private int findPos(long key) {
+        long[] keys = this.keys;
+        for (int pos = PrimitiveHashing.mix(key) & mask; ; pos = (pos + 1) & mask) {
+            long k = keys[pos];
+            if (k == key) {
+                return pos;
+            }
+            if (k == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * @return key 原来不存在时返回 true，否则覆盖原来的值并返回 false
+     */
+    public boolean put(long key, long value) {
+        if (key == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            zeroValue = value;
+            return added;
+        }
+        long[] keys = this.keys;
+        int pos = PrimitiveHashing.mix(key) & mask;
+        for (long k; (k = keys[pos]) != 0; pos = (pos + 1) & mask) {
+            if (k == key) {
+                values[pos] = value;
+                return false;
+            }
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        if (++size > resizeAt) {
+            rehash();
+        }
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            return removed;
+        }
+        int pos = findPos(key);
+        if (pos < 0) {
+            return false;
+        }
+        shiftKeys(pos);
+        size--;
+        return true;
+    }
+
+    /**
+     * 与 {@link LongHashSet} 相同的向前移动删除，value 随 key 一起移动
+     */
+    private void shiftKeys(int gap) {
+        long[] keys = this.keys;
+        long[] values = this.values;
+        for (int slot = (gap + 1) & mask; ; slot = (slot + 1) & mask) {
+            long k = keys[slot];
+            if (k == 0) {
+                break;
+            }
+            int home = PrimitiveHashing.mix(k) & mask;
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                keys[gap] = k;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocateArrays(PrimitiveHashing.grow(oldKeys.length));
+        long[] keys = this.keys;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long k = oldKeys[i];
+            if (k != 0) {
+                int pos = PrimitiveHashing.mix(k) & mask;
+                while (keys[pos] != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                keys[pos] = k;
+                values[pos] = oldValues[i];
+            }
+        }
+    }
+}
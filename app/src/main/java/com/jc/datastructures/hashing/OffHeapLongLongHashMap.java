@@ -0,0 +1,381 @@
+package com.jc.datastructures.hashing;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * 堆外的 long 到 long 散列映射，数据放在直接缓冲区或内存映射文件中，不占 Java 堆，GC 也不需要扫描
+ * <p>
+ * 槽布局：每个槽 16 字节，前 8 字节为 key，后 8 字节为 value，小端序。一次探测只读同一缓存行内的 key 和 value。
+ * 探测与删除方式与 {@link LongLongHashMap} 相同：线性探测，key 为 0 表示空槽，删除时向前移动后面的 key，
+ * key 为 0 的映射记录在文件头中。
+ * <p>
+ * 单个 ByteBuffer 不能超过 2GB，槽区按 CHUNK_SIZE 分成多块，槽的字节偏移用 long 表示，
+ * 高位选块、低位为块内偏移，表可以超过 2GB。
+ * <p>
+ * 文件格式：HEADER_SIZE 字节的文件头（魔数、装填因子、容量、大小、key 0 的映射），之后是槽区。
+ * 映射文件的容量在创建时确定，装满时抛出 IllegalStateException；每次修改都会写入文件头，
+ * 进程重启后用 {@link #open(File)} 直接映射已经建好的表，不需要重新插入。
+ * 直接缓冲区和映射在缓冲区对象被回收时才释放
+ */
+public class OffHeapLongLongHashMap {
+    private static final long MAGIC = 0x4F48484D4C4C3031L;// "OHHMLL01"
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int LOAD_FACTOR_OFFSET = 8;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int SIZE_OFFSET = 24;
+    private static final int ZERO_FLAG_OFFSET = 32;
+    private static final int ZERO_VALUE_OFFSET = 40;
+
+    private static final int SLOT_SHIFT = 4;// 每个槽 16 字节
+    private static final int VALUE_OFFSET = 8;
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_SIZE = 1L << CHUNK_BITS;
+    private static final long CHUNK_MASK = CHUNK_SIZE - 1;
+
+    private static final long MIN_CAPACITY = 16;
+    private static final long MAX_CAPACITY = 1L << 40;
+
+    private final float loadFactor;
+    private final ByteBuffer header;
+    private final boolean mapped;
+    private ByteBuffer[] chunks;
+    private long capacity;
+    private long mask;
+    private long size;// 不含 key 0
+    private long resizeAt;
+    private boolean containsZero;
+    private long zeroValue;
+
+
+    private OffHeapLongLongHashMap(float loadFactor, ByteBuffer header, ByteBuffer[] chunks, long capacity,
+                                   boolean mapped) {
+        this.loadFactor = loadFactor;
+        this.header = header;
+        this.mapped = mapped;
+        setChunks(chunks, capacity);
+    }
+
+    /**
+     * 在直接缓冲区中分配，装填因子超过上限时扩容
+     */
+    public static OffHeapLongLongHashMap allocateDirect(long expectedSize) {
+        return allocateDirect(expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public static OffHeapLongLongHashMap allocateDirect(long expectedSize, float loadFactor) {
+        PrimitiveHashing.checkLoadFactor(loadFactor);
+        long capacity = tableSize(expectedSize, loadFactor);
+        ByteBuffer header = ByteBuffer.allocateDirect(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        OffHeapLongLongHashMap map = new OffHeapLongLongHashMap(loadFactor, header, allocateChunks(capacity),
+                capacity, false);
+        map.writeHeader();
+        return map;
+    }
+
+    /**
+     * 创建（或覆盖）file 并映射，容量固定为容纳 expectedSize 个 key 所需的大小
+     */
+    public static OffHeapLongLongHashMap create(File file, long expectedSize) throws IOException {
+        return create(file, expectedSize, PrimitiveHashing.DEFAULT_LOAD_FACTOR);
+    }
+
+    public static OffHeapLongLongHashMap create(File file, long expectedSize, float loadFactor) throws IOException {
+        PrimitiveHashing.checkLoadFactor(loadFactor);
+        long capacity = tableSize(expectedSize, loadFactor);
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            // 先截断再扩展，扩展出来的部分全为 0，即全是空槽
+            raf.setLength(0);
+            raf.setLength(HEADER_SIZE + (capacity << SLOT_SHIFT));
+            FileChannel channel = raf.getChannel();
+            OffHeapLongLongHashMap map = new OffHeapLongLongHashMap(loadFactor, mapHeader(channel),
+                    mapChunks(channel, capacity), capacity, true);
+            map.writeHeader();
+            return map;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * 映射 {@link #create(File, long)} 建好的表，映射之后的修改直接写回文件
+     */
+    public static OffHeapLongLongHashMap open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() < HEADER_SIZE) {
+                throw new IOException("not a hash table file: " + file);
+            }
+            ByteBuffer header = mapHeader(channel);
+            if (header.getLong(MAGIC_OFFSET) != MAGIC) {
+                throw new IOException("not a hash table file: " + file);
+            }
+            float loadFactor = Float.intBitsToFloat(header.getInt(LOAD_FACTOR_OFFSET));
+            long capacity = header.getLong(CAPACITY_OFFSET);
+            if (capacity < MIN_CAPACITY || capacity > MAX_CAPACITY || Long.bitCount(capacity) != 1
+                    || channel.size() < HEADER_SIZE + (capacity << SLOT_SHIFT)) {
+                throw new IOException("corrupted hash table file: " + file);
+            }
+            OffHeapLongLongHashMap map = new OffHeapLongLongHashMap(loadFactor, header,
+                    mapChunks(channel, capacity), capacity, true);
+            map.size = header.getLong(SIZE_OFFSET);
+            map.containsZero = header.getLong(ZERO_FLAG_OFFSET) != 0;
+            map.zeroValue = header.getLong(ZERO_VALUE_OFFSET);
+            return map;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static long tableSize(long expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must not be negative: " + expectedSize);
+        }
+        double needed = Math.ceil(expectedSize / (double) loadFactor);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("expected size too large: " + expectedSize);
+        }
+        long capacity = MIN_CAPACITY;
+        while (capacity < needed) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    private static ByteBuffer[] allocateChunks(long capacity) {
+        long bytes = capacity << SLOT_SHIFT;
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((bytes + CHUNK_MASK) >>> CHUNK_BITS)];
+        for (int i = 0; i < chunks.length; i++) {
+            int length = (int) Math.min(CHUNK_SIZE, bytes - ((long) i << CHUNK_BITS));
+            chunks[i] = ByteBuffer.allocateDirect(length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    private static ByteBuffer mapHeader(FileChannel channel) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static ByteBuffer[] mapChunks(FileChannel channel, long capacity) throws IOException {
+        long bytes = capacity << SLOT_SHIFT;
+        ByteBuffer[] chunks = new ByteBuffer[(int) ((bytes + CHUNK_MASK) >>> CHUNK_BITS)];
+        for (int i = 0; i < chunks.length; i++) {
+            long offset = (long) i << CHUNK_BITS;
+            long length = Math.min(CHUNK_SIZE, bytes - offset);
+            chunks[i] = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + offset, length)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+        }
+        return chunks;
+    }
+
+    private void setChunks(ByteBuffer[] chunks, long capacity) {
+        this.chunks = chunks;
+        this.capacity = capacity;
+        mask = capacity - 1;
+        resizeAt = Math.min(capacity - 1, (long) (capacity * (double) loadFactor));
+    }
+
+    private void writeHeader() {
+        header.putLong(MAGIC_OFFSET, MAGIC);
+        header.putInt(LOAD_FACTOR_OFFSET, Float.floatToIntBits(loadFactor));
+        header.putLong(CAPACITY_OFFSET, capacity);
+        header.putLong(SIZE_OFFSET, size);
+        header.putLong(ZERO_FLAG_OFFSET, containsZero ? 1 : 0);
+        header.putLong(ZERO_VALUE_OFFSET, zeroValue);
+    }
+
+    public long size() {
+        return containsZero ? size + 1 : size;
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 槽数
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * 把映射文件中的修改刷到磁盘，直接缓冲区时什么也不做
+     */
+    public void force() {
+        if (mapped) {
+            ((MappedByteBuffer) header).force();
+            for (ByteBuffer chunk : chunks) {
+                ((MappedByteBuffer) chunk).force();
+            }
+        }
+    }
+
+    public void makeEmpty() {
+        for (ByteBuffer chunk : chunks) {
+            for (int i = 0, n = chunk.capacity(); i < n; i += 8) {
+                chunk.putLong(i, 0);
+            }
+        }
+        size = 0;
+        containsZero = false;
+        writeHeader();
+    }
+
+    private long keyAt(long slot) {
+        long offset = slot << SLOT_SHIFT;
+        return chunks[(int) (offset >>> CHUNK_BITS)].getLong((int) (offset & CHUNK_MASK));
+    }
+
+    private long valueAt(long slot) {
+        long offset = slot << SLOT_SHIFT;
+        return chunks[(int) (offset >>> CHUNK_BITS)].getLong((int) (offset & CHUNK_MASK) + VALUE_OFFSET);
+    }
+
+    private void setSlot(long slot, long key, long value) {
+        long offset = slot << SLOT_SHIFT;
+        ByteBuffer chunk = chunks[(int) (offset >>> CHUNK_BITS)];
+        int pos = (int) (offset & CHUNK_MASK);
+        chunk.putLong(pos, key);
+        chunk.putLong(pos + VALUE_OFFSET, value);
+    }
+
+    private void clearSlot(long slot) {
+        long offset = slot << SLOT_SHIFT;
+        chunks[(int) (offset >>> CHUNK_BITS)].putLong((int) (offset & CHUNK_MASK), 0);
+    }
+
+    /**
+     * 槽数可能超过 2^32，用 64 位的混合函数取起始槽
+     */
+    private long home(long key) {
+        return HashFunctions.fmix64(key) & mask;
+    }
+
+    public boolean containsKey(long key) {
+        return key == 0 ? containsZero : findPos(key) >= 0;
+    }
+
+    /**
+     * @return key 对应的值，不存在时返回 defaultValue
+     */
+    public long get(long key, long defaultValue) {
+        if (key == 0) {
+            return containsZero ? zeroValue : defaultValue;
+        }
+        long pos = findPos(key);
+        return pos >= 0 ? valueAt(pos) : defaultValue;
+    }
+
+    private long findPos(long key) {
+        for (long pos = home(key); ; pos = (pos + 1) & mask) {
+            long k = keyAt(pos);
+            if (k == key) {
+                return pos;
+            }
+            if (k == 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * @return key 原来不存在时返回 true，否则覆盖原来的值并返回 false
+     * @throws IllegalStateException 映射文件的表已满
+     */
+    public boolean put(long key, long value) {
+        if (key == 0) {
+            boolean added = !containsZero;
+            containsZero = true;
+            zeroValue = value;
+            header.putLong(ZERO_FLAG_OFFSET, 1);
+            header.putLong(ZERO_VALUE_OFFSET, value);
+            return added;
+        }
+        long pos = home(key);
+        for (long k; (k = keyAt(pos)) != 0; pos = (pos + 1) & mask) {
+            if (k == key) {
+                setSlot(pos, key, value);
+                return false;
+            }
+        }
+        if (size >= resizeAt) {
+            if (mapped) {
+                throw new IllegalStateException("mapped hash table is full: capacity " + capacity);
+            }
+            rehash();
+            pos = home(key);
+            while (keyAt(pos) != 0) {
+                pos = (pos + 1) & mask;
+            }
+        }
+        setSlot(pos, key, value);
+        header.putLong(SIZE_OFFSET, ++size);
+        return true;
+    }
+
+    public boolean remove(long key) {
+        if (key == 0) {
+            boolean removed = containsZero;
+            containsZero = false;
+            header.putLong(ZERO_FLAG_OFFSET, 0);
+            return removed;
+        }
+        long pos = findPos(key);
+        if (pos < 0) {
+            return false;
+        }
+        shiftKeys(pos);
+        header.putLong(SIZE_OFFSET, --size);
+        return true;
+    }
+
+    /**
+     * 与 {@link LongLongHashMap} 相同的向前移动删除
+     */
+    private void shiftKeys(long gap) {
+        for (long slot = (gap + 1) & mask; ; slot = (slot + 1) & mask) {
+            long k = keyAt(slot);
+            if (k == 0) {
+                break;
+            }
+            long home = home(k);
+            if (((slot - home) & mask) >= ((slot - gap) & mask)) {
+                setSlot(gap, k, valueAt(slot));
+                gap = slot;
+            }
+        }
+        clearSlot(gap);
+    }
+
+    private void rehash() {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("hash table is full: capacity " + capacity);
+        }
+        ByteBuffer[] oldChunks = chunks;
+        long oldCapacity = capacity;
+        setChunks(allocateChunks(capacity << 1), capacity << 1);
+        header.putLong(CAPACITY_OFFSET, capacity);
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            long offset = slot << SLOT_SHIFT;
+            ByteBuffer chunk = oldChunks[(int) (offset >>> CHUNK_BITS)];
+            int p = (int) (offset & CHUNK_MASK);
+            long k = chunk.getLong(p);
+            if (k != 0) {
+                long pos = home(k);
+                while (keyAt(pos) != 0) {
+                    pos = (pos + 1) & mask;
+                }
+                setSlot(pos, k, chunk.getLong(p + VALUE_OFFSET));
+            }
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.jc.datastructures.hashing;
+
+/**
+ * 基本类型散列表共用的散列与容量计算
+ */
+final class PrimitiveHashing {
+    static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    static final int MAX_CAPACITY = 1 << 30;
+
+    private static final int MIN_CAPACITY = 4;
+
+    private PrimitiveHashing() {
+    }
+
+    /**
+     * 乘以黄金分割常数把低位的差异扩散到高位，再把高位折叠回低位，掩码只取低位也能分布均匀
+     */
+    static int mix(int x) {
+        int h = x * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long x) {
+        long h = x * 0x9E3779B97F4A7C15L;
+        h ^= h >>> 32;
+        return (int) (h ^ (h >>> 16));
+    }
+
+    static float checkLoadFactor(float loadFactor) {
+        if (!(loadFactor > 0 && loadFactor < 1)) {
+            throw new IllegalArgumentException("load factor must be in (0, 1): " + loadFactor);
+        }
+        return loadFactor;
+    }
+
+    /**
+     * 容纳 expectedSize 个元素而不超过装填因子的最小 2 的幂
+     */
+    static int tableSize(int expectedSize, float loadFactor) {
+        if (expectedSize < 0) {
+            throw new IllegalArgumentException("expected size must not be negative: " + expectedSize);
+        }
+        long needed = (long) Math.ceil(expectedSize / (double) loadFactor);
+        if (needed > MAX_CAPACITY) {
+            throw new IllegalArgumentException("expected size too large: " + expectedSize);
+        }
+        return powerOfTwo((int) needed);
+    }
+
+    /**
+     * 不小于 n 的最小 2 的幂，至少为 MIN_CAPACITY
+     */
+    static int powerOfTwo(int n) {
+        if (n > MAX_CAPACITY) {
+            throw new IllegalArgumentException("capacity too large: " + n);
+        }
+        int capacity = MIN_CAPACITY;
+        while (capacity < n) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * 元素个数超过该值时扩容，至少留一个空槽保证探测能够结束
+     */
+    static int resizeAt(int capacity, float loadFactor) {
+        return Math.min(capacity - 1, (int) (capacity * loadFactor));
+    }
+
+    static int grow(int capacity) {
+        if (capacity >= MAX_CAPACITY) {
+            throw new IllegalStateException("hash table is full: capacity " + capacity);
+        }
+        return capacity << 1;
+    }
+}
@@ -0,0 +1,240 @@
+package com.jc.datastructures.hashing;
+
+import java.util.Arrays;
+
+/**
+ * 使用平方探测法的散列映射，探测序列与 QuadraticProbingHashTable 相同
+ * <p>
+ * key 和 value 放在两个平行数组中，没有 HashEntry 之类的对象，一次探测同时得到 key 和 value。
+ * 删除时 key 位置放 DELETED 标记保持探测链完整，插入时复用探测序列上遇到的第一个删除标记。
+ * 已占用的槽（含删除标记）超过上限时扩容；删除标记占了一半以上时按原容量重建
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class QuadraticProbingHashMap<K, V> {
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private static final Object DELETED = new Object();
+
+    private final float loadFactor;
+    private final HashFunctions.Strategy<? super K> strategy;
+    private Object[] keys;
+    private Object[] values;
+    private int currentSize;
+    private int occupied;// 有 key 或删除标记的槽数
+    private int resizeAt;
+
+
+    /**
+     * computeIfAbsent 中计算 value 的函数，Android API 24 以下没有 java.util.function
+     */
+    public interface MappingFunction<K, V> {
+        V apply(K key);
+    }
+
+
+    public QuadraticProbingHashMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public QuadraticProbingHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public QuadraticProbingHashMap(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, HashFunctions.<K>fibonacci());
+    }
+
+    public QuadraticProbingHashMap(int expectedSize, float loadFactor, HashFunctions.Strategy<? super K> strategy) {
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        this.strategy = strategy;
+        allocateArrays(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    private void allocateArrays(int capacity) {
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        resizeAt = PrimitiveHashing.resizeAt(capacity, loadFactor);
+        occupied = 0;
+    }
+
+    public int size() {
+        return currentSize;
+    }
+
+    public boolean isEmpty() {
+        return currentSize == 0;
+    }
+
+    public int capacity() {
+        return keys.length;
+    }
+
+    public void makeEmpty() {
+        Arrays.fill(keys, null);
+        Arrays.fill(values, null);
+        currentSize = 0;
+        occupied = 0;
+    }
+
+    /**
+     * 预先扩容到能容纳 expectedSize 个 key，之后插入这么多 key 不会再触发扩容
+     */
+    public void ensureCapacity(int expectedSize) {
+        int capacity = PrimitiveHashing.tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) {
+            rehash(capacity);
+        }
+    }
+
+    /**
+     * keys / values 中只会放入 K、V（和 DELETED 标记），未检查的转换集中在这两个方法中
+     */
+    @SuppressWarnings("unchecked")
+    private K asKey(Object key) {
+        return (K) key;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int pos) {
+        return (V) values[pos];
+    }
+
+    /**
+     * @return key 所在的槽，不存在时返回 -1
+     */
+    private int findPos(Object key) {
+        int mask = keys.length - 1;
+        int offset = 1;
+        for (int pos = strategy.hash(asKey(key)) & mask; ; pos = (pos + offset++) & mask) {
+            Object k = keys[pos];
+            if (k == null) {
+                return -1;
+            }
+            if (k == key || (k != DELETED && key.equals(k))) {
+                return pos;
+            }
+        }
+    }
+
+    /**
+     * @return key 所在的槽；不存在时返回 -(可插入的槽) - 1，优先复用探测序列上的第一个删除标记
+     */
+    private int findInsertPos(K key) {
+        int mask = keys.length - 1;
+        int offset = 1;
+        int firstDeleted = -1;
+        for (int pos = strategy.hash(key) & mask; ; pos = (pos + offset++) & mask) {
+            Object k = keys[pos];
+            if (k == null) {
+                return -(firstDeleted >= 0 ? firstDeleted : pos) - 1;
+            }
+            if (k == DELETED) {
+                if (firstDeleted < 0) {
+                    firstDeleted = pos;
+                }
+            } else if (k == key || key.equals(k)) {
+                return pos;
+            }
+        }
+    }
+
+    public boolean containsKey(K key) {
+        return findPos(key) >= 0;
+    }
+
+    /**
+     * @return key 对应的值，不存在时返回 null
+     */
+    public V get(K key) {
+        int pos = findPos(key);
+        return pos >= 0 ? valueAt(pos) : null;
+    }
+
+    /**
+     * @return key 原来对应的值，原来不存在时返回 null
+     */
+    public V put(K key, V value) {
+        int pos = findInsertPos(key);
+        if (pos >= 0) {
+            V old = valueAt(pos);
+            values[pos] = value;
+            return old;
+        }
+        insertAt(-pos - 1, key, value);
+        return null;
+    }
+
+    /**
+     * key 不存在时用 mappingFunction 计算 value 并放入，函数返回 null 时不放入
+     *
+     * @return key 当前对应的值
+     */
+    public V computeIfAbsent(K key, MappingFunction<? super K, ? extends V> mappingFunction) {
+        int pos = findInsertPos(key);
+        if (pos >= 0) {
+            return valueAt(pos);
+        }
+        pos = -pos - 1;
+        Object[] table = keys;
+        Object slot = keys[pos];
+        V value = mappingFunction.apply(key);
+        if (value != null) {
+            // 函数中修改了这个映射时之前找到的位置可能已经失效，重新查找
+            if (keys == table && keys[pos] == slot) {
+                insertAt(pos, key, value);
+            } else {
+                put(key, value);
+            }
+        }
+        return value;
+    }
+
+    private void insertAt(int pos, K key, V value) {
+        if (keys[pos] == null) {
+            occupied++;
+        }
+        keys[pos] = key;
+        values[pos] = value;
+        currentSize++;
+        if (occupied > resizeAt) {
+            rehash(currentSize > resizeAt / 2 ? PrimitiveHashing.grow(keys.length) : keys.length);
+        }
+    }
+
+    /**
+     * @return 被删除的值，key 不存在时返回 null
+     */
+    public V remove(K key) {
+        int pos = findPos(key);
+        if (pos < 0) {
+            return null;
+        }
+        V old = valueAt(pos);
+        keys[pos] = DELETED;
+        values[pos] = null;
+        currentSize--;
+        return old;
+    }
+
+    private void rehash(int capacity) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocateArrays(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            Object k = oldKeys[i];
+            if (k != null && k != DELETED) {
+                int offset = 1;
+                int pos = strategy.hash(asKey(k)) & mask;
+                while (keys[pos] != null) {
+                    pos = (pos + offset++) & mask;
+                }
+                keys[pos] = k;
+                values[pos] = oldValues[i];
+                occupied++;
+            }
+        }
+    }
+}
@@ -3,12 +3,33 @@ package com.jc.datastructures.hashing;
 /**
  * 使用探测方法实现的hashtable
  * <p>
- * 探测方法采用平方探测法  f(i)=i*i;
+ * 探测方法采用平方探测法  f(i)=(i*i+i)/2;
+ * <p>
+ * 数组长度是 2 的幂，散列值由 HashFunctions.Strategy 计算后用掩码取低位，默认策略为 fibonacci。
+ * 表长为 2 的幂时 f(i) 取三角数可以探测到所有的槽，取 i*i 则不能。
+ * 已占用的槽（含删除标记）超过 数组长度 * loadFactor 时扩容
+ * <p>
+ * 渐进式扩容模式下，扩容时新旧两个数组并存，之后每次 insert / remove 顺带把旧数组中
+ * MIGRATE_STEP 个槽里的元素搬到新数组。旧数组不再插入，搬走的元素只标记为删除，
+ * 探测链保持完整；查找先查新数组，再查旧数组
+ * <p>
+ * 批量操作把 key 按 BATCH 个一组：先算出一组所有的散列值，再一起读出起始槽和槽中的元素，最后逐个比较。
+ * 同一组的缓存未命中互不依赖，可以同时进行，不必一个 key 一个 key 地等内存
  */
 public class QuadraticProbingHashTable<AnyType> {
-    private static final int DEFAULT_TABLE_SIZE = 11;// 素数
+    private static final int DEFAULT_EXPECTED_SIZE = 8;
+    private static final float DEFAULT_LOAD_FACTOR = 0.5f;
+    private static final int MIGRATE_STEP = 8;
+    private static final int BATCH = 32;
+
+    private final float loadFactor;
+    private final boolean incrementalResize;
+    private final HashFunctions.Strategy<? super AnyType> strategy;
     private int occupied;
-    private HashEntry[] array;
+    private int resizeAt;
+    private HashEntry<AnyType>[] array;
+    private HashEntry<AnyType>[] oldArray;// 没有进行中的迁移时为 null
+    private int migrateIndex;
 
     private static class HashEntry<AnyType> {
         public AnyType element;
@@ -25,94 +46,123 @@ public class QuadraticProbingHashTable<AnyType> {
     }
 
     public QuadraticProbingHashTable() {
-        this(DEFAULT_TABLE_SIZE);
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public QuadraticProbingHashTable(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public QuadraticProbingHashTable(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, false, HashFunctions.<AnyType>fibonacci());
+    }
+
+    /**
+     * @param incrementalResize 为 true 时扩容分摊到之后的 insert / remove 中完成
+     */
+    public QuadraticProbingHashTable(int expectedSize, boolean incrementalResize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR, incrementalResize, HashFunctions.<AnyType>fibonacci());
     }
 
-    public QuadraticProbingHashTable(int size) {
-        allocateArray(size);
+    /**
+     * @param expectedSize 预计元素个数，插入这么多元素之前不会扩容
+     * @param loadFactor   (0, 1) 之间
+     */
+    public QuadraticProbingHashTable(int expectedSize, float loadFactor, boolean incrementalResize,
+                                     HashFunctions.Strategy<? super AnyType> strategy) {
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        this.incrementalResize = incrementalResize;
+        this.strategy = strategy;
+        allocateArray(PrimitiveHashing.tableSize(expectedSize, loadFactor));
         makeEmpty();
     }
 
+    public int capacity() {
+        return array.length;
+    }
+
+    /**
+     * 预先扩容到能容纳 expectedSize 个元素，之后插入这么多元素不会再触发扩容
+     */
+    public void ensureCapacity(int expectedSize) {
+        int length = PrimitiveHashing.tableSize(expectedSize, loadFactor);
+        if (length > array.length) {
+            rehash(length);
+        }
+    }
+
     public void makeEmpty() {
         occupied = 0;
+        oldArray = null;
         for (int i = 0; i < array.length; i++) {
             array[i] = null;
         }
     }
 
-    private void allocateArray(int size) {
-        array = new HashEntry[nextPrime(size)];
-    }
-
-    private static int nextPrime(int size) {
-        if (size % 2 == 0) {
-            size++;
-        }
-        for (; !isPrime(size); size += 2) {
-
-        }
-        return size;
+    private void allocateArray(int length) {
+        array = newEntries(length);
+        resizeAt = PrimitiveHashing.resizeAt(length, loadFactor);
     }
 
-    private static boolean isPrime(int n) {
-        if (n == 2 || n == 3) {
-            return true;
-        }
-        if (n == 1 || n % 2 == 0) {
-            return false;
-        }
-        for (int i = 3; i * i <= n; i++) {
-            if (n % i == 0) {
-                return false;
-            }
-        }
-        return true;
+    @SuppressWarnings("unchecked")
+    private static <AnyType> HashEntry<AnyType>[] newEntries(int length) {
+        return (HashEntry<AnyType>[]) new HashEntry<?>[length];
     }
 
     public boolean contains(AnyType x) {
         int pos = findPos(x);
-        return isActive(pos);
+        return isActive(pos) || (oldArray != null && isActive(oldArray, findPos(oldArray, x)));
     }
 
 
     private int findPos(AnyType x) {
+        return findPos(array, x);
+    }
+
+    private int findPos(HashEntry<AnyType>[] array, AnyType x) {
+        return findPos(array, x, strategy.hash(x) & (array.length - 1));
+    }
+
+    /**
+     * @param currentPos x 的起始槽
+     */
+    private static int findPos(HashEntry<?>[] array, Object x, int currentPos) {
         int offset = 1;
-        int currentPos = myHash(x);
+        int mask = array.length - 1;
         while (array[currentPos] != null && !array[currentPos].element.equals(x)) {
-            currentPos += offset;
-            offset += 2;
-            if (currentPos >= array.length) {
-                currentPos -= array.length;
-            }
+            currentPos = (currentPos + offset++) & mask;
         }
         return currentPos;
     }
 
     private boolean isActive(int pos) {
-        return array[pos] != null && array[pos].isActive;
+        return isActive(array, pos);
     }
 
-    private int myHash(AnyType x) {
-        int hashValue = x.hashCode();
-        hashValue %= array.length;
-        if (hashValue < 0) {
-            hashValue += array.length;
-        }
-        return hashValue;
+    private static boolean isActive(HashEntry<?>[] array, int pos) {
+        return array[pos] != null && array[pos].isActive;
     }
 
 
     public boolean insert(AnyType x) {
+        migrate();
         int currentPos = findPos(x);
         if (isActive(currentPos)) {
             return false;
         }
+        if (oldArray != null && isActive(oldArray, findPos(oldArray, x))) {
+            return false;
+        }
         if (array[currentPos] == null) {
             ++occupied;
         }
-        array[currentPos] = new HashEntry(x, true);
-        if (occupied > array.length / 2) {
-            rehash();
+        array[currentPos] = new HashEntry<>(x, true);
+        if (occupied > resizeAt) {
+            if (incrementalResize) {
+                startRehash();
+            } else {
+                rehash();
+            }
         }
 
         return true;
@@ -120,22 +170,200 @@ public class QuadraticProbingHashTable<AnyType> {
 
 
     public void remove(AnyType x) {
+        migrate();
         int currentPos = findPos(x);
         if (isActive(currentPos)) {
             array[currentPos].isActive = false;
+        } else if (oldArray != null) {
+            currentPos = findPos(oldArray, x);
+            if (isActive(oldArray, currentPos)) {
+                oldArray[currentPos].isActive = false;
+            }
+        }
+    }
+
+
+    /**
+     * 批量查找，results[i] 为 xs[i] 是否在表中
+     *
+     * @return 在表中的 key 个数
+     */
+    public int containsAll(AnyType[] xs, boolean[] results) {
+        if (results.length < xs.length) {
+            throw new IllegalArgumentException("results shorter than keys: " + results.length + " < " + xs.length);
+        }
+        int found = 0;
+        if (oldArray != null) {
+            for (int i = 0; i < xs.length; i++) {
+                if (results[i] = contains(xs[i])) {
+                    found++;
+                }
+            }
+            return found;
+        }
+        HashEntry<AnyType>[] array = this.array;
+        int[] pos = new int[BATCH];
+        HashEntry<AnyType>[] entries = newEntries(BATCH);
+        Object[] elements = new Object[BATCH];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(array, xs, start, pos, entries, elements);
+            for (int j = 0; j < n; j++) {
+                AnyType x = xs[start + j];
+                HashEntry<AnyType> e = entries[j];
+                boolean in;
+                if (e == null) {
+                    in = false;
+                } else if (elements[j].equals(x)) {
+                    in = e.isActive;
+                } else {
+                    in = isActive(array, findPos(array, x, pos[j]));
+                }
+                results[start + j] = in;
+                if (in) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 批量插入，xs 中重复的 key 只插入一次
+     *
+     * @return 新插入的 key 个数
+     */
+    public int insertAll(AnyType[] xs) {
+        finishMigration();
+        int inserted = 0;
+        int[] pos = new int[BATCH];
+        HashEntry<AnyType>[] entries = newEntries(BATCH);
+        Object[] elements = new Object[BATCH];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = Math.min(BATCH, xs.length - start);
+            // 这一组可能触发扩容（或有进行中的迁移）时逐个插入
+            if (oldArray != null || occupied + n > resizeAt) {
+                for (int j = 0; j < n; j++) {
+                    if (insert(xs[start + j])) {
+                        inserted++;
+                    }
+                }
+                continue;
+            }
+            HashEntry<AnyType>[] array = this.array;
+            prefetch(array, xs, start, pos, entries, elements);
+            for (int j = 0; j < n; j++) {
+                AnyType x = xs[start + j];
+                // 同一组中前面的插入可能已经改变了槽，从起始槽重新探测，起始槽已经在缓存中
+                int p = findPos(array, x, pos[j]);
+                if (isActive(array, p)) {
+                    continue;
+                }
+                if (array[p] == null) {
+                    ++occupied;
+                }
+                array[p] = new HashEntry<>(x, true);
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    /**
+     * 批量删除
+     *
+     * @return 被删除的 key 个数
+     */
+    public int removeAll(AnyType[] xs) {
+        finishMigration();
+        int removed = 0;
+        HashEntry<AnyType>[] array = this.array;
+        int[] pos = new int[BATCH];
+        HashEntry<AnyType>[] entries = newEntries(BATCH);
+        Object[] elements = new Object[BATCH];
+        for (int start = 0; start < xs.length; start += BATCH) {
+            int n = prefetch(array, xs, start, pos, entries, elements);
+            for (int j = 0; j < n; j++) {
+                int p = findPos(array, xs[start + j], pos[j]);
+                if (isActive(array, p)) {
+                    array[p].isActive = false;
+                    removed++;
+                }
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 算出 xs[start..] 中一组 key 的起始槽，再读出起始槽中的 HashEntry 和元素。
+     * 读出的值写进数组，不会被 JIT 当作无用的读取消除
+     *
+     * @return 这一组的 key 个数
+     */
+    private int prefetch(HashEntry<AnyType>[] array, AnyType[] xs, int start, int[] pos, HashEntry<AnyType>[] entries,
+                         Object[] elements) {
+        int n = Math.min(BATCH, xs.length - start);
+        int mask = array.length - 1;
+        for (int j = 0; j < n; j++) {
+            pos[j] = strategy.hash(xs[start + j]) & mask;
+        }
+        for (int j = 0; j < n; j++) {
+            entries[j] = array[pos[j]];
+        }
+        for (int j = 0; j < n; j++) {
+            HashEntry<AnyType> e = entries[j];
+            elements[j] = e != null ? e.element : null;
+        }
+        return n;
+    }
+
+    private void startRehash() {
+        finishMigration();
+        oldArray = array;
+        allocateArray(PrimitiveHashing.grow(oldArray.length));
+        occupied = 0;
+        migrateIndex = 0;
+    }
+
+    private void migrate() {
+        if (oldArray == null) {
+            return;
+        }
+        int end = Math.min(oldArray.length, migrateIndex + MIGRATE_STEP);
+        for (; migrateIndex < end; migrateIndex++) {
+            HashEntry<AnyType> e = oldArray[migrateIndex];
+            if (e != null && e.isActive) {
+                e.isActive = false;
+                int pos = findPos(e.element);
+                if (array[pos] == null) {
+                    ++occupied;
+                }
+                array[pos] = new HashEntry<>(e.element, true);
+            }
+        }
+        if (migrateIndex == oldArray.length) {
+            oldArray = null;
         }
     }
 
+    private void finishMigration() {
+        while (oldArray != null) {
+            migrate();
+        }
+    }
 
     private void rehash() {
+        rehash(PrimitiveHashing.grow(array.length));
+    }
 
-        HashEntry<AnyType>[] oldArray = array;
-        allocateArray(2 * oldArray.length);
+    private void rehash(int length) {
+        finishMigration();
+        HashEntry<AnyType>[] previous = array;
+        allocateArray(length);
         occupied = 0;
 
-        for (int i = 0; i < oldArray.length; i++) {
-            if (oldArray[i] != null && oldArray[i].isActive) {
-                insert(oldArray[i].element);
+        for (int i = 0; i < previous.length; i++) {
+            if (previous[i] != null && previous[i].isActive) {
+                insert(previous[i].element);
             }
         }
     }
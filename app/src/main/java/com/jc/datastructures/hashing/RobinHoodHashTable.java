@@ -0,0 +1,161 @@
+package com.jc.datastructures.hashing;
+
+/**
+ * Robin Hood 散列，开放定址 + 线性探测
+ * <p>
+ * 插入时如果当前槽中元素离自己的起始位置比待插入元素更近，就把槽让给待插入元素，再继续为被挤出的元素找位置，
+ * 使所有元素的探测距离都比较接近。查找时一旦遇到探测距离比自己短的元素就可以断定不存在；
+ * 删除时把后面的元素依次前移一格，不留删除标记，反复插入删除后探测长度也不会变长
+ *
+ * @param <AnyType>
+ */
+public class RobinHoodHashTable<AnyType> {
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.8f;
+
+    private final float loadFactor;
+    private AnyType[] array;
+    private int[] hashes;// 缓存每个槽中元素的散列值，用于计算探测距离和比较前的快速过滤
+    private int mask;
+    private int currentSize;
+    private int resizeAt;
+
+
+    public RobinHoodHashTable() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public RobinHoodHashTable(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public RobinHoodHashTable(int expectedSize, float loadFactor) {
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        allocateArray(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    private void allocateArray(int capacity) {
+        array = (AnyType[]) new Object[capacity];
+        hashes = new int[capacity];
+        mask = capacity - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, loadFactor);
+    }
+
+    public int size() {
+        return currentSize;
+    }
+
+    public int capacity() {
+        return array.length;
+    }
+
+    public void makeEmpty() {
+        for (int i = 0; i < array.length; i++) {
+            array[i] = null;
+        }
+        currentSize = 0;
+    }
+
+    private static int myhash(Object x) {
+        return PrimitiveHashing.mix(x.hashCode());
+    }
+
+    /**
+     * pos 处的元素离其起始位置的距离
+     */
+    private int distance(int pos) {
+        return (pos - hashes[pos]) & mask;
+    }
+
+    public boolean contains(AnyType x) {
+        return findPos(x, myhash(x)) >= 0;
+    }
+
+    private int findPos(AnyType x, int hash) {
+        AnyType[] array = this.array;
+        for (int pos = hash & mask, dist = 0; ; pos = (pos + 1) & mask, dist++) {
+            AnyType e = array[pos];
+            if (e == null || distance(pos) < dist) {
+                return -1;
+            }
+            if (hashes[pos] == hash && e.equals(x)) {
+                return pos;
+            }
+        }
+    }
+
+    public boolean insert(AnyType x) {
+        int hash = myhash(x);
+        int pos = hash & mask;
+        int dist = 0;
+        // 先查找，停下的位置正好是 Robin Hood 插入的起点
+        for (AnyType e; (e = array[pos]) != null && distance(pos) >= dist; pos = (pos + 1) & mask, dist++) {
+            if (hashes[pos] == hash && e.equals(x)) {
+                return false;
+            }
+        }
+        if (++currentSize > resizeAt) {
+            rehash();
+            place(x, hash, hash & mask, 0);
+        } else {
+            place(x, hash, pos, dist);
+        }
+        return true;
+    }
+
+    /**
+     * 从 pos 开始放置 x，dist 为 x 在 pos 处的探测距离
+     */
+    private void place(AnyType x, int hash, int pos, int dist) {
+        AnyType[] array = this.array;
+        int[] hashes = this.hashes;
+        while (true) {
+            AnyType e = array[pos];
+            if (e == null) {
+                array[pos] = x;
+                hashes[pos] = hash;
+                return;
+            }
+            int d = distance(pos);
+            if (d < dist) {
+                array[pos] = x;
+                x = e;
+                int h = hashes[pos];
+                hashes[pos] = hash;
+                hash = h;
+                dist = d;
+            }
+            pos = (pos + 1) & mask;
+            dist++;
+        }
+    }
+
+    public boolean remove(AnyType x) {
+        int pos = findPos(x, myhash(x));
+        if (pos < 0) {
+            return false;
+        }
+        // 后移删除：后面不在起始位置上的元素依次前移一格
+        AnyType[] array = this.array;
+        int[] hashes = this.hashes;
+        for (int next = (pos + 1) & mask; array[next] != null && distance(next) > 0; next = (next + 1) & mask) {
+            array[pos] = array[next];
+            hashes[pos] = hashes[next];
+            pos = next;
+        }
+        array[pos] = null;
+        currentSize--;
+        return true;
+    }
+
+    private void rehash() {
+        AnyType[] oldArray = array;
+        int[] oldHashes = hashes;
+        allocateArray(PrimitiveHashing.grow(oldArray.length));
+        for (int i = 0; i < oldArray.length; i++) {
+            if (oldArray[i] != null) {
+                place(oldArray[i], oldHashes[i], oldHashes[i] & mask, 0);
+            }
+        }
+    }
+}
@@ -1,116 +1,300 @@
 package com.jc.datastructures.hashing;
 
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.LinkedList;
 import java.util.List;
 
 /**
  * 采用分离链接法实现的 hashtable
+ * <p>
+ * 数组长度是 2 的幂，散列值由 HashFunctions.Strategy 计算后用掩码取低位，默认策略为 fibonacci。
+ * 扩容后旧链表 i 中的元素只会落到新数组的 i 或 i + 旧长度。
+ * 元素个数超过 数组长度 * loadFactor 时扩容，loadFactor 是链表的平均长度，可以大于 1
+ * <p>
+ * 渐进式扩容模式下，扩容时新旧两个数组并存，之后每次 insert / remove 顺带把旧数组中的
+ * MIGRATE_STEP 个链表搬到新数组，单次操作的耗时不会因为扩容出现尖峰。
+ * 旧数组按下标从小到大迁移，元素所在的旧链表下标小于 migrateIndex 时它已经在新数组中。
+ * 链表在第一次插入时才创建，分配新数组不需要创建所有链表
+ * <p>
+ * 快照按下标保存每个非空链表，读入时直接放回对应的链表，不需要计算散列值
  */
 public class SeparateChainingHashTable<AnyType> {
-    private static final int DEFAULT_TABLE_SIZE = 101;
+    private static final int DEFAULT_EXPECTED_SIZE = 101;
+    private static final float DEFAULT_LOAD_FACTOR = 1.0f;
+    private static final int MIGRATE_STEP = 4;
+    private static final int SNAPSHOT_MAGIC = 0x53434854;// "SCHT"
+
+    private final float loadFactor;
+    private final boolean incrementalResize;
+    private final HashFunctions.Strategy<? super AnyType> strategy;
     private List<AnyType>[] theLists;
+    private int resizeAt;
+    private List<AnyType>[] oldLists;// 没有进行中的迁移时为 null
+    private int migrateIndex;
     private int currentSize;
 
 
     public SeparateChainingHashTable() {
-        this(DEFAULT_TABLE_SIZE);
+        this(DEFAULT_EXPECTED_SIZE);
     }
 
-    public SeparateChainingHashTable(int currentSize) {
-        theLists = new LinkedList[newtPrime(currentSize)];
-        for (int i = 0; i < theLists.length; i++) {
-            theLists[i] = new LinkedList<>();
+    public SeparateChainingHashTable(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public SeparateChainingHashTable(int expectedSize, float loadFactor) {
+        this(expectedSize, loadFactor, false, HashFunctions.<AnyType>fibonacci());
+    }
+
+    /**
+     * @param incrementalResize 为 true 时扩容分摊到之后的 insert / remove 中完成
+     */
+    public SeparateChainingHashTable(int expectedSize, boolean incrementalResize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR, incrementalResize, HashFunctions.<AnyType>fibonacci());
+    }
+
+    /**
+     * @param expectedSize 预计元素个数，插入这么多元素之前不会扩容
+     * @param loadFactor   链表的平均长度上限
+     */
+    public SeparateChainingHashTable(int expectedSize, float loadFactor, boolean incrementalResize,
+                                     HashFunctions.Strategy<? super AnyType> strategy) {
+        if (!(loadFactor > 0) || Float.isInfinite(loadFactor)) {
+            throw new IllegalArgumentException("load factor must be positive: " + loadFactor);
+        }
+        this.loadFactor = loadFactor;
+        this.incrementalResize = incrementalResize;
+        this.strategy = strategy;
+        allocateLists(PrimitiveHashing.tableSize(expectedSize, loadFactor));
+    }
+
+    private void allocateLists(int length) {
+        theLists = new List[length];
+        resizeAt = (int) Math.min(Integer.MAX_VALUE, (long) length * loadFactor);
+    }
+
+    public int size() {
+        return currentSize;
+    }
+
+    public int capacity() {
+        return theLists.length;
+    }
+
+    /**
+     * 预先扩容到能容纳 expectedSize 个元素，之后插入这么多元素不会再触发扩容
+     */
+    public void ensureCapacity(int expectedSize) {
+        int length = PrimitiveHashing.tableSize(expectedSize, loadFactor);
+        if (length > theLists.length) {
+            rehash(length);
+        }
+    }
+
+    private static <AnyType> List<AnyType> list(List<AnyType>[] lists, int i, boolean create) {
+        if (lists[i] == null && create) {
+            lists[i] = new LinkedList<>();
         }
+        return lists[i];
     }
 
     public void insert(AnyType x) {
-        List<AnyType> which = theLists[myhash(x)];
+        migrate();
+        List<AnyType> which = listOf(x, true);
         if (!which.contains(x)) {
             which.add(x);
 
-            if (++currentSize > theLists.length) {
-                rehash();
+            if (++currentSize > resizeAt) {
+                if (incrementalResize) {
+                    startRehash();
+                } else {
+                    rehash();
+                }
             }
         }
     }
 
     public void remove(AnyType x) {
-        List<AnyType> which = theLists[myhash(x)];
-        if (which.contains(x)) {
-            which.remove(x);
+        migrate();
+        List<AnyType> which = listOf(x, false);
+        if (which != null && which.remove(x)) {
             currentSize--;
         }
     }
 
     public boolean contains(AnyType x) {
-        List<AnyType> which = theLists[myhash(x)];
-        return which.contains(x);
+        List<AnyType> which = listOf(x, false);
+        return which != null && which.contains(x);
 
     }
 
+    /**
+     * x 所在的链表：迁移中且 x 的旧链表还没有迁移时在旧数组中
+     *
+     * @param create 链表还不存在时是否创建，不创建时返回 null
+     */
+    private List<AnyType> listOf(AnyType x, boolean create) {
+        if (oldLists != null) {
+            int i = myhash(x, oldLists.length);
+            if (i >= migrateIndex) {
+                return list(oldLists, i, create);
+            }
+        }
+        return list(theLists, myhash(x), create);
+    }
+
     public void makeEmpty() {
+        oldLists = null;
         for (int i = 0; i < theLists.length; i++) {
-            theLists[i].clear();
+            theLists[i] = null;
         }
         currentSize = 0;
     }
 
-    public void rehash() {
-        List<AnyType>[] oldList = theLists;
+    private void startRehash() {
+        finishMigration();
+        oldLists = theLists;
+        allocateLists(PrimitiveHashing.grow(theLists.length));
+        migrateIndex = 0;
+    }
 
-        theLists = new List[newtPrime(2 * theLists.length)];
-        for (int i = 0; i < theLists.length; i++) {
-            theLists[i] = new LinkedList<>();
+    private void migrate() {
+        if (oldLists == null) {
+            return;
         }
-
-        currentSize = 0;
-        for (List<AnyType> item : oldList) {
-            for (AnyType x : item) {
-                insert(x);
+        int end = Math.min(oldLists.length, migrateIndex + MIGRATE_STEP);
+        for (; migrateIndex < end; migrateIndex++) {
+            if (oldLists[migrateIndex] == null) {
+                continue;
+            }
+            for (AnyType x : oldLists[migrateIndex]) {
+                list(theLists, myhash(x), true).add(x);
             }
+            oldLists[migrateIndex] = null;
+        }
+        if (migrateIndex == oldLists.length) {
+            oldLists = null;
         }
     }
 
-    public int myhash(AnyType x) {
-        int hashVal = x.hashCode();
-
-        hashVal %= theLists.length;
-        if (hashVal < 0) {
-            hashVal += theLists.length;
+    private void finishMigration() {
+        while (oldLists != null) {
+            migrate();
         }
-        return hashVal;
     }
 
+    public void rehash() {
+        rehash(PrimitiveHashing.grow(theLists.length));
+    }
 
-    private static int newtPrime(int size) {
-        if (size / 2 == 0) {
-            size++;
-        }
+    private void rehash(int length) {
+        finishMigration();
+        List<AnyType>[] oldList = theLists;
 
-        for (; isPrime(size); size += 2) {
+        allocateLists(length);
 
+        currentSize = 0;
+        for (List<AnyType> item : oldList) {
+            if (item == null) {
+                continue;
+            }
+            for (AnyType x : item) {
+                insert(x);
+            }
         }
-
-        return size;
     }
 
-
-    private static boolean isPrime(int n) {
-        if (n == 2 || n == 3) {
-            return true;
+    /**
+     * 写出快照：装填因子、数组长度、非空链表个数，之后每个非空链表为 下标、元素个数、元素。
+     * 有进行中的迁移时先完成迁移
+     */
+    public void writeTo(WritableByteChannel channel, HashTableSnapshot.Serializer<? super AnyType> serializer)
+            throws IOException {
+        finishMigration();
+        long bodySize = 12;
+        int buckets = 0;
+        for (List<AnyType> list : theLists) {
+            if (list == null || list.isEmpty()) {
+                continue;
+            }
+            buckets++;
+            bodySize += 8;
+            for (AnyType x : list) {
+                bodySize += serializer.sizeOf(x);
+            }
         }
 
-
-        if (n == 1 || n % 2 == 0) {
-            return false;
+        ByteBuffer buf = HashTableSnapshot.allocate(SNAPSHOT_MAGIC, bodySize);
+        buf.putFloat(loadFactor).putInt(theLists.length).putInt(buckets);
+        for (int i = 0; i < theLists.length; i++) {
+            List<AnyType> list = theLists[i];
+            if (list == null || list.isEmpty()) {
+                continue;
+            }
+            buf.putInt(i).putInt(list.size());
+            for (AnyType x : list) {
+                serializer.write(x, buf);
+            }
         }
+        HashTableSnapshot.write(channel, buf);
+    }
 
+    public static <AnyType> SeparateChainingHashTable<AnyType> readFrom(
+            ReadableByteChannel channel, HashTableSnapshot.Serializer<? extends AnyType> serializer) throws IOException {
+        return readFrom(channel, serializer, false, HashFunctions.<AnyType>fibonacci());
+    }
 
-        for (int i = 3; i * i <= n; i += 2) {
-            if (n % i == 0) {
-                return false;
+    /**
+     * 读入 {@link #writeTo} 写出的快照，数组长度和链表与写出时相同。
+     * strategy 应与写出时相同；每个链表的第一个元素不在该链表时说明策略不同，退回到逐个重新插入
+     */
+    public static <AnyType> SeparateChainingHashTable<AnyType> readFrom(
+            ReadableByteChannel channel, HashTableSnapshot.Serializer<? extends AnyType> serializer,
+            boolean incrementalResize, HashFunctions.Strategy<? super AnyType> strategy) throws IOException {
+        ByteBuffer body = HashTableSnapshot.read(channel, SNAPSHOT_MAGIC);
+        try {
+            float loadFactor = body.getFloat();
+            int length = body.getInt();
+            int buckets = body.getInt();
+            if (length <= 0 || length > PrimitiveHashing.MAX_CAPACITY || Integer.bitCount(length) != 1) {
+                throw new IOException("corrupted snapshot: length " + length);
+            }
+            SeparateChainingHashTable<AnyType> table =
+                    new SeparateChainingHashTable<>(0, loadFactor, incrementalResize, strategy);
+            table.allocateLists(length);
+            boolean sameStrategy = true;
+            for (int b = 0; b < buckets; b++) {
+                int i = body.getInt();
+                int count = body.getInt();
+                if (i < 0 || i >= length || count <= 0 || table.theLists[i] != null) {
+                    throw new IOException("corrupted snapshot: bucket " + i);
+                }
+                List<AnyType> list = new LinkedList<>();
+                for (int n = 0; n < count; n++) {
+                    list.add(serializer.read(body));
+                }
+                table.theLists[i] = list;
+                table.currentSize += count;
+                sameStrategy = sameStrategy && table.myhash(list.get(0)) == i;
             }
+            if (!sameStrategy) {
+                table.rehash(length);
+            }
+            return table;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("snapshot truncated", e);
         }
-        return true;
+    }
+
+    public int myhash(AnyType x) {
+        return myhash(x, theLists.length);
+    }
+
+    private int myhash(AnyType x, int length) {
+        return strategy.hash(x) & (length - 1);
     }
 }
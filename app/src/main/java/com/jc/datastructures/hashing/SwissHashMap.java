@@ -0,0 +1,225 @@
+package com.jc.datastructures.hashing;
+
+/**
+ * Swiss table 风格的散列映射
+ * <p>
+ * 每个槽对应一个控制字节：空槽 0x80、删除标记 0xFE、有元素时为散列值的低 7 位（tag）。
+ * 8 个槽为一组，一组的控制字节正好放在一个 long 里，查找时用位运算（SWAR）一次比较整组的 tag，
+ * 只有 tag 相同的槽才去读 key 调用 equals；组内有空槽就说明 key 不存在，未命中几乎不访问 key 数组。
+ * 组之间按 1, 2, 3... 的步长跳跃探测，组数为 2 的幂时可以遍历所有组。
+ * key 和 value 相邻存放在同一个数组中，命中时读 value 通常不会再有一次缓存未命中
+ *
+ * @param <K>
+ * @param <V>
+ */
+public class SwissHashMap<K, V> {
+    private static final int DEFAULT_EXPECTED_SIZE = 16;
+    private static final float DEFAULT_LOAD_FACTOR = 0.875f;
+    private static final int GROUP_SIZE = 8;
+
+    private static final long EMPTY = 0x80L;
+    private static final long DELETED = 0xFEL;
+    private static final long LSBS = 0x0101010101010101L;
+    private static final long MSBS = 0x8080808080808080L;
+
+    private final float loadFactor;
+    private long[] ctrl;
+    private Object[] table;// table[2i] 为 key，table[2i+1] 为 value
+    private int groupMask;
+    private int size;
+    private int deleted;// 删除标记的个数，与 size 一起计入装填上限
+    private int resizeAt;
+
+
+    public SwissHashMap() {
+        this(DEFAULT_EXPECTED_SIZE);
+    }
+
+    public SwissHashMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    public SwissHashMap(int expectedSize, float loadFactor) {
+        this.loadFactor = PrimitiveHashing.checkLoadFactor(loadFactor);
+        allocateArrays(Math.max(GROUP_SIZE, PrimitiveHashing.tableSize(expectedSize, loadFactor)));
+    }
+
+    private void allocateArrays(int capacity) {
+        ctrl = new long[capacity / GROUP_SIZE];
+        for (int g = 0; g < ctrl.length; g++) {
+            ctrl[g] = EMPTY * LSBS;
+        }
+        table = new Object[2 * capacity];
+        groupMask = ctrl.length - 1;
+        resizeAt = PrimitiveHashing.resizeAt(capacity, loadFactor);
+        deleted = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int capacity() {
+        return table.length / 2;
+    }
+
+    public void makeEmpty() {
+        allocateArrays(capacity());
+        size = 0;
+    }
+
+    private static int myhash(Object key) {
+        return PrimitiveHashing.mix(key.hashCode());
+    }
+
+    /**
+     * 组内与 tag 相同的字节，对应位置的最高位为 1；可能有误报，但不会漏报
+     */
+    private static long matchTag(long group, int tag) {
+        long x = group ^ (LSBS * tag);
+        return (x - LSBS) & ~x & MSBS;
+    }
+
+    /**
+     * 组内的空槽：最高位为 1 且第 1 位为 0 的字节只有 0x80
+     */
+    private static long matchEmpty(long group) {
+        return group & ~(group << 6) & MSBS;
+    }
+
+    /**
+     * 组内的空槽和删除标记：只有它们的最高位为 1
+     */
+    private static long matchFree(long group) {
+        return group & MSBS;
+    }
+
+    private static int slot(int g, long match) {
+        return g * GROUP_SIZE + (Long.numberOfTrailingZeros(match) >>> 3);
+    }
+
+    private void setCtrl(int i, long b) {
+        int shift = (i & (GROUP_SIZE - 1)) << 3;
+        int g = i / GROUP_SIZE;
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | (b << shift);
+    }
+
+    private int findPos(Object key, int hash) {
+        int tag = hash & 0x7F;
+        int g = (hash >>> 7) & groupMask;
+        for (int step = 1; ; g = (g + step++) & groupMask) {
+            long group = ctrl[g];
+            for (long m = matchTag(group, tag); m != 0; m &= m - 1) {
+                int i = slot(g, m);
+                Object k = table[2 * i];
+                if (k == key || key.equals(k)) {
+                    return i;
+                }
+            }
+            if (matchEmpty(group) != 0) {
+                return -1;
+            }
+        }
+    }
+
+    /**
+     * 探测序列上第一个空槽或删除标记
+     */
+    private int findFreePos(int hash) {
+        int g = (hash >>> 7) & groupMask;
+        for (int step = 1; ; g = (g + step++) & groupMask) {
+            long m = matchFree(ctrl[g]);
+            if (m != 0) {
+                return slot(g, m);
+            }
+        }
+    }
+
+    public boolean containsKey(K key) {
+        return findPos(key, myhash(key)) >= 0;
+    }
+
+    @SuppressWarnings("unchecked")
+    private V valueAt(int i) {
+        return (V) table[2 * i + 1];
+    }
+
+    /**
+     * @return key 对应的值，不存在时返回 null
+     */
+    public V get(K key) {
+        int i = findPos(key, myhash(key));
+        return i >= 0 ? valueAt(i) : null;
+    }
+
+    /**
+     * @return key 原来对应的值，原来不存在时返回 null
+     */
+    public V put(K key, V value) {
+        int hash = myhash(key);
+        int i = findPos(key, hash);
+        if (i >= 0) {
+            V old = valueAt(i);
+            table[2 * i + 1] = value;
+            return old;
+        }
+        i = findFreePos(hash);
+        if (((ctrl[i / GROUP_SIZE] >>> ((i & (GROUP_SIZE - 1)) << 3)) & 0xFF) == DELETED) {
+            deleted--;
+        } else if (size + deleted >= resizeAt) {
+            rehash();
+            i = findFreePos(hash);
+        }
+        setCtrl(i, hash & 0x7F);
+        table[2 * i] = key;
+        table[2 * i + 1] = value;
+        size++;
+        return null;
+    }
+
+    /**
+     * @return 被删除的值，key 不存在时返回 null
+     */
+    public V remove(K key) {
+        int i = findPos(key, myhash(key));
+        if (i < 0) {
+            return null;
+        }
+        // 组内还有空槽时，经过这一组的查找本来就会停下，可以直接置为空槽
+        if (matchEmpty(ctrl[i / GROUP_SIZE]) != 0) {
+            setCtrl(i, EMPTY);
+        } else {
+            setCtrl(i, DELETED);
+            deleted++;
+        }
+        V old = valueAt(i);
+        table[2 * i] = null;
+        table[2 * i + 1] = null;
+        size--;
+        return old;
+    }
+
+    /**
+     * 删除标记占了一半以上时按原容量重建，否则容量翻倍
+     */
+    private void rehash() {
+        long[] oldCtrl = ctrl;
+        Object[] oldTable = table;
+        allocateArrays(size > resizeAt / 2 ? PrimitiveHashing.grow(capacity()) : capacity());
+        for (int g = 0; g < oldCtrl.length; g++) {
+            // 最高位为 0 的字节是有元素的槽
+            for (long m = ~oldCtrl[g] & MSBS; m != 0; m &= m - 1) {
+                int i = slot(g, m);
+                int hash = myhash(oldTable[2 * i]);
+                int pos = findFreePos(hash);
+                setCtrl(pos, hash & 0x7F);
+                table[2 * pos] = oldTable[2 * i];
+                table[2 * pos + 1] = oldTable[2 * i + 1];
+            }
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.jc.datastructures.hashing;
+
+import java.util.Random;
+
+/**
+ * 全域散列函数族：第 i 个函数为 (a_i * x + b_i) >>> 32，a_i、b_i 是随机的 64 位数，x 为策略算出的 32 位散列值。
+ * 乘法 - 加法 - 移位只需要一次 64 位乘法，对任意两个不同的 x 冲突概率约为 2 / 2^32。
+ * generateNewFunctions 重新抽取 a_i、b_i，种子固定时抽取的序列可以复现
+ *
+ * @param <AnyType>
+ */
+public class UniversalHashFamily<AnyType> implements CuckooHashTable.HashFamily<AnyType> {
+    private final HashFunctions.Strategy<? super AnyType> strategy;
+    private final long[] multipliers;
+    private final long[] addends;
+    private final Random r;
+
+
+    public UniversalHashFamily(int d) {
+        this(d, new Random().nextLong());
+    }
+
+    public UniversalHashFamily(int d, long seed) {
+        this(d, HashFunctions.<AnyType>identity(), seed);
+    }
+
+    /**
+     * @param strategy 先把元素映射为 32 位整数，族中的函数再对它散列
+     */
+    public UniversalHashFamily(int d, HashFunctions.Strategy<? super AnyType> strategy, long seed) {
+        if (d <= 0) {
+            throw new IllegalArgumentException("number of functions must be positive: " + d);
+        }
+        this.strategy = strategy;
+        multipliers = new long[d];
+        addends = new long[d];
+        r = new Random(seed);
+        generateNewFunctions();
+    }
+
+    @Override
+    public int hash(AnyType x, int which) {
+        long h = multipliers[which] * (strategy.hash(x) & 0xFFFFFFFFL) + addends[which];
+        return (int) (h >>> 32);
+    }
+
+    @Override
+    public int getNumberOfFunctions() {
+        return multipliers.length;
+    }
+
+    @Override
+    public void generateNewFunctions() {
+        for (int i = 0; i < multipliers.length; i++) {
+            multipliers[i] = r.nextLong() | 1;
+            addends[i] = r.nextLong();
+        }
+    }
+}
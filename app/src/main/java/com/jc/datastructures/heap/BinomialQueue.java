@@ -47,7 +47,7 @@ public class BinomialQueue<AnyType extends Comparable<? super AnyType>> {
         }
 
         Node<AnyType> carry = null;
-        for (int i = 0, j = i; j < currentSize; i++, j *= 2) {
+        for (int i = 0, j = 1; j <= currentSize; i++, j *= 2) {
             Node<AnyType> t1 = theTrees[i];
             Node<AnyType> t2 = i < rhs.theTrees.length ? rhs.theTrees[i] : null;
 
@@ -171,7 +171,7 @@ public class BinomialQueue<AnyType extends Comparable<? super AnyType>> {
      * @return
      */
     private Node<AnyType> combineTrees(Node<AnyType> t1, Node<AnyType> t2) {
-        if (t1.element.compareTo(t2.element) < 0) {
+        if (t1.element.compareTo(t2.element) > 0) {
             return combineTrees(t2, t1);
         }
         t2.nextSibling = t1.leftChild;
@@ -0,0 +1,308 @@
+package com.jc.datastructures.sort;
+
+import com.jc.datastructures.heap.BinaryHeap;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 外部归并排序，用于排序无法一次装入内存的定长记录文件
+ * <p>
+ * 每条记录长度为 recordSize 字节，按 keyOffset 处的 8 字节大端有符号 long 升序排序，key 相同时保持原有顺序。
+ * <p>
+ * 1. 按内存预算分块读入文件，提取 key 后用基数排序给下标排序，按序写出为有序的临时 run 文件；
+ * 2. 以各 run 的当前记录为元素建一个 {@link BinaryHeap} 最小堆做 k 路归并，每输出一条记录做一次 deleteMin
+ * 和一次 insert，约 2 log k 次比较（败者树只需 log k 次）；run 太多时分多趟归并；
+ * 3. 只有一个 run 时直接用 FileChannel.transferTo 拷贝到输出文件。
+ */
+public class ExternalSort {
+
+    private static final long DEFAULT_MEMORY_BUDGET = 64L << 20;
+
+    /**
+     * 归并时每个 run 的读缓冲区的最小大小，决定了一趟归并最多能合并多少个 run
+     */
+    private static final int MIN_MERGE_BUFFER = 64 << 10;
+
+    private final int recordSize;
+    private final int keyOffset;
+    private final long memoryBudget;
+    private final File tempDirectory;
+
+    public ExternalSort(int recordSize, int keyOffset) {
+        this(recordSize, keyOffset, DEFAULT_MEMORY_BUDGET, null);
+    }
+
+    /**
+     * @param recordSize    每条记录的字节数
+     * @param keyOffset     排序 key 在记录中的偏移
+     * @param memoryBudget  分块排序与归并缓冲区可以使用的字节数
+     * @param tempDirectory 临时 run 文件所在目录，null 表示系统默认目录
+     */
+    public ExternalSort(int recordSize, int keyOffset, long memoryBudget, File tempDirectory) {
+        if (recordSize <= 0 || keyOffset < 0 || keyOffset + 8 > recordSize) {
+            throw new IllegalArgumentException("key must lie inside the record: recordSize="
+                    + recordSize + ", keyOffset=" + keyOffset);
+        }
+        // 一条记录在内存中需要：读缓冲 + 写缓冲 + key 和下标（基数排序时各两份）
+        if (memoryBudget < 2L * (2L * recordSize + 24)) {
+            throw new IllegalArgumentException("memory budget too small: " + memoryBudget);
+        }
+        this.recordSize = recordSize;
+        this.keyOffset = keyOffset;
+        this.memoryBudget = memoryBudget;
+        this.tempDirectory = tempDirectory;
+    }
+
+    public void sort(File input, File output) throws IOException {
+        // 创建过的全部临时文件，中途出错时已经合并出来的 run 也要删除
+        List<File> tempFiles = new ArrayList<>();
+        List<File> runs = new ArrayList<>();
+        try {
+            FileInputStream in = new FileInputStream(input);
+            try {
+                createRuns(in.getChannel(), runs, tempFiles);
+            } finally {
+                in.close();
+            }
+
+            int fanIn = maxFanIn();
+            // 直接内存要等缓冲区对象被回收才释放，归并缓冲区只分配一次，各趟归并共用
+            List<ByteBuffer> buffers = runs.size() > 1
+                    ? allocateMergeBuffers(Math.min(runs.size(), fanIn)) : null;
+            while (runs.size() > fanIn) {
+                List<File> merged = new ArrayList<>();
+                for (int i = 0; i < runs.size(); i += fanIn) {
+                    List<File> group = runs.subList(i, Math.min(i + fanIn, runs.size()));
+                    if (group.size() == 1) {
+                        merged.add(group.get(0));
+                        continue;
+                    }
+                    File run = newRunFile(tempFiles);
+                    merged.add(run);
+                    mergeRuns(group, run, buffers);
+                    for (File f : group) {
+                        f.delete();
+                    }
+                }
+                runs = merged;
+            }
+
+            if (runs.size() == 1) {
+                copy(runs.get(0), output);
+            } else {
+                mergeRuns(runs, output, buffers);
+            }
+        } finally {
+            for (File f : tempFiles) {
+                f.delete();
+            }
+        }
+    }
+
+    private int recordsPerChunk() {
+        long n = memoryBudget / (2L * recordSize + 24);
+        // 单个 ByteBuffer 不能超过 2GB
+        return (int) Math.min(n, Integer.MAX_VALUE / recordSize);
+    }
+
+    private int maxFanIn() {
+        // 预留一份给输出缓冲区
+        long n = memoryBudget / Math.max(MIN_MERGE_BUFFER, recordSize) - 1;
+        return (int) Math.max(2, Math.min(n, 1024));
+    }
+
+    private File newRunFile(List<File> tempFiles) throws IOException {
+        File run = File.createTempFile("sort-run", ".tmp", tempDirectory);
+        tempFiles.add(run);
+        return run;
+    }
+
+    /**
+     * 分块读入、排序并写出 run
+     */
+    private void createRuns(FileChannel in, List<File> runs, List<File> tempFiles) throws IOException {
+        if (in.size() % recordSize != 0) {
+            throw new IOException("file length " + in.size() + " is not a multiple of record size " + recordSize);
+        }
+        int chunkRecords = recordsPerChunk();
+        ByteBuffer chunk = ByteBuffer.allocateDirect(chunkRecords * recordSize);
+        ByteBuffer out = ByteBuffer.allocateDirect(chunkRecords * recordSize);
+        long[] keys = new long[chunkRecords];
+        int[] index = new int[chunkRecords];
+
+        while (true) {
+            chunk.clear();
+            while (chunk.hasRemaining() && in.read(chunk) >= 0) {
+            }
+            chunk.flip();
+            int n = chunk.remaining() / recordSize;
+            if (n == 0) {
+                break;
+            }
+
+            long[] k = n == chunkRecords ? keys : new long[n];
+            int[] idx = n == chunkRecords ? index : new int[n];
+            for (int i = 0; i < n; i++) {
+                k[i] = chunk.getLong(i * recordSize + keyOffset);
+                idx[i] = i;
+            }
+            RadixSort.sort(k, idx);
+
+            out.clear();
+            for (int i = 0; i < n; i++) {
+                int pos = idx[i] * recordSize;
+                chunk.limit(pos + recordSize).position(pos);
+                out.put(chunk);
+            }
+            out.flip();
+
+            File run = newRunFile(tempFiles);
+            runs.add(run);
+            FileOutputStream os = new FileOutputStream(run);
+            try {
+                writeFully(os.getChannel(), out);
+            } finally {
+                os.close();
+            }
+        }
+    }
+
+    /**
+     * 一趟最多合并 k 个 run：k 个读缓冲区和最后一个写缓冲区平分内存预算
+     */
+    private List<ByteBuffer> allocateMergeBuffers(int k) {
+        int bufferSize = (int) Math.min(Integer.MAX_VALUE, memoryBudget / (k + 1));
+        bufferSize = Math.max(recordSize, bufferSize / recordSize * recordSize);
+        List<ByteBuffer> buffers = new ArrayList<>(k + 1);
+        for (int i = 0; i <= k; i++) {
+            buffers.add(ByteBuffer.allocateDirect(bufferSize));
+        }
+        return buffers;
+    }
+
+    /**
+     * @param buffers allocateMergeBuffers 分配的缓冲区，files 不能多于 buffers.size() - 1 个
+     */
+    private void mergeRuns(List<File> files, File output, List<ByteBuffer> buffers) throws IOException {
+        int k = files.size();
+
+        List<FileInputStream> streams = new ArrayList<>();
+        FileOutputStream os = new FileOutputStream(output);
+        try {
+            BinaryHeap<Run> heap = new BinaryHeap<>(k);
+            for (int i = 0; i < k; i++) {
+                FileInputStream in = new FileInputStream(files.get(i));
+                streams.add(in);
+                ByteBuffer buf = buffers.get(i);
+                buf.clear();
+                Run run = new Run(in.getChannel(), buf, i);
+                if (run.advance()) {
+                    heap.insert(run);
+                }
+            }
+
+            FileChannel out = os.getChannel();
+            ByteBuffer buf = buffers.get(buffers.size() - 1);
+            buf.clear();
+            while (!heap.isEmpty()) {
+                Run min = heap.deleteMin();
+                if (buf.remaining() < recordSize) {
+                    buf.flip();
+                    writeFully(out, buf);
+                    buf.clear();
+                }
+                min.copyRecordTo(buf);
+                if (min.advance()) {
+                    heap.insert(min);
+                }
+            }
+            buf.flip();
+            writeFully(out, buf);
+        } finally {
+            for (FileInputStream in : streams) {
+                in.close();
+            }
+            os.close();
+        }
+    }
+
+    private static void copy(File from, File to) throws IOException {
+        FileInputStream in = new FileInputStream(from);
+        FileOutputStream os = new FileOutputStream(to);
+        try {
+            FileChannel src = in.getChannel();
+            FileChannel dst = os.getChannel();
+            long size = src.size();
+            for (long pos = 0; pos < size; ) {
+                pos += src.transferTo(pos, size - pos, dst);
+            }
+        } finally {
+            in.close();
+            os.close();
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buf) throws IOException {
+        while (buf.hasRemaining()) {
+            channel.write(buf);
+        }
+    }
+
+    /**
+     * 一个 run 的读游标，按当前记录的 key 比较，key 相同时按 run 的先后，保证稳定
+     */
+    private final class Run implements Comparable<Run> {
+        private final FileChannel channel;
+        private final ByteBuffer buf;
+        private final int order;
+        private long key;
+
+        Run(FileChannel channel, ByteBuffer buf, int order) {
+            this.channel = channel;
+            this.buf = buf;
+            this.order = order;
+            buf.flip();
+        }
+
+        /**
+         * 移动到下一条记录
+         *
+         * @return run 已经读完时返回 false
+         */
+        boolean advance() throws IOException {
+            if (buf.remaining() < recordSize) {
+                buf.compact();
+                while (buf.hasRemaining() && channel.read(buf) >= 0) {
+                }
+                buf.flip();
+                if (buf.remaining() < recordSize) {
+                    return false;
+                }
+            }
+            key = buf.getLong(buf.position() + keyOffset);
+            return true;
+        }
+
+        void copyRecordTo(ByteBuffer out) {
+            int limit = buf.limit();
+            buf.limit(buf.position() + recordSize);
+            out.put(buf);
+            buf.limit(limit);
+        }
+
+        @Override
+        public int compareTo(Run o) {
+            if (key != o.key) {
+                return key < o.key ? -1 : 1;
+            }
+            return order - o.order;
+        }
+    }
+}
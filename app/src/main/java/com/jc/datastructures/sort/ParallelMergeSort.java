@@ -0,0 +1,497 @@
+package com.jc.datastructures.sort;
+
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 基于 fork/join 的并行归并排序
+ * <p>
+ * 规模超过 threshold 的区间一分为二并行排序，两半结果放在另一块缓冲区中（a 与 tmp 交替使用，
+ * 整个排序只分配一个临时数组），然后并行合并：在较长的一段取中点，到另一段二分查找切分位置，
+ * 把一次合并拆成两次互不相交的合并，最后一层合并因此也不会退化为单线程
+ */
+final class ParallelMergeSort {
+
+    static final ForkJoinPool POOL = new ForkJoinPool();
+
+    private ParallelMergeSort() {
+    }
+
+    static <AnyType> void sort(AnyType[] a, int n, Comparator<? super AnyType> c, int threshold) {
+        AnyType[] tmp = (AnyType[]) new Object[n];
+        POOL.invoke(new SortTask<>(a, tmp, 0, n, true, c, threshold));
+    }
+
+    private static final class SortTask<AnyType> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AnyType[] a;
+        private final AnyType[] tmp;
+        private final int lo;
+        private final int hi;
+        private final boolean intoA;
+        private final Comparator<? super AnyType> c;
+        private final int threshold;
+
+        SortTask(AnyType[] a, AnyType[] tmp, int lo, int hi, boolean intoA, Comparator<? super AnyType> c, int threshold) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoA = intoA;
+            this.c = c;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold) {
+                new Sort.MergeSort<>(c).mergeSort(a, tmp, lo, hi - 1);
+                if (!intoA) {
+                    System.arraycopy(a, lo, tmp, lo, hi - lo);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new SortTask<>(a, tmp, lo, mid, !intoA, c, threshold),
+                    new SortTask<>(a, tmp, mid, hi, !intoA, c, threshold));
+            if (intoA) {
+                new MergeTask<>(tmp, lo, mid, mid, hi, a, lo, c, threshold).compute();
+            } else {
+                new MergeTask<>(a, lo, mid, mid, hi, tmp, lo, c, threshold).compute();
+            }
+        }
+    }
+
+    private static final class MergeTask<AnyType> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final AnyType[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final AnyType[] dst;
+        private final int d;
+        private final Comparator<? super AnyType> c;
+        private final int threshold;
+
+        MergeTask(AnyType[] src, int lo1, int hi1, int lo2, int hi2, AnyType[] dst, int d,
+                  Comparator<? super AnyType> c, int threshold) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.d = d;
+            this.c = c;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= threshold) {
+                int i = lo1, j = lo2, k = d;
+                while (i < hi1 && j < hi2) {
+                    dst[k++] = c.compare(src[j], src[i]) < 0 ? src[j++] : src[i++];
+                }
+                System.arraycopy(src, i, dst, k, hi1 - i);
+                System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+                return;
+            }
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = lowerBound(src, lo2, hi2, src[m1], c);
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = upperBound(src, lo1, hi1, src[m2], c);
+            }
+            int dm = d + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new MergeTask<>(src, lo1, m1, lo2, m2, dst, d, c, threshold),
+                    new MergeTask<>(src, m1, hi1, m2, hi2, dst, dm, c, threshold));
+        }
+    }
+
+    private static <AnyType> int lowerBound(AnyType[] a, int lo, int hi, AnyType key, Comparator<? super AnyType> c) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (c.compare(a[mid], key) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static <AnyType> int upperBound(AnyType[] a, int lo, int hi, AnyType key, Comparator<? super AnyType> c) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (c.compare(key, a[mid]) < 0) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    static void sort(int[] a, int n, int threshold) {
+        int[] tmp = new int[n];
+        POOL.invoke(new IntSortTask(a, tmp, 0, n, true, threshold));
+    }
+
+    private static final class IntSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] a;
+        private final int[] tmp;
+        private final int lo;
+        private final int hi;
+        private final boolean intoA;
+        private final int threshold;
+
+        IntSortTask(int[] a, int[] tmp, int lo, int hi, boolean intoA, int threshold) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoA = intoA;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold) {
+                Sort.mergeSort(a, tmp, lo, hi - 1);
+                if (!intoA) {
+                    System.arraycopy(a, lo, tmp, lo, hi - lo);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new IntSortTask(a, tmp, lo, mid, !intoA, threshold),
+                    new IntSortTask(a, tmp, mid, hi, !intoA, threshold));
+            if (intoA) {
+                new IntMergeTask(tmp, lo, mid, mid, hi, a, lo, threshold).compute();
+            } else {
+                new IntMergeTask(a, lo, mid, mid, hi, tmp, lo, threshold).compute();
+            }
+        }
+    }
+
+    private static final class IntMergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final int[] dst;
+        private final int d;
+        private final int threshold;
+
+        IntMergeTask(int[] src, int lo1, int hi1, int lo2, int hi2, int[] dst, int d, int threshold) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.d = d;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= threshold) {
+                int i = lo1, j = lo2, k = d;
+                while (i < hi1 && j < hi2) {
+                    dst[k++] = src[j] < src[i] ? src[j++] : src[i++];
+                }
+                System.arraycopy(src, i, dst, k, hi1 - i);
+                System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+                return;
+            }
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = lowerBound(src, lo2, hi2, src[m1]);
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = upperBound(src, lo1, hi1, src[m2]);
+            }
+            int dm = d + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new IntMergeTask(src, lo1, m1, lo2, m2, dst, d, threshold),
+                    new IntMergeTask(src, m1, hi1, m2, hi2, dst, dm, threshold));
+        }
+    }
+
+    private static int lowerBound(int[] a, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int upperBound(int[] a, int lo, int hi, int key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key < a[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    static void sort(long[] a, int n, int threshold) {
+        long[] tmp = new long[n];
+        POOL.invoke(new LongSortTask(a, tmp, 0, n, true, threshold));
+    }
+
+    private static final class LongSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] a;
+        private final long[] tmp;
+        private final int lo;
+        private final int hi;
+        private final boolean intoA;
+        private final int threshold;
+
+        LongSortTask(long[] a, long[] tmp, int lo, int hi, boolean intoA, int threshold) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoA = intoA;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold) {
+                Sort.mergeSort(a, tmp, lo, hi - 1);
+                if (!intoA) {
+                    System.arraycopy(a, lo, tmp, lo, hi - lo);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new LongSortTask(a, tmp, lo, mid, !intoA, threshold),
+                    new LongSortTask(a, tmp, mid, hi, !intoA, threshold));
+            if (intoA) {
+                new LongMergeTask(tmp, lo, mid, mid, hi, a, lo, threshold).compute();
+            } else {
+                new LongMergeTask(a, lo, mid, mid, hi, tmp, lo, threshold).compute();
+            }
+        }
+    }
+
+    private static final class LongMergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final long[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final long[] dst;
+        private final int d;
+        private final int threshold;
+
+        LongMergeTask(long[] src, int lo1, int hi1, int lo2, int hi2, long[] dst, int d, int threshold) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.d = d;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= threshold) {
+                int i = lo1, j = lo2, k = d;
+                while (i < hi1 && j < hi2) {
+                    dst[k++] = src[j] < src[i] ? src[j++] : src[i++];
+                }
+                System.arraycopy(src, i, dst, k, hi1 - i);
+                System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+                return;
+            }
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = lowerBound(src, lo2, hi2, src[m1]);
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = upperBound(src, lo1, hi1, src[m2]);
+            }
+            int dm = d + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new LongMergeTask(src, lo1, m1, lo2, m2, dst, d, threshold),
+                    new LongMergeTask(src, m1, hi1, m2, hi2, dst, dm, threshold));
+        }
+    }
+
+    private static int lowerBound(long[] a, int lo, int hi, long key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int upperBound(long[] a, int lo, int hi, long key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key < a[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+
+    static void sort(double[] a, int n, int threshold) {
+        double[] tmp = new double[n];
+        POOL.invoke(new DoubleSortTask(a, tmp, 0, n, true, threshold));
+    }
+
+    private static final class DoubleSortTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] a;
+        private final double[] tmp;
+        private final int lo;
+        private final int hi;
+        private final boolean intoA;
+        private final int threshold;
+
+        DoubleSortTask(double[] a, double[] tmp, int lo, int hi, boolean intoA, int threshold) {
+            this.a = a;
+            this.tmp = tmp;
+            this.lo = lo;
+            this.hi = hi;
+            this.intoA = intoA;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo <= threshold) {
+                Sort.mergeSort(a, tmp, lo, hi - 1);
+                if (!intoA) {
+                    System.arraycopy(a, lo, tmp, lo, hi - lo);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new DoubleSortTask(a, tmp, lo, mid, !intoA, threshold),
+                    new DoubleSortTask(a, tmp, mid, hi, !intoA, threshold));
+            if (intoA) {
+                new DoubleMergeTask(tmp, lo, mid, mid, hi, a, lo, threshold).compute();
+            } else {
+                new DoubleMergeTask(a, lo, mid, mid, hi, tmp, lo, threshold).compute();
+            }
+        }
+    }
+
+    private static final class DoubleMergeTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final double[] src;
+        private final int lo1;
+        private final int hi1;
+        private final int lo2;
+        private final int hi2;
+        private final double[] dst;
+        private final int d;
+        private final int threshold;
+
+        DoubleMergeTask(double[] src, int lo1, int hi1, int lo2, int hi2, double[] dst, int d, int threshold) {
+            this.src = src;
+            this.lo1 = lo1;
+            this.hi1 = hi1;
+            this.lo2 = lo2;
+            this.hi2 = hi2;
+            this.dst = dst;
+            this.d = d;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected void compute() {
+            int n1 = hi1 - lo1;
+            int n2 = hi2 - lo2;
+            if (n1 + n2 <= threshold) {
+                int i = lo1, j = lo2, k = d;
+                while (i < hi1 && j < hi2) {
+                    dst[k++] = src[j] < src[i] ? src[j++] : src[i++];
+                }
+                System.arraycopy(src, i, dst, k, hi1 - i);
+                System.arraycopy(src, j, dst, k + hi1 - i, hi2 - j);
+                return;
+            }
+            int m1, m2;
+            if (n1 >= n2) {
+                m1 = (lo1 + hi1) >>> 1;
+                m2 = lowerBound(src, lo2, hi2, src[m1]);
+            } else {
+                m2 = (lo2 + hi2) >>> 1;
+                m1 = upperBound(src, lo1, hi1, src[m2]);
+            }
+            int dm = d + (m1 - lo1) + (m2 - lo2);
+            invokeAll(new DoubleMergeTask(src, lo1, m1, lo2, m2, dst, d, threshold),
+                    new DoubleMergeTask(src, m1, hi1, m2, hi2, dst, dm, threshold));
+        }
+    }
+
+    private static int lowerBound(double[] a, int lo, int hi, double key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (a[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    private static int upperBound(double[] a, int lo, int hi, double key) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (key < a[mid]) {
+                hi = mid;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return lo;
+    }
+}
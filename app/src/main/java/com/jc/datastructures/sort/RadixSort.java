@@ -0,0 +1,325 @@
+package com.jc.datastructures.sort;
+
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 整数 key 的 LSD 基数排序
+ * <p>
+ * 每趟处理 8 位，int 共 4 趟，long 共 8 趟。先一次扫描统计出所有趟的计数，
+ * 某一趟所有元素落在同一个桶里时直接跳过；最高位字节异或 0x80，使负数排在正数前面。
+ * 排序是稳定的，除一个与输入等长的缓冲区外不再分配内存
+ */
+final class RadixSort {
+
+    private static final int RADIX = 256;
+
+    private static final int INSERTION_SORT_THRESHOLD = 64;
+
+    /**
+     * 并行统计时每个任务至少处理的元素个数
+     */
+    private static final int PARALLEL_HISTOGRAM_CHUNK = 1 << 16;
+
+    private RadixSort() {
+    }
+
+    private static int digit(int v, int pass) {
+        return pass == 3 ? (v >>> 24) ^ 0x80 : (v >>> (pass << 3)) & 0xFF;
+    }
+
+    private static int digit(long v, int pass) {
+        return pass == 7 ? (int) (v >>> 56) ^ 0x80 : (int) (v >>> (pass << 3)) & 0xFF;
+    }
+
+    static void sort(int[] a, boolean parallel) {
+        int n = a.length;
+        if (n < INSERTION_SORT_THRESHOLD) {
+            Sort.insertionSort(a);
+            return;
+        }
+        int[][] counts = parallel ? parallelHistogram(a) : histogram(a, 0, n);
+        int[] src = a;
+        int[] dst = new int[n];
+        for (int pass = 0; pass < 4; pass++) {
+            int[] count = counts[pass];
+            if (count[digit(src[0], pass)] == n) {
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                int v = src[i];
+                dst[count[digit(v, pass)]++] = v;
+            }
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    static void sort(long[] a, boolean parallel) {
+        int n = a.length;
+        if (n < INSERTION_SORT_THRESHOLD) {
+            Sort.insertionSort(a);
+            return;
+        }
+        int[][] counts = parallel ? parallelHistogram(a) : histogram(a, 0, n);
+        long[] src = a;
+        long[] dst = new long[n];
+        for (int pass = 0; pass < 8; pass++) {
+            int[] count = counts[pass];
+            if (count[digit(src[0], pass)] == n) {
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                long v = src[i];
+                dst[count[digit(v, pass)]++] = v;
+            }
+            long[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    /**
+     * 按 key 排序对象数组，key 只提取一次，与对象一起搬移
+     */
+    static <T> void sortByIntKey(T[] a, Sort.IntKey<? super T> extractor) {
+        int n = a.length;
+        if (n < 2) {
+            return;
+        }
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = extractor.key(a[i]);
+        }
+        int[][] counts = histogram(keys, 0, n);
+        int[] srcKeys = keys;
+        int[] dstKeys = new int[n];
+        Object[] src = a;
+        Object[] dst = new Object[n];
+        for (int pass = 0; pass < 4; pass++) {
+            int[] count = counts[pass];
+            if (count[digit(srcKeys[0], pass)] == n) {
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                int pos = count[digit(srcKeys[i], pass)]++;
+                dstKeys[pos] = srcKeys[i];
+                dst[pos] = src[i];
+            }
+            int[] tk = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tk;
+            Object[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    static <T> void sortByLongKey(T[] a, Sort.LongKey<? super T> extractor) {
+        int n = a.length;
+        if (n < 2) {
+            return;
+        }
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = extractor.key(a[i]);
+        }
+        int[][] counts = histogram(keys, 0, n);
+        long[] srcKeys = keys;
+        long[] dstKeys = new long[n];
+        Object[] src = a;
+        Object[] dst = new Object[n];
+        for (int pass = 0; pass < 8; pass++) {
+            int[] count = counts[pass];
+            if (count[digit(srcKeys[0], pass)] == n) {
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                int pos = count[digit(srcKeys[i], pass)]++;
+                dstKeys[pos] = srcKeys[i];
+                dst[pos] = src[i];
+            }
+            long[] tk = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tk;
+            Object[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (src != a) {
+            System.arraycopy(src, 0, a, 0, n);
+        }
+    }
+
+    /**
+     * 按 keys 排序，values 随 keys 一起搬移，常用于给下标排序
+     */
+    static void sort(int[] keys, int[] values) {
+        int n = keys.length;
+        if (n < 2) {
+            return;
+        }
+        int[][] counts = histogram(keys, 0, n);
+        int[] srcKeys = keys;
+        int[] dstKeys = new int[n];
+        int[] src = values;
+        int[] dst = new int[n];
+        for (int pass = 0; pass < 4; pass++) {
+            int[] count = counts[pass];
+            if (count[digit(srcKeys[0], pass)] == n) {
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                int pos = count[digit(srcKeys[i], pass)]++;
+                dstKeys[pos] = srcKeys[i];
+                dst[pos] = src[i];
+            }
+            int[] tk = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tk;
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(src, 0, values, 0, n);
+        }
+    }
+
+    static void sort(long[] keys, int[] values) {
+        int n = keys.length;
+        if (n < 2) {
+            return;
+        }
+        int[][] counts = histogram(keys, 0, n);
+        long[] srcKeys = keys;
+        long[] dstKeys = new long[n];
+        int[] src = values;
+        int[] dst = new int[n];
+        for (int pass = 0; pass < 8; pass++) {
+            int[] count = counts[pass];
+            if (count[digit(srcKeys[0], pass)] == n) {
+                continue;
+            }
+            toOffsets(count);
+            for (int i = 0; i < n; i++) {
+                int pos = count[digit(srcKeys[i], pass)]++;
+                dstKeys[pos] = srcKeys[i];
+                dst[pos] = src[i];
+            }
+            long[] tk = srcKeys;
+            srcKeys = dstKeys;
+            dstKeys = tk;
+            int[] t = src;
+            src = dst;
+            dst = t;
+        }
+        if (srcKeys != keys) {
+            System.arraycopy(srcKeys, 0, keys, 0, n);
+            System.arraycopy(src, 0, values, 0, n);
+        }
+    }
+
+    /**
+     * 计数转换为每个桶的起始位置
+     */
+    private static void toOffsets(int[] count) {
+        int sum = 0;
+        for (int i = 0; i < RADIX; i++) {
+            int c = count[i];
+            count[i] = sum;
+            sum += c;
+        }
+    }
+
+    private static int[][] histogram(int[] a, int from, int to) {
+        int[][] counts = new int[4][RADIX];
+        int[] c0 = counts[0], c1 = counts[1], c2 = counts[2], c3 = counts[3];
+        for (int i = from; i < to; i++) {
+            int v = a[i];
+            c0[v & 0xFF]++;
+            c1[(v >>> 8) & 0xFF]++;
+            c2[(v >>> 16) & 0xFF]++;
+            c3[(v >>> 24) ^ 0x80]++;
+        }
+        return counts;
+    }
+
+    private static int[][] histogram(long[] a, int from, int to) {
+        int[][] counts = new int[8][RADIX];
+        for (int i = from; i < to; i++) {
+            long v = a[i];
+            for (int pass = 0; pass < 8; pass++) {
+                counts[pass][digit(v, pass)]++;
+            }
+        }
+        return counts;
+    }
+
+    private static int[][] parallelHistogram(int[] a) {
+        HistogramTask task = new HistogramTask(a, null, 0, a.length);
+        ParallelMergeSort.POOL.invoke(task);
+        return task.counts;
+    }
+
+    private static int[][] parallelHistogram(long[] a) {
+        HistogramTask task = new HistogramTask(null, a, 0, a.length);
+        ParallelMergeSort.POOL.invoke(task);
+        return task.counts;
+    }
+
+    /**
+     * 分块统计，子任务的计数在返回时逐桶累加
+     */
+    private static final class HistogramTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] ints;
+        private final long[] longs;
+        private final int from;
+        private final int to;
+        int[][] counts;
+
+        HistogramTask(int[] ints, long[] longs, int from, int to) {
+            this.ints = ints;
+            this.longs = longs;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_HISTOGRAM_CHUNK) {
+                counts = ints != null ? histogram(ints, from, to) : histogram(longs, from, to);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            HistogramTask left = new HistogramTask(ints, longs, from, mid);
+            HistogramTask right = new HistogramTask(ints, longs, mid, to);
+            invokeAll(left, right);
+            counts = left.counts;
+            for (int pass = 0; pass < counts.length; pass++) {
+                int[] c = counts[pass];
+                int[] r = right.counts[pass];
+                for (int i = 0; i < RADIX; i++) {
+                    c[i] += r[i];
+                }
+            }
+        }
+    }
+}
@@ -1,8 +1,39 @@
 package com.jc.datastructures.sort;
 
-import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 
 public class Sort {
+
+    /**
+     * Comparable 版本统一转为按自然顺序比较的 Comparator 版本
+     */
+    private static final Comparator<Comparable<Object>> NATURAL_ORDER = new Comparator<Comparable<Object>>() {
+        @Override
+        public int compare(Comparable<Object> a, Comparable<Object> b) {
+            return a.compareTo(b);
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    static <AnyType extends Comparable<? super AnyType>> Comparator<AnyType> naturalOrder() {
+        return (Comparator<AnyType>) (Comparator<?>) NATURAL_ORDER;
+    }
+
+    /**
+     * 从对象中提取 int 排序关键字
+     */
+    public interface IntKey<T> {
+        int key(T x);
+    }
+
+    /**
+     * 从对象中提取 long 排序关键字
+     */
+    public interface LongKey<T> {
+        long key(T x);
+    }
+
     /**
      * 插入排序
      * 在第 N 次循环时，前 N-1 个元素已经排过序，当前循环只需要找到合适的插入位置将新元素添加进去
@@ -11,10 +42,30 @@ public class Sort {
      * @param <AnyType>
      */
     public static <AnyType extends Comparable<? super AnyType>> void insertionSort(AnyType[] a) {
+        insertionSort(a, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void insertionSort(AnyType[] a, Comparator<? super AnyType> c) {
+        insertionSortRange(a, 0, a.length - 1, c);
+    }
+
+    /**
+     * 只对 a[fromIndex, toIndex) 排序，其余元素不动；下面各算法的区间版本约定相同
+     */
+    public static <AnyType extends Comparable<? super AnyType>> void insertionSort(AnyType[] a, int fromIndex, int toIndex) {
+        insertionSort(a, fromIndex, toIndex, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void insertionSort(AnyType[] a, int fromIndex, int toIndex, Comparator<? super AnyType> c) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        insertionSortRange(a, fromIndex, toIndex - 1, c);
+    }
+
+    private static <AnyType> void insertionSortRange(AnyType[] a, int left, int right, Comparator<? super AnyType> c) {
         int j;
-        for (int i = 1; i < a.length; i++) {
+        for (int i = left + 1; i <= right; i++) {
             AnyType temp = a[i];
-            for (j = i; j > 0 && a[j - 1].compareTo(temp) > 0; j--) {
+            for (j = i; j > left && c.compare(a[j - 1], temp) > 0; j--) {
                 a[j] = a[j - 1];
             }
             a[j] = temp;
@@ -30,11 +81,28 @@ public class Sort {
      * @param <AnyType>
      */
     public static <AnyType extends Comparable<? super AnyType>> void shellSort(AnyType[] a) {
+        shellSort(a, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void shellSort(AnyType[] a, Comparator<? super AnyType> c) {
+        shellSortRange(a, 0, a.length - 1, c);
+    }
+
+    public static <AnyType extends Comparable<? super AnyType>> void shellSort(AnyType[] a, int fromIndex, int toIndex) {
+        shellSort(a, fromIndex, toIndex, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void shellSort(AnyType[] a, int fromIndex, int toIndex, Comparator<? super AnyType> c) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        shellSortRange(a, fromIndex, toIndex - 1, c);
+    }
+
+    private static <AnyType> void shellSortRange(AnyType[] a, int left, int right, Comparator<? super AnyType> c) {
         int j;
-        for (int gap = a.length / 2; gap > 0; gap = gap / 2) {
-            for (int i = gap; i < a.length; i++) {
+        for (int gap = (right - left + 1) / 2; gap > 0; gap = gap / 2) {
+            for (int i = left + gap; i <= right; i++) {
                 AnyType temp = a[i];
-                for (j = i; j >= gap && temp.compareTo(a[j - gap]) < 0; j -= gap) {
+                for (j = i; j - gap >= left && c.compare(temp, a[j - gap]) < 0; j -= gap) {
                     a[j] = a[j - gap];
                 }
                 a[j] = temp;
@@ -47,47 +115,106 @@ public class Sort {
      * 堆排序
      */
     public static <AnyType extends Comparable<? super AnyType>> void heapSort(AnyType[] a) {
-        new HeapSort().heapSort(a);
+        heapSort(a, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void heapSort(AnyType[] a, Comparator<? super AnyType> c) {
+        new HeapSort<>(c).heapSort(a);
+    }
+
+    public static <AnyType extends Comparable<? super AnyType>> void heapSort(AnyType[] a, int fromIndex, int toIndex) {
+        heapSort(a, fromIndex, toIndex, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void heapSort(AnyType[] a, int fromIndex, int toIndex, Comparator<? super AnyType> c) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        new HeapSort<>(c).heapSort(a, fromIndex, toIndex - 1);
     }
 
 
-    private static class HeapSort<AnyType extends Comparable<? super AnyType>> {
+    private static class HeapSort<AnyType> {
+        private final Comparator<? super AnyType> c;
+
+        HeapSort(Comparator<? super AnyType> c) {
+            this.c = c;
+        }
 
         public void heapSort(AnyType[] a) {
+            heapSort(a, 0, a.length - 1);
+        }
+
+        /**
+         * 对 a[left..right] 排序，堆的下标相对 left 计算
+         */
+        public void heapSort(AnyType[] a, int left, int right) {
+            int n = right - left + 1;
 
             // 构建 max 堆的过程 对每个根节点下滤
-            for (int i = a.length / 2 - 1; i >= 0; i--) {
-                percolateDown(a, i, a.length);
+            for (int i = n / 2 - 1; i >= 0; i--) {
+                percolateDown(a, left, i, n);
             }
 
-            for (int i = a.length - 1; i > 0; i--) {
-                swapReferences(a, 0, i);
-                percolateDown(a, 0, i);
+            for (int i = n - 1; i > 0; i--) {
+                swapReferences(a, left, left + i);
+                percolateDown(a, left, 0, i);
             }
 
         }
 
+        /**
+         * 把 a[left..right] 中最小的 k 个元素按升序放到 a[left..left+k-1]
+         * <p>
+         * 前 k 个元素建 max 堆，之后的元素比堆顶小就替换堆顶并下滤，最后对堆排序。
+         * 随机输入时替换很少，接近 O(N)
+         */
+        public void partialSort(AnyType[] a, int left, int right, int k) {
+            if (k <= 0) {
+                return;
+            }
+            for (int i = k / 2 - 1; i >= 0; i--) {
+                percolateDown(a, left, i, k);
+            }
+            int budget = k + ((right - left + 1 - k) >>> 3);
+            for (int i = left + k; i <= right; i++) {
+                if (c.compare(a[i], a[left]) < 0) {
+                    if (--budget < 0) {
+                        // 替换过于频繁（如逆序输入），改为快速选择后只排前 k 个，O(N + KlogK)
+                        QuickSort<AnyType> quickSort = new QuickSort<>(c);
+                        quickSort.select(a, left, right, left + k - 1, depthLimit(right - left + 1));
+                        quickSort.quickSort(a, left, left + k - 1, depthLimit(k));
+                        return;
+                    }
+                    swapReferences(a, left, i);
+                    percolateDown(a, left, 0, k);
+                }
+            }
+            for (int i = k - 1; i > 0; i--) {
+                swapReferences(a, left, left + i);
+                percolateDown(a, left, 0, i);
+            }
+        }
+
         private void swapReferences(AnyType[] a, int index1, int index2) {
             AnyType tmp = a[index1];
             a[index1] = a[index2];
             a[index2] = tmp;
         }
 
-        private void percolateDown(AnyType[] a, int i, int n) {
+        private void percolateDown(AnyType[] a, int base, int i, int n) {
             int child;
             AnyType tmp;
-            for (tmp = a[i]; leftChild(i) < n; i = child) {
+            for (tmp = a[base + i]; leftChild(i) < n; i = child) {
                 child = leftChild(i);
-                if (child != n - 1 && a[child].compareTo(a[child + 1]) < 0) {
+                if (child != n - 1 && c.compare(a[base + child], a[base + child + 1]) < 0) {
                     child++;
                 }
-                if (tmp.compareTo(a[child]) < 0) {
-                    a[i] = a[child];
+                if (c.compare(tmp, a[base + child]) < 0) {
+                    a[base + i] = a[base + child];
                 } else {
                     break;
                 }
             }
-            a[i] = tmp;
+            a[base + i] = tmp;
         }
 
         private int leftChild(int i) {
@@ -103,30 +230,57 @@ public class Sort {
      * @param <AnyType>
      */
     public static <AnyType extends Comparable<? super AnyType>> void mergeSort(AnyType[] a) {
-        AnyType[] tmpArray = (AnyType[]) new Comparable[a.length];
-        new MergeSort().mergeSort(a, tmpArray, 0, a.length - 1);
+        mergeSort(a, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void mergeSort(AnyType[] a, Comparator<? super AnyType> c) {
+        AnyType[] tmpArray = (AnyType[]) new Object[a.length];
+        new MergeSort<>(c).mergeSort(a, tmpArray, 0, a.length - 1);
+    }
+
+    public static <AnyType extends Comparable<? super AnyType>> void mergeSort(AnyType[] a, int fromIndex, int toIndex) {
+        mergeSort(a, fromIndex, toIndex, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void mergeSort(AnyType[] a, int fromIndex, int toIndex, Comparator<? super AnyType> c) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        // 临时数组只按区间长度分配，a[i] 对应 tmpArray[i - fromIndex]
+        AnyType[] tmpArray = (AnyType[]) new Object[toIndex - fromIndex];
+        new MergeSort<>(c).mergeSort(a, tmpArray, fromIndex, fromIndex, toIndex - 1);
     }
 
 
-    private static class MergeSort<AnyType extends Comparable<? super AnyType>> {
+    static class MergeSort<AnyType> {
+        private final Comparator<? super AnyType> c;
+
+        MergeSort(Comparator<? super AnyType> c) {
+            this.c = c;
+        }
 
         public void mergeSort(AnyType[] a, AnyType[] tmpArray, int left, int right) {
+            mergeSort(a, tmpArray, 0, left, right);
+        }
+
+        /**
+         * a[i] 在临时数组中对应 tmpArray[i - tmpOffset]
+         */
+        void mergeSort(AnyType[] a, AnyType[] tmpArray, int tmpOffset, int left, int right) {
             if (left < right) {
                 int center = (left + right) / 2;
-                mergeSort(a, tmpArray, left, center);
-                mergeSort(a, tmpArray, center + 1, right);
-                merge(a, tmpArray, left, center + 1, right);
+                mergeSort(a, tmpArray, tmpOffset, left, center);
+                mergeSort(a, tmpArray, tmpOffset, center + 1, right);
+                merge(a, tmpArray, tmpOffset, left, center + 1, right);
             }
         }
 
-        private void merge(AnyType[] a, AnyType[] tmpArray, int leftPos, int rightPos, int rightEnd) {
+        private void merge(AnyType[] a, AnyType[] tmpArray, int tmpOffset, int leftPos, int rightPos, int rightEnd) {
             int leftEnd = rightPos - 1;
-            int tmpPos = leftPos;//标记数组的位置
+            int tmpPos = leftPos - tmpOffset;//标记数组的位置
             int numElements = rightEnd - leftPos + 1;
 
             // 左边元素分别于右边元素比较，将较小的元素移到临时数组中
             while (leftPos <= leftEnd && rightPos <= rightEnd) {
-                if (a[leftPos].compareTo(a[rightPos]) <= 0) {
+                if (c.compare(a[leftPos], a[rightPos]) <= 0) {
                     tmpArray[tmpPos++] = a[leftPos++];
                 } else {
                     tmpArray[tmpPos++] = a[rightPos++];
@@ -146,7 +300,7 @@ public class Sort {
 
             // 将排好序的数组copy回去
             for (int i = 0; i < numElements; i++, rightEnd--) {
-                a[rightEnd] = tmpArray[rightEnd];
+                a[rightEnd] = tmpArray[rightEnd - tmpOffset];
             }
 
         }
@@ -154,125 +308,1587 @@ public class Sort {
 
 
     /**
-     * 快速排序
+     * 自适应的自然归并排序（TimSort），稳定
+     * <p>
+     * 利用输入中已有的升序 / 降序片段，对基本有序的数据接近 O(N)，临时数组只按合并需要分配
      *
      * @param a
      * @param <AnyType>
      */
-    public static <AnyType extends Comparable<? super AnyType>> void quickSort(AnyType[] a) {
-        new QuickSort().quickSort(a, 0, a.length - 1);
+    public static <AnyType extends Comparable<? super AnyType>> void timSort(AnyType[] a) {
+        timSort(a, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void timSort(AnyType[] a, Comparator<? super AnyType> c) {
+        new TimSort<>(c).sort(a, 0, a.length);
     }
 
+    public static <AnyType extends Comparable<? super AnyType>> void timSort(AnyType[] a, int fromIndex, int toIndex) {
+        timSort(a, fromIndex, toIndex, Sort.<AnyType>naturalOrder());
+    }
 
-    private static class QuickSort<AnyType extends Comparable<? super AnyType>> {
-        final int CUTOFF = 10;// 截止范围，对于很小的数组，快速排序不如插入排序
+    public static <AnyType> void timSort(AnyType[] a, int fromIndex, int toIndex, Comparator<? super AnyType> c) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        new TimSort<>(c).sort(a, fromIndex, toIndex);
+    }
 
-        public void quickSort(AnyType[] a, int left, int right) {
-            if ((left + CUTOFF) < right) {
-                AnyType pivot = median3(a, left, right);
-                int i = left, j = right - 1;
-                for (; ; ) {
-                    while (a[++i].compareTo(pivot) < 0) {
-                    }
-                    while (a[--j].compareTo(pivot) > 0) {
-                    }
-                    if (i < j) {
-                        swapReferences(a, i, j);
+
+    /**
+     * 1. 从左到右切出天然有序的 run：非降序的直接使用，严格降序的原地反转（严格才能保证稳定），
+     * 短于 minRun 的 run 用二分插入排序补齐到 minRun；
+     * 2. run 依次压栈，栈顶的 run 长度保持 X > Y + Z、Y > Z（Z 在栈顶），不满足时把 Y 与 X、Z 中较短的一个合并，
+     * 合并总是在长度相近的 run 之间进行，栈的深度为 O(log N)；
+     * 3. 合并相邻的两个 run 前先跳过两端已经就位的元素，只把剩下的较短一边复制到临时数组。
+     * 归并时一边连续胜出 GALLOP_THRESHOLD 次后，用指数搜索找出这一边还能连续取多少个，成块复制
+     *
+     * @param <AnyType>
+     */
+    static class TimSort<AnyType> {
+        private static final int MIN_MERGE = 32;
+        private static final int GALLOP_THRESHOLD = 7;
+
+        private final Comparator<? super AnyType> c;
+        private AnyType[] tmpArray;
+        private int[] runBase = new int[16];
+        private int[] runLength = new int[16];
+        private int stackSize;
+
+        TimSort(Comparator<? super AnyType> c) {
+            this.c = c;
+        }
+
+        /**
+         * 排序 a[lo, hi)
+         */
+        public void sort(AnyType[] a, int lo, int hi) {
+            int n = hi - lo;
+            if (n < 2) {
+                return;
+            }
+            if (n < MIN_MERGE) {
+                binaryInsertionSort(a, lo, runEnd(a, lo, hi), hi);
+                return;
+            }
+
+            int minRun = minRunLength(n);
+            while (lo < hi) {
+                int end = runEnd(a, lo, hi);
+                if (end - lo < minRun) {
+                    int forced = hi - lo <= minRun ? hi : lo + minRun;
+                    binaryInsertionSort(a, lo, end, forced);
+                    end = forced;
+                }
+                push(lo, end - lo);
+                collapse(a);
+                lo = end;
+            }
+            while (stackSize > 1) {
+                int i = stackSize - 2;
+                if (i > 0 && runLength[i - 1] < runLength[i + 1]) {
+                    i--;
+                }
+                mergeAt(a, i);
+            }
+        }
+
+        /**
+         * 取 n 的最高 5 位，低位不全为 0 时加 1，使 n / minRun 等于或略小于 2 的幂，最后几次合并比较均衡
+         */
+        private static int minRunLength(int n) {
+            int shift = Math.max(0, 32 - Integer.numberOfLeadingZeros(n) - 5);
+            int minRun = n >>> shift;
+            if ((n & ((1 << shift) - 1)) != 0) {
+                minRun++;
+            }
+            return minRun;
+        }
+
+        /**
+         * @return 从 lo 开始的 run 的结尾（不含），严格降序的 run 反转为升序
+         */
+        private int runEnd(AnyType[] a, int lo, int hi) {
+            int end = lo + 1;
+            if (end == hi) {
+                return end;
+            }
+            if (c.compare(a[end], a[lo]) < 0) {
+                while (++end < hi && c.compare(a[end], a[end - 1]) < 0) {
+                }
+                for (int i = lo, j = end - 1; i < j; i++, j--) {
+                    AnyType tmp = a[i];
+                    a[i] = a[j];
+                    a[j] = tmp;
+                }
+            } else {
+                while (++end < hi && c.compare(a[end], a[end - 1]) >= 0) {
+                }
+            }
+            return end;
+        }
+
+        /**
+         * a[lo, sorted) 已经有序，把 a[sorted, hi) 逐个二分插入，相等的元素插在后面
+         */
+        private void binaryInsertionSort(AnyType[] a, int lo, int sorted, int hi) {
+            for (int i = sorted; i < hi; i++) {
+                AnyType x = a[i];
+                int left = lo;
+                int right = i;
+                while (left < right) {
+                    int mid = (left + right) >>> 1;
+                    if (c.compare(x, a[mid]) < 0) {
+                        right = mid;
                     } else {
-                        break;
+                        left = mid + 1;
+                    }
+                }
+                System.arraycopy(a, left, a, left + 1, i - left);
+                a[left] = x;
+            }
+        }
+
+        private void push(int base, int length) {
+            if (stackSize == runBase.length) {
+                runBase = Arrays.copyOf(runBase, stackSize * 2);
+                runLength = Arrays.copyOf(runLength, stackSize * 2);
+            }
+            runBase[stackSize] = base;
+            runLength[stackSize] = length;
+            stackSize++;
+        }
+
+        /**
+         * 恢复栈顶的长度约束。只检查栈顶三个 run 时约束在更深处可能被破坏，所以同时检查第四个
+         */
+        private void collapse(AnyType[] a) {
+            while (stackSize > 1) {
+                int i = stackSize - 2;// 待合并的是 run i 和 run i + 1
+                if ((i > 0 && runLength[i - 1] <= runLength[i] + runLength[i + 1])
+                        || (i > 1 && runLength[i - 2] <= runLength[i - 1] + runLength[i])) {
+                    if (runLength[i - 1] < runLength[i + 1]) {
+                        i--;
                     }
+                } else if (runLength[i] > runLength[i + 1]) {
+                    break;
                 }
-                swapReferences(a, i, right - 1);
-                quickSort(a, left, i - 1);
-                quickSort(a, i + 1, right);
+                mergeAt(a, i);
+            }
+        }
+
+        /**
+         * 合并栈中相邻的 run i 和 run i + 1
+         */
+        private void mergeAt(AnyType[] a, int i) {
+            int base1 = runBase[i];
+            int length1 = runLength[i];
+            int base2 = runBase[i + 1];
+            int length2 = runLength[i + 1];
+
+            runLength[i] = length1 + length2;
+            if (i == stackSize - 3) {
+                runBase[i + 1] = runBase[i + 2];
+                runLength[i + 1] = runLength[i + 2];
+            }
+            stackSize--;
+
+            // 左边不大于右边第一个元素的前缀、右边不小于左边最后一个元素的后缀都已经就位
+            int start = search(a[base2], a, base1, base2, true, false);
+            if (start == base2) {
+                return;
+            }
+            int end = search(a[base2 - 1], a, base2, base2 + length2, false, true);
+            if (end == base2) {
+                return;
+            }
+            if (base2 - start <= end - base2) {
+                mergeForward(a, start, base2, end);
             } else {
-                insertionSort(a);
+                mergeBackward(a, start, base2, end);
             }
         }
 
         /**
-         * 三数中值分割法
-         *
-         * @param a
-         * @param left
-         * @param right
-         * @return
+         * 左边较短：复制到临时数组，从左往右归并，右边剩下的元素已经在原位
          */
-        private AnyType median3(AnyType[] a, int left, int right) {
-            int center = (left + right) / 2;
-            if (a[left].compareTo(a[center]) > 0) {
-                swapReferences(a, left, center);
+        private void mergeForward(AnyType[] a, int leftPos, int rightPos, int rightEnd) {
+            int length1 = rightPos - leftPos;
+            AnyType[] tmp = ensureCapacity(length1);
+            System.arraycopy(a, leftPos, tmp, 0, length1);
+
+            int i = 0;
+            int j = rightPos;
+            int dest = leftPos;
+            int leftWins = 0;
+            int rightWins = 0;
+            while (i < length1 && j < rightEnd) {
+                if (c.compare(a[j], tmp[i]) < 0) {
+                    a[dest++] = a[j++];
+                    leftWins = 0;
+                    if (++rightWins >= GALLOP_THRESHOLD) {
+                        // 右边连续胜出，小于 tmp[i] 的一段整块前移
+                        int k = search(tmp[i], a, j, rightEnd, false, false);
+                        System.arraycopy(a, j, a, dest, k - j);
+                        dest += k - j;
+                        j = k;
+                        rightWins = 0;
+                    }
+                } else {
+                    a[dest++] = tmp[i++];
+                    rightWins = 0;
+                    if (++leftWins >= GALLOP_THRESHOLD && j < rightEnd) {
+                        // 左边连续胜出，不大于 a[j] 的一段整块复制回去
+                        int k = search(a[j], tmp, i, length1, true, false);
+                        System.arraycopy(tmp, i, a, dest, k - i);
+                        dest += k - i;
+                        i = k;
+                        leftWins = 0;
+                    }
+                }
             }
+            System.arraycopy(tmp, i, a, dest, length1 - i);
+        }
 
-            if (a[left].compareTo(a[right]) > 0) {
-                swapReferences(a, left, right);
+        /**
+         * 右边较短：复制到临时数组，从右往左归并，左边剩下的元素已经在原位
+         */
+        private void mergeBackward(AnyType[] a, int leftPos, int rightPos, int rightEnd) {
+            int length2 = rightEnd - rightPos;
+            AnyType[] tmp = ensureCapacity(length2);
+            System.arraycopy(a, rightPos, tmp, 0, length2);
+
+            int i = rightPos - 1;
+            int j = length2 - 1;
+            int dest = rightEnd - 1;
+            int leftWins = 0;
+            int rightWins = 0;
+            while (i >= leftPos && j >= 0) {
+                if (c.compare(tmp[j], a[i]) < 0) {
+                    a[dest--] = a[i--];
+                    rightWins = 0;
+                    if (++leftWins >= GALLOP_THRESHOLD) {
+                        // 左边连续胜出，大于 tmp[j] 的一段整块后移
+                        int k = search(tmp[j], a, leftPos, i + 1, true, true);
+                        int count = i + 1 - k;
+                        System.arraycopy(a, k, a, dest - count + 1, count);
+                        dest -= count;
+                        i = k - 1;
+                        leftWins = 0;
+                    }
+                } else {
+                    a[dest--] = tmp[j--];
+                    leftWins = 0;
+                    if (++rightWins >= GALLOP_THRESHOLD && i >= leftPos) {
+                        // 右边连续胜出，不小于 a[i] 的一段整块复制回去
+                        int k = search(a[i], tmp, 0, j + 1, false, true);
+                        int count = j + 1 - k;
+                        System.arraycopy(tmp, k, a, dest - count + 1, count);
+                        dest -= count;
+                        j = k - 1;
+                        rightWins = 0;
+                    }
+                }
             }
+            System.arraycopy(tmp, 0, a, leftPos, j + 1);
+        }
 
-            if (a[center].compareTo(a[right]) > 0) {
-                swapReferences(a, center, right);
+        /**
+         * 有序区间 a[from, to) 中第一个排在 key 之后的下标：afterEqual 为 true 时是第一个大于 key 的元素，
+         * 否则是第一个大于等于 key 的元素。先从 from（fromEnd 时从 to）一端按 1, 2, 4 ... 的步长试探，
+         * 再在最后一段中二分，答案离起点为 d 时只需要 O(log d) 次比较
+         */
+        private int search(AnyType key, AnyType[] a, int from, int to, boolean afterEqual, boolean fromEnd) {
+            int lo = from;// a[from, lo) 都排在 key 之前
+            int hi = to;// a[hi, to) 都不排在 key 之前
+            int step = 1;
+            while (lo < hi) {
+                int probe;
+                if (fromEnd) {
+                    probe = step <= hi - lo ? hi - step : lo;
+                } else {
+                    probe = step <= hi - lo ? lo + step - 1 : hi - 1;
+                }
+                if (before(a[probe], key, afterEqual)) {
+                    lo = probe + 1;
+                    if (fromEnd) {
+                        break;
+                    }
+                } else {
+                    hi = probe;
+                    if (!fromEnd) {
+                        break;
+                    }
+                }
+                if (step < 1 << 30) {
+                    step <<= 1;
+                }
+            }
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (before(a[mid], key, afterEqual)) {
+                    lo = mid + 1;
+                } else {
+                    hi = mid;
+                }
             }
+            return lo;
+        }
 
+        private boolean before(AnyType x, AnyType key, boolean afterEqual) {
+            int cmp = c.compare(x, key);
+            return afterEqual ? cmp <= 0 : cmp < 0;
+        }
 
-            swapReferences(a, center, right - 1);
-            return a[right - 1];
+        @SuppressWarnings("unchecked")
+        private AnyType[] ensureCapacity(int length) {
+            if (tmpArray == null || tmpArray.length < length) {
+                int newLength = tmpArray == null ? length : Math.max(length, tmpArray.length * 2);
+                tmpArray = (AnyType[]) new Object[newLength];
+            }
+            return tmpArray;
         }
+    }
 
 
-        final void swapReferences(AnyType[] a, int index1, int index2) {
-            AnyType tmp = a[index1];
-            a[index1] = a[index2];
-            a[index2] = tmp;
+    /**
+     * 并行归并排序的默认切分阈值，小于该规模的区间直接顺序排序
+     */
+    public static final int PARALLEL_MERGE_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * 并行归并排序，使用 ForkJoinPool 分治，结果与 mergeSort 相同（稳定）
+     *
+     * @param a
+     * @param <AnyType>
+     */
+    public static <AnyType extends Comparable<? super AnyType>> void parallelMergeSort(AnyType[] a) {
+        parallelMergeSort(a, PARALLEL_MERGE_SORT_THRESHOLD);
+    }
+
+    /**
+     * @param threshold 区间长度不超过该值时不再拆分任务
+     */
+    public static <AnyType extends Comparable<? super AnyType>> void parallelMergeSort(AnyType[] a, int threshold) {
+        parallelMergeSort(a, Sort.<AnyType>naturalOrder(), threshold);
+    }
+
+    public static <AnyType> void parallelMergeSort(AnyType[] a, Comparator<? super AnyType> c) {
+        parallelMergeSort(a, c, PARALLEL_MERGE_SORT_THRESHOLD);
+    }
+
+    public static <AnyType> void parallelMergeSort(AnyType[] a, Comparator<? super AnyType> c, int threshold) {
+        ParallelMergeSort.sort(a, a.length, c, checkThreshold(threshold));
+    }
+
+    public static void parallelMergeSort(int[] a) {
+        parallelMergeSort(a, PARALLEL_MERGE_SORT_THRESHOLD);
+    }
+
+    public static void parallelMergeSort(int[] a, int threshold) {
+        ParallelMergeSort.sort(a, a.length, checkThreshold(threshold));
+    }
+
+    public static void parallelMergeSort(long[] a) {
+        parallelMergeSort(a, PARALLEL_MERGE_SORT_THRESHOLD);
+    }
+
+    public static void parallelMergeSort(long[] a, int threshold) {
+        ParallelMergeSort.sort(a, a.length, checkThreshold(threshold));
+    }
+
+    public static void parallelMergeSort(double[] a) {
+        parallelMergeSort(a, PARALLEL_MERGE_SORT_THRESHOLD);
+    }
+
+    public static void parallelMergeSort(double[] a, int threshold) {
+        ParallelMergeSort.sort(a, moveNaNsToEnd(a), checkThreshold(threshold));
+    }
+
+    private static int checkThreshold(int threshold) {
+        if (threshold < 2) {
+            throw new IllegalArgumentException("threshold must be at least 2: " + threshold);
         }
+        return threshold;
     }
 
 
     /**
-     * 变长字符串的基数排序
+     * 快速排序
      * <p>
-     * 同时按照字母和长度进行排序，字母优先
+     * 双轴快排：取两个轴 p &lt;= q 把区间分成 &lt; p、[p, q]、&gt; q 三段；
+     * 小区间改用插入排序，递归深度超过 2·logN 时改用堆排序，最坏情况也是 O(NlogN)
      *
-     * @param arr
-     * @param maxLen
+     * @param a
+     * @param <AnyType>
      */
-    public static void radixSort(String[] arr, int maxLen) {
-        final int BUCKETS = 256;
-        ArrayList<String>[] wordsByLength = new ArrayList[maxLen + 1];
-        ArrayList<String>[] buckets = new ArrayList[BUCKETS];
-        for (int i = 0; i < buckets.length; i++) {
-            buckets[i] = new ArrayList<>();
-        }
-        for (int i = 0; i < wordsByLength.length; i++) {
-            wordsByLength[i] = new ArrayList<>();
-        }
+    public static <AnyType extends Comparable<? super AnyType>> void quickSort(AnyType[] a) {
+        quickSort(a, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void quickSort(AnyType[] a, Comparator<? super AnyType> c) {
+        new QuickSort<>(c).quickSort(a, 0, a.length - 1, depthLimit(a.length));
+    }
+
+    public static <AnyType extends Comparable<? super AnyType>> void quickSort(AnyType[] a, int fromIndex, int toIndex) {
+        quickSort(a, fromIndex, toIndex, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void quickSort(AnyType[] a, int fromIndex, int toIndex, Comparator<? super AnyType> c) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        new QuickSort<>(c).quickSort(a, fromIndex, toIndex - 1, depthLimit(toIndex - fromIndex));
+    }
+
+
+    private static final int QUICK_SORT_CUTOFF = 27;// 截止范围，对于很小的数组，快速排序不如插入排序
+
+    /**
+     * 快排允许的最大递归深度 2·floor(logN)
+     */
+    private static int depthLimit(int n) {
+        return 2 * (31 - Integer.numberOfLeadingZeros(Math.max(n, 1)));
+    }
 
-        for (String s : arr) {
-            wordsByLength[s.length()].add(s);
+
+    private static class QuickSort<AnyType> {
+        private final Comparator<? super AnyType> c;
+
+        QuickSort(Comparator<? super AnyType> c) {
+            this.c = c;
         }
 
-        int idx = 0;
-        for (ArrayList<String> words : wordsByLength) {
-            for (String s : words) {
-                arr[idx++] = s;
+        public void quickSort(AnyType[] a, int left, int right, int depth) {
+            if (right - left < QUICK_SORT_CUTOFF) {
+                insertionSortRange(a, left, right, c);
+                return;
             }
-        }
+            if (depth == 0) {
+                new HeapSort<>(c).heapSort(a, left, right);
+                return;
+            }
+
+            // 取 1/3 和 2/3 处的元素作为两个轴，对有序输入也能均匀切分
+            int third = (right - left) / 3;
+            swapReferences(a, left, left + third);
+            swapReferences(a, right, right - third);
+            if (c.compare(a[left], a[right]) > 0) {
+                swapReferences(a, left, right);
+            }
+            AnyType p = a[left];
+            AnyType q = a[right];
+
+            // a[left+1..lt-1] < p, a[lt..k-1] 在 [p, q] 中, a[gt+1..right-1] > q
+            int lt = left + 1, gt = right - 1;
+            for (int k = lt; k <= gt; k++) {
+                if (c.compare(a[k], p) < 0) {
+                    swapReferences(a, k, lt++);
+                } else if (c.compare(a[k], q) > 0) {
+                    while (k < gt && c.compare(a[gt], q) > 0) {
+                        gt--;
+                    }
+                    swapReferences(a, k, gt--);
+                    if (c.compare(a[k], p) < 0) {
+                        swapReferences(a, k, lt++);
+                    }
+                }
+            }
+            swapReferences(a, left, --lt);
+            swapReferences(a, right, ++gt);
 
-        // 对相同长度的 按照字母顺序排序
-        int startIndex = arr.length;
-        for (int pos = maxLen - 1; pos >= 0; pos--) {
-            startIndex -= wordsByLength[pos + 1].size();
+            quickSort(a, left, lt - 1, depth - 1);
+            // p == q 时中间一段全部相等，无需再排
+            if (c.compare(p, q) < 0) {
+                quickSort(a, lt + 1, gt - 1, depth - 1);
+            }
+            quickSort(a, gt + 1, right, depth - 1);
+        }
 
-            for (int i = startIndex; i < arr.length; i++) {
-                buckets[arr[i].charAt(pos)].add(arr[i]);
+        /**
+         * 三向切分，只继续处理包含下标 k 的一段；深度超限时对剩下的区间堆排序
+         */
+        public void select(AnyType[] a, int left, int right, int k, int depth) {
+            while (right - left >= QUICK_SORT_CUTOFF) {
+                if (depth-- == 0) {
+                    new HeapSort<>(c).heapSort(a, left, right);
+                    return;
+                }
+                median3(a, left, (left + right) >>> 1, right);
+                AnyType v = a[left];
+                // a[left..lt-1] < v, a[lt..gt] == v, a[gt+1..right] > v
+                int lt = left, gt = right, i = left + 1;
+                while (i <= gt) {
+                    int cmp = c.compare(a[i], v);
+                    if (cmp < 0) {
+                        swapReferences(a, lt++, i++);
+                    } else if (cmp > 0) {
+                        swapReferences(a, i, gt--);
+                    } else {
+                        i++;
+                    }
+                }
+                if (k < lt) {
+                    right = lt - 1;
+                } else if (k > gt) {
+                    left = gt + 1;
+                } else {
+                    return;
+                }
             }
+            insertionSortRange(a, left, right, c);
+        }
 
-            idx = startIndex;
-            for (ArrayList<String> thisBucket : buckets) {
-                for (String s : thisBucket) {
-                    arr[idx++] = s;
+        /**
+         * 把三个位置中居中的元素换到 lo 作为轴
+         */
+        private void median3(AnyType[] a, int lo, int mid, int hi) {
+            if (c.compare(a[mid], a[lo]) < 0) {
+                swapReferences(a, lo, mid);
+            }
+            if (c.compare(a[hi], a[mid]) < 0) {
+                swapReferences(a, mid, hi);
+                if (c.compare(a[mid], a[lo]) < 0) {
+                    swapReferences(a, lo, mid);
                 }
-                thisBucket.clear();
             }
+            swapReferences(a, lo, mid);
         }
+
+
+        final void swapReferences(AnyType[] a, int index1, int index2) {
+            AnyType tmp = a[index1];
+            a[index1] = a[index2];
+            a[index2] = tmp;
+        }
+    }
+
+
+    /**
+     * 快速选择（introselect）
+     * <p>
+     * 重排 a，使 a[k] 恰好是排序后第 k 小（从 0 开始）的元素，a[0..k-1] 都不大于它，a[k+1..] 都不小于它。
+     * 平均 O(N)，切分次数超过 2·logN 时改用堆排序，最坏 O(NlogN)
+     *
+     * @return 第 k 小的元素
+     */
+    public static <AnyType extends Comparable<? super AnyType>> AnyType quickSelect(AnyType[] a, int k) {
+        return quickSelect(a, k, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> AnyType quickSelect(AnyType[] a, int k, Comparator<? super AnyType> c) {
+        checkIndex(a.length, k);
+        new QuickSort<>(c).select(a, 0, a.length - 1, k, depthLimit(a.length));
+        return a[k];
+    }
+
+
+    /**
+     * 部分排序
+     * <p>
+     * 把最小的 k 个元素按升序放到 a[0..k-1]，其余元素的顺序不确定。
+     * 用大小为 k 的 max 堆筛选，堆顶替换次数超过 N/8 时改为快速选择后排序前 k 个，
+     * 最坏 O(N + KlogK)，k 远小于 N 时比整体排序快得多
+     */
+    public static <AnyType extends Comparable<? super AnyType>> void partialSort(AnyType[] a, int k) {
+        partialSort(a, k, Sort.<AnyType>naturalOrder());
+    }
+
+    public static <AnyType> void partialSort(AnyType[] a, int k, Comparator<? super AnyType> c) {
+        checkCount(a.length, k);
+        new HeapSort<>(c).partialSort(a, 0, a.length - 1, k);
+    }
+
+
+    private static void rangeCheck(int length, int fromIndex, int toIndex) {
+        if (fromIndex > toIndex) {
+            throw new IllegalArgumentException("fromIndex(" + fromIndex + ") > toIndex(" + toIndex + ")");
+        }
+        if (fromIndex < 0) {
+            throw new ArrayIndexOutOfBoundsException(fromIndex);
+        }
+        if (toIndex > length) {
+            throw new ArrayIndexOutOfBoundsException(toIndex);
+        }
+    }
+
+    private static void checkIndex(int length, int k) {
+        if (k < 0 || k >= length) {
+            throw new ArrayIndexOutOfBoundsException(k);
+        }
+    }
+
+    private static void checkCount(int length, int k) {
+        if (k < 0 || k > length) {
+            throw new IllegalArgumentException("k must be in [0, " + length + "]: " + k);
+        }
+    }
+
+
+    /**
+     * 基本类型数组的排序
+     * <p>
+     * int[] / long[] / double[] 版本与上面的泛型版本算法相同，但直接比较原始值，
+     * 既不装箱也不经过 compareTo 的接口调用，除归并排序的临时数组外不分配内存
+     */
+    public static void insertionSort(int[] a) {
+        insertionSortRange(a, 0, a.length - 1);
+    }
+
+    public static void shellSort(int[] a) {
+        shellSortRange(a, 0, a.length - 1);
+    }
+
+    public static void heapSort(int[] a) {
+        heapSortRange(a, 0, a.length - 1);
+    }
+
+    public static void mergeSort(int[] a) {
+        mergeSort(a, new int[a.length], 0, a.length - 1);
+    }
+
+    public static void quickSort(int[] a) {
+        quickSort(a, 0, a.length - 1, depthLimit(a.length));
+    }
+
+    public static void insertionSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        insertionSortRange(a, fromIndex, toIndex - 1);
+    }
+
+    public static void shellSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        shellSortRange(a, fromIndex, toIndex - 1);
+    }
+
+    public static void heapSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        heapSortRange(a, fromIndex, toIndex - 1);
+    }
+
+    public static void mergeSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        mergeSort(a, new int[toIndex - fromIndex], fromIndex, fromIndex, toIndex - 1);
+    }
+
+    public static void quickSort(int[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        quickSort(a, fromIndex, toIndex - 1, depthLimit(toIndex - fromIndex));
+    }
+
+    public static int quickSelect(int[] a, int k) {
+        checkIndex(a.length, k);
+        select(a, 0, a.length - 1, k, depthLimit(a.length));
+        return a[k];
+    }
+
+    public static void partialSort(int[] a, int k) {
+        checkCount(a.length, k);
+        partialSort(a, 0, a.length - 1, k);
+    }
+
+    private static void insertionSortRange(int[] a, int left, int right) {
+        int j;
+        for (int i = left + 1; i <= right; i++) {
+            int temp = a[i];
+            for (j = i; j > left && a[j - 1] > temp; j--) {
+                a[j] = a[j - 1];
+            }
+            a[j] = temp;
+        }
+    }
+
+    private static void shellSortRange(int[] a, int left, int right) {
+        int j;
+        for (int gap = (right - left + 1) / 2; gap > 0; gap = gap / 2) {
+            for (int i = left + gap; i <= right; i++) {
+                int temp = a[i];
+                for (j = i; j - gap >= left && temp < a[j - gap]; j -= gap) {
+                    a[j] = a[j - gap];
+                }
+                a[j] = temp;
+            }
+        }
+    }
+
+    private static void heapSortRange(int[] a, int left, int right) {
+        int n = right - left + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            percolateDown(a, left, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(a, left, left + i);
+            percolateDown(a, left, 0, i);
+        }
+    }
+
+    /**
+     * 以 a[base] 为根的 max 堆下滤，i 和 n 都是相对 base 的偏移
+     */
+    private static void percolateDown(int[] a, int base, int i, int n) {
+        int child;
+        int tmp = a[base + i];
+        for (; 2 * i + 1 < n; i = child) {
+            child = 2 * i + 1;
+            if (child != n - 1 && a[base + child] < a[base + child + 1]) {
+                child++;
+            }
+            if (tmp < a[base + child]) {
+                a[base + i] = a[base + child];
+            } else {
+                break;
+            }
+        }
+        a[base + i] = tmp;
+    }
+
+    static void mergeSort(int[] a, int[] tmpArray, int left, int right) {
+        mergeSort(a, tmpArray, 0, left, right);
+    }
+
+    /**
+     * a[i] 在临时数组中对应 tmpArray[i - tmpOffset]，排序一段区间时临时数组只需要区间的长度
+     */
+    private static void mergeSort(int[] a, int[] tmpArray, int tmpOffset, int left, int right) {
+        if (left < right) {
+            int center = (left + right) >>> 1;
+            mergeSort(a, tmpArray, tmpOffset, left, center);
+            mergeSort(a, tmpArray, tmpOffset, center + 1, right);
+            merge(a, tmpArray, tmpOffset, left, center + 1, right);
+        }
+    }
+
+    private static void merge(int[] a, int[] tmpArray, int tmpOffset, int leftPos, int rightPos, int rightEnd) {
+        // 两段已经有序，无需合并
+        if (a[rightPos - 1] <= a[rightPos]) {
+            return;
+        }
+        int leftEnd = rightPos - 1;
+        int tmpPos = leftPos - tmpOffset;
+        int start = leftPos;
+
+        while (leftPos <= leftEnd && rightPos <= rightEnd) {
+            if (a[leftPos] <= a[rightPos]) {
+                tmpArray[tmpPos++] = a[leftPos++];
+            } else {
+                tmpArray[tmpPos++] = a[rightPos++];
+            }
+        }
+        while (leftPos <= leftEnd) {
+            tmpArray[tmpPos++] = a[leftPos++];
+        }
+        while (rightPos <= rightEnd) {
+            tmpArray[tmpPos++] = a[rightPos++];
+        }
+        System.arraycopy(tmpArray, start - tmpOffset, a, start, rightEnd - start + 1);
+    }
+
+    private static void quickSort(int[] a, int left, int right, int depth) {
+        if (right - left < QUICK_SORT_CUTOFF) {
+            insertionSortRange(a, left, right);
+            return;
+        }
+        if (depth == 0) {
+            heapSortRange(a, left, right);
+            return;
+        }
+
+        int third = (right - left) / 3;
+        swap(a, left, left + third);
+        swap(a, right, right - third);
+        if (a[left] > a[right]) {
+            swap(a, left, right);
+        }
+        int p = a[left];
+        int q = a[right];
+
+        int lt = left + 1, gt = right - 1;
+        for (int k = lt; k <= gt; k++) {
+            int x = a[k];
+            if (x < p) {
+                swap(a, k, lt++);
+            } else if (x > q) {
+                while (k < gt && a[gt] > q) {
+                    gt--;
+                }
+                swap(a, k, gt--);
+                if (a[k] < p) {
+                    swap(a, k, lt++);
+                }
+            }
+        }
+        swap(a, left, --lt);
+        swap(a, right, ++gt);
+
+        quickSort(a, left, lt - 1, depth - 1);
+        if (p < q) {
+            quickSort(a, lt + 1, gt - 1, depth - 1);
+        }
+        quickSort(a, gt + 1, right, depth - 1);
+    }
+
+    /**
+     * 三向切分，只继续处理包含下标 k 的一段
+     */
+    private static void select(int[] a, int left, int right, int k, int depth) {
+        while (right - left >= QUICK_SORT_CUTOFF) {
+            if (depth-- == 0) {
+                heapSortRange(a, left, right);
+                return;
+            }
+            median3(a, left, (left + right) >>> 1, right);
+            int v = a[left];
+            int lt = left, gt = right, i = left + 1;
+            while (i <= gt) {
+                int x = a[i];
+                if (x < v) {
+                    swap(a, lt++, i++);
+                } else if (x > v) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                right = lt - 1;
+            } else if (k > gt) {
+                left = gt + 1;
+            } else {
+                return;
+            }
+        }
+        insertionSortRange(a, left, right);
+    }
+
+    private static void median3(int[] a, int lo, int mid, int hi) {
+        if (a[mid] < a[lo]) {
+            swap(a, lo, mid);
+        }
+        if (a[hi] < a[mid]) {
+            swap(a, mid, hi);
+            if (a[mid] < a[lo]) {
+                swap(a, lo, mid);
+            }
+        }
+        swap(a, lo, mid);
+    }
+
+    /**
+     * 与泛型版本的 HeapSort.partialSort 相同，用 k 个元素的 max 堆筛选
+     */
+    private static void partialSort(int[] a, int left, int right, int k) {
+        if (k <= 0) {
+            return;
+        }
+        for (int i = k / 2 - 1; i >= 0; i--) {
+            percolateDown(a, left, i, k);
+        }
+        int budget = k + ((right - left + 1 - k) >>> 3);
+        for (int i = left + k; i <= right; i++) {
+            if (a[i] < a[left]) {
+                if (--budget < 0) {
+                    select(a, left, right, left + k - 1, depthLimit(right - left + 1));
+                    quickSort(a, left, left + k - 1, depthLimit(k));
+                    return;
+                }
+                swap(a, left, i);
+                percolateDown(a, left, 0, k);
+            }
+        }
+        for (int i = k - 1; i > 0; i--) {
+            swap(a, left, left + i);
+            percolateDown(a, left, 0, i);
+        }
+    }
+
+    private static void swap(int[] a, int index1, int index2) {
+        int tmp = a[index1];
+        a[index1] = a[index2];
+        a[index2] = tmp;
+    }
+
+    public static void insertionSort(long[] a) {
+        insertionSortRange(a, 0, a.length - 1);
+    }
+
+    public static void shellSort(long[] a) {
+        shellSortRange(a, 0, a.length - 1);
+    }
+
+    public static void heapSort(long[] a) {
+        heapSortRange(a, 0, a.length - 1);
+    }
+
+    public static void mergeSort(long[] a) {
+        mergeSort(a, new long[a.length], 0, a.length - 1);
+    }
+
+    public static void quickSort(long[] a) {
+        quickSort(a, 0, a.length - 1, depthLimit(a.length));
+    }
+
+    public static void insertionSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        insertionSortRange(a, fromIndex, toIndex - 1);
+    }
+
+    public static void shellSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        shellSortRange(a, fromIndex, toIndex - 1);
+    }
+
+    public static void heapSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        heapSortRange(a, fromIndex, toIndex - 1);
+    }
+
+    public static void mergeSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        mergeSort(a, new long[toIndex - fromIndex], fromIndex, fromIndex, toIndex - 1);
+    }
+
+    public static void quickSort(long[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        quickSort(a, fromIndex, toIndex - 1, depthLimit(toIndex - fromIndex));
+    }
+
+    public static long quickSelect(long[] a, int k) {
+        checkIndex(a.length, k);
+        select(a, 0, a.length - 1, k, depthLimit(a.length));
+        return a[k];
+    }
+
+    public static void partialSort(long[] a, int k) {
+        checkCount(a.length, k);
+        partialSort(a, 0, a.length - 1, k);
+    }
+
+    private static void insertionSortRange(long[] a, int left, int right) {
+        int j;
+        for (int i = left + 1; i <= right; i++) {
+            long temp = a[i];
+            for (j = i; j > left && a[j - 1] > temp; j--) {
+                a[j] = a[j - 1];
+            }
+            a[j] = temp;
+        }
+    }
+
+    private static void shellSortRange(long[] a, int left, int right) {
+        int j;
+        for (int gap = (right - left + 1) / 2; gap > 0; gap = gap / 2) {
+            for (int i = left + gap; i <= right; i++) {
+                long temp = a[i];
+                for (j = i; j - gap >= left && temp < a[j - gap]; j -= gap) {
+                    a[j] = a[j - gap];
+                }
+                a[j] = temp;
+            }
+        }
+    }
+
+    private static void heapSortRange(long[] a, int left, int right) {
+        int n = right - left + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            percolateDown(a, left, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(a, left, left + i);
+            percolateDown(a, left, 0, i);
+        }
+    }
+
+    /**
+     * 以 a[base] 为根的 max 堆下滤，i 和 n 都是相对 base 的偏移
+     */
+    private static void percolateDown(long[] a, int base, int i, int n) {
+        int child;
+        long tmp = a[base + i];
+        for (; 2 * i + 1 < n; i = child) {
+            child = 2 * i + 1;
+            if (child != n - 1 && a[base + child] < a[base + child + 1]) {
+                child++;
+            }
+            if (tmp < a[base + child]) {
+                a[base + i] = a[base + child];
+            } else {
+                break;
+            }
+        }
+        a[base + i] = tmp;
+    }
+
+    static void mergeSort(long[] a, long[] tmpArray, int left, int right) {
+        mergeSort(a, tmpArray, 0, left, right);
+    }
+
+    /**
+     * a[i] 在临时数组中对应 tmpArray[i - tmpOffset]，排序一段区间时临时数组只需要区间的长度
+     */
+    private static void mergeSort(long[] a, long[] tmpArray, int tmpOffset, int left, int right) {
+        if (left < right) {
+            int center = (left + right) >>> 1;
+            mergeSort(a, tmpArray, tmpOffset, left, center);
+            mergeSort(a, tmpArray, tmpOffset, center + 1, right);
+            merge(a, tmpArray, tmpOffset, left, center + 1, right);
+        }
+    }
+
+    private static void merge(long[] a, long[] tmpArray, int tmpOffset, int leftPos, int rightPos, int rightEnd) {
+        // 两段已经有序，无需合并
+        if (a[rightPos - 1] <= a[rightPos]) {
+            return;
+        }
+        int leftEnd = rightPos - 1;
+        int tmpPos = leftPos - tmpOffset;
+        int start = leftPos;
+
+        while (leftPos <= leftEnd && rightPos <= rightEnd) {
+            if (a[leftPos] <= a[rightPos]) {
+                tmpArray[tmpPos++] = a[leftPos++];
+            } else {
+                tmpArray[tmpPos++] = a[rightPos++];
+            }
+        }
+        while (leftPos <= leftEnd) {
+            tmpArray[tmpPos++] = a[leftPos++];
+        }
+        while (rightPos <= rightEnd) {
+            tmpArray[tmpPos++] = a[rightPos++];
+        }
+        System.arraycopy(tmpArray, start - tmpOffset, a, start, rightEnd - start + 1);
+    }
+
+    private static void quickSort(long[] a, int left, int right, int depth) {
+        if (right - left < QUICK_SORT_CUTOFF) {
+            insertionSortRange(a, left, right);
+            return;
+        }
+        if (depth == 0) {
+            heapSortRange(a, left, right);
+            return;
+        }
+
+        int third = (right - left) / 3;
+        swap(a, left, left + third);
+        swap(a, right, right - third);
+        if (a[left] > a[right]) {
+            swap(a, left, right);
+        }
+        long p = a[left];
+        long q = a[right];
+
+        int lt = left + 1, gt = right - 1;
+        for (int k = lt; k <= gt; k++) {
+            long x = a[k];
+            if (x < p) {
+                swap(a, k, lt++);
+            } else if (x > q) {
+                while (k < gt && a[gt] > q) {
+                    gt--;
+                }
+                swap(a, k, gt--);
+                if (a[k] < p) {
+                    swap(a, k, lt++);
+                }
+            }
+        }
+        swap(a, left, --lt);
+        swap(a, right, ++gt);
+
+        quickSort(a, left, lt - 1, depth - 1);
+        if (p < q) {
+            quickSort(a, lt + 1, gt - 1, depth - 1);
+        }
+        quickSort(a, gt + 1, right, depth - 1);
+    }
+
+    /**
+     * 三向切分，只继续处理包含下标 k 的一段
+     */
+    private static void select(long[] a, int left, int right, int k, int depth) {
+        while (right - left >= QUICK_SORT_CUTOFF) {
+            if (depth-- == 0) {
+                heapSortRange(a, left, right);
+                return;
+            }
+            median3(a, left, (left + right) >>> 1, right);
+            long v = a[left];
+            int lt = left, gt = right, i = left + 1;
+            while (i <= gt) {
+                long x = a[i];
+                if (x < v) {
+                    swap(a, lt++, i++);
+                } else if (x > v) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                right = lt - 1;
+            } else if (k > gt) {
+                left = gt + 1;
+            } else {
+                return;
+            }
+        }
+        insertionSortRange(a, left, right);
+    }
+
+    private static void median3(long[] a, int lo, int mid, int hi) {
+        if (a[mid] < a[lo]) {
+            swap(a, lo, mid);
+        }
+        if (a[hi] < a[mid]) {
+            swap(a, mid, hi);
+            if (a[mid] < a[lo]) {
+                swap(a, lo, mid);
+            }
+        }
+        swap(a, lo, mid);
+    }
+
+    /**
+     * 与泛型版本的 HeapSort.partialSort 相同，用 k 个元素的 max 堆筛选
+     */
+    private static void partialSort(long[] a, int left, int right, int k) {
+        if (k <= 0) {
+            return;
+        }
+        for (int i = k / 2 - 1; i >= 0; i--) {
+            percolateDown(a, left, i, k);
+        }
+        int budget = k + ((right - left + 1 - k) >>> 3);
+        for (int i = left + k; i <= right; i++) {
+            if (a[i] < a[left]) {
+                if (--budget < 0) {
+                    select(a, left, right, left + k - 1, depthLimit(right - left + 1));
+                    quickSort(a, left, left + k - 1, depthLimit(k));
+                    return;
+                }
+                swap(a, left, i);
+                percolateDown(a, left, 0, k);
+            }
+        }
+        for (int i = k - 1; i > 0; i--) {
+            swap(a, left, left + i);
+            percolateDown(a, left, 0, i);
+        }
+    }
+
+    private static void swap(long[] a, int index1, int index2) {
+        long tmp = a[index1];
+        a[index1] = a[index2];
+        a[index2] = tmp;
+    }
+
+    /**
+     * double 版本先把 NaN 移到数组末尾，剩下的部分直接用 &lt; 比较；-0.0 与 0.0 视为相等
+     */
+    public static void insertionSort(double[] a) {
+        insertionSortRange(a, 0, moveNaNsToEnd(a) - 1);
+    }
+
+    public static void shellSort(double[] a) {
+        shellSortRange(a, 0, moveNaNsToEnd(a) - 1);
+    }
+
+    public static void heapSort(double[] a) {
+        heapSortRange(a, 0, moveNaNsToEnd(a) - 1);
+    }
+
+    public static void mergeSort(double[] a) {
+        int n = moveNaNsToEnd(a);
+        mergeSort(a, new double[n], 0, n - 1);
+    }
+
+    public static void quickSort(double[] a) {
+        int n = moveNaNsToEnd(a);
+        quickSort(a, 0, n - 1, depthLimit(n));
+    }
+
+    public static void insertionSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        insertionSortRange(a, fromIndex, moveNaNsToEnd(a, fromIndex, toIndex) - 1);
+    }
+
+    public static void shellSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        shellSortRange(a, fromIndex, moveNaNsToEnd(a, fromIndex, toIndex) - 1);
+    }
+
+    public static void heapSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        heapSortRange(a, fromIndex, moveNaNsToEnd(a, fromIndex, toIndex) - 1);
+    }
+
+    public static void mergeSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int end = moveNaNsToEnd(a, fromIndex, toIndex);
+        mergeSort(a, new double[end - fromIndex], fromIndex, fromIndex, end - 1);
+    }
+
+    public static void quickSort(double[] a, int fromIndex, int toIndex) {
+        rangeCheck(a.length, fromIndex, toIndex);
+        int end = moveNaNsToEnd(a, fromIndex, toIndex);
+        quickSort(a, fromIndex, end - 1, depthLimit(end - fromIndex));
+    }
+
+    /**
+     * NaN 视为最大，k 落在 NaN 上时返回 NaN
+     */
+    public static double quickSelect(double[] a, int k) {
+        checkIndex(a.length, k);
+        int n = moveNaNsToEnd(a);
+        if (k < n) {
+            select(a, 0, n - 1, k, depthLimit(n));
+        }
+        return a[k];
+    }
+
+    public static void partialSort(double[] a, int k) {
+        checkCount(a.length, k);
+        int n = moveNaNsToEnd(a);
+        partialSort(a, 0, n - 1, Math.min(k, n));
+    }
+
+    /**
+     * 把所有 NaN 交换到数组末尾
+     *
+     * @return 非 NaN 元素的个数
+     */
+    private static int moveNaNsToEnd(double[] a) {
+        return moveNaNsToEnd(a, 0, a.length);
+    }
+
+    /**
+     * 把 a[fromIndex, toIndex) 中的 NaN 交换到区间末尾
+     *
+     * @return 区间内非 NaN 部分的结束下标
+     */
+    private static int moveNaNsToEnd(double[] a, int fromIndex, int toIndex) {
+        int end = toIndex;
+        for (int i = toIndex - 1; i >= fromIndex; i--) {
+            if (a[i] != a[i]) {
+                swap(a, i, --end);
+            }
+        }
+        return end;
+    }
+
+    private static void insertionSortRange(double[] a, int left, int right) {
+        int j;
+        for (int i = left + 1; i <= right; i++) {
+            double temp = a[i];
+            for (j = i; j > left && a[j - 1] > temp; j--) {
+                a[j] = a[j - 1];
+            }
+            a[j] = temp;
+        }
+    }
+
+    private static void shellSortRange(double[] a, int left, int right) {
+        int j;
+        for (int gap = (right - left + 1) / 2; gap > 0; gap = gap / 2) {
+            for (int i = left + gap; i <= right; i++) {
+                double temp = a[i];
+                for (j = i; j - gap >= left && temp < a[j - gap]; j -= gap) {
+                    a[j] = a[j - gap];
+                }
+                a[j] = temp;
+            }
+        }
+    }
+
+    private static void heapSortRange(double[] a, int left, int right) {
+        int n = right - left + 1;
+        for (int i = n / 2 - 1; i >= 0; i--) {
+            percolateDown(a, left, i, n);
+        }
+        for (int i = n - 1; i > 0; i--) {
+            swap(a, left, left + i);
+            percolateDown(a, left, 0, i);
+        }
+    }
+
+    /**
+     * 以 a[base] 为根的 max 堆下滤，i 和 n 都是相对 base 的偏移
+     */
+    private static void percolateDown(double[] a, int base, int i, int n) {
+        int child;
+        double tmp = a[base + i];
+        for (; 2 * i + 1 < n; i = child) {
+            child = 2 * i + 1;
+            if (child != n - 1 && a[base + child] < a[base + child + 1]) {
+                child++;
+            }
+            if (tmp < a[base + child]) {
+                a[base + i] = a[base + child];
+            } else {
+                break;
+            }
+        }
+        a[base + i] = tmp;
+    }
+
+    static void mergeSort(double[] a, double[] tmpArray, int left, int right) {
+        mergeSort(a, tmpArray, 0, left, right);
+    }
+
+    /**
+     * a[i] 在临时数组中对应 tmpArray[i - tmpOffset]，排序一段区间时临时数组只需要区间的长度
+     */
+    private static void mergeSort(double[] a, double[] tmpArray, int tmpOffset, int left, int right) {
+        if (left < right) {
+            int center = (left + right) >>> 1;
+            mergeSort(a, tmpArray, tmpOffset, left, center);
+            mergeSort(a, tmpArray, tmpOffset, center + 1, right);
+            merge(a, tmpArray, tmpOffset, left, center + 1, right);
+        }
+    }
+
+    private static void merge(double[] a, double[] tmpArray, int tmpOffset, int leftPos, int rightPos, int rightEnd) {
+        // 两段已经有序，无需合并
+        if (a[rightPos - 1] <= a[rightPos]) {
+            return;
+        }
+        int leftEnd = rightPos - 1;
+        int tmpPos = leftPos - tmpOffset;
+        int start = leftPos;
+
+        while (leftPos <= leftEnd && rightPos <= rightEnd) {
+            if (a[leftPos] <= a[rightPos]) {
+                tmpArray[tmpPos++] = a[leftPos++];
+            } else {
+                tmpArray[tmpPos++] = a[rightPos++];
+            }
+        }
+        while (leftPos <= leftEnd) {
+            tmpArray[tmpPos++] = a[leftPos++];
+        }
+        while (rightPos <= rightEnd) {
+            tmpArray[tmpPos++] = a[rightPos++];
+        }
+        System.arraycopy(tmpArray, start - tmpOffset, a, start, rightEnd - start + 1);
+    }
+
+    private static void quickSort(double[] a, int left, int right, int depth) {
+        if (right - left < QUICK_SORT_CUTOFF) {
+            insertionSortRange(a, left, right);
+            return;
+        }
+        if (depth == 0) {
+            heapSortRange(a, left, right);
+            return;
+        }
+
+        int third = (right - left) / 3;
+        swap(a, left, left + third);
+        swap(a, right, right - third);
+        if (a[left] > a[right]) {
+            swap(a, left, right);
+        }
+        double p = a[left];
+        double q = a[right];
+
+        int lt = left + 1, gt = right - 1;
+        for (int k = lt; k <= gt; k++) {
+            double x = a[k];
+            if (x < p) {
+                swap(a, k, lt++);
+            } else if (x > q) {
+                while (k < gt && a[gt] > q) {
+                    gt--;
+                }
+                swap(a, k, gt--);
+                if (a[k] < p) {
+                    swap(a, k, lt++);
+                }
+            }
+        }
+        swap(a, left, --lt);
+        swap(a, right, ++gt);
+
+        quickSort(a, left, lt - 1, depth - 1);
+        if (p < q) {
+            quickSort(a, lt + 1, gt - 1, depth - 1);
+        }
+        quickSort(a, gt + 1, right, depth - 1);
+    }
+
+    /**
+     * 三向切分，只继续处理包含下标 k 的一段
+     */
+    private static void select(double[] a, int left, int right, int k, int depth) {
+        while (right - left >= QUICK_SORT_CUTOFF) {
+            if (depth-- == 0) {
+                heapSortRange(a, left, right);
+                return;
+            }
+            median3(a, left, (left + right) >>> 1, right);
+            double v = a[left];
+            int lt = left, gt = right, i = left + 1;
+            while (i <= gt) {
+                double x = a[i];
+                if (x < v) {
+                    swap(a, lt++, i++);
+                } else if (x > v) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+            if (k < lt) {
+                right = lt - 1;
+            } else if (k > gt) {
+                left = gt + 1;
+            } else {
+                return;
+            }
+        }
+        insertionSortRange(a, left, right);
+    }
+
+    private static void median3(double[] a, int lo, int mid, int hi) {
+        if (a[mid] < a[lo]) {
+            swap(a, lo, mid);
+        }
+        if (a[hi] < a[mid]) {
+            swap(a, mid, hi);
+            if (a[mid] < a[lo]) {
+                swap(a, lo, mid);
+            }
+        }
+        swap(a, lo, mid);
+    }
+
+    /**
+     * 与泛型版本的 HeapSort.partialSort 相同，用 k 个元素的 max 堆筛选
+     */
+    private static void partialSort(double[] a, int left, int right, int k) {
+        if (k <= 0) {
+            return;
+        }
+        for (int i = k / 2 - 1; i >= 0; i--) {
+            percolateDown(a, left, i, k);
+        }
+        int budget = k + ((right - left + 1 - k) >>> 3);
+        for (int i = left + k; i <= right; i++) {
+            if (a[i] < a[left]) {
+                if (--budget < 0) {
+                    select(a, left, right, left + k - 1, depthLimit(right - left + 1));
+                    quickSort(a, left, left + k - 1, depthLimit(k));
+                    return;
+                }
+                swap(a, left, i);
+                percolateDown(a, left, 0, k);
+            }
+        }
+        for (int i = k - 1; i > 0; i--) {
+            swap(a, left, left + i);
+            percolateDown(a, left, 0, i);
+        }
+    }
+
+    private static void swap(double[] a, int index1, int index2) {
+        double tmp = a[index1];
+        a[index1] = a[index2];
+        a[index2] = tmp;
+    }
+
+
+    /**
+     * int 的 LSD 基数排序，每趟 8 位，支持负数，所有元素某一字节都相同时跳过该趟
+     *
+     * @param a
+     */
+    public static void radixSort(int[] a) {
+        RadixSort.sort(a, false);
+    }
+
+    public static void radixSort(long[] a) {
+        RadixSort.sort(a, false);
+    }
+
+    /**
+     * 与 radixSort 相同，但各趟的计数统计在 ForkJoinPool 上并行完成
+     *
+     * @param a
+     */
+    public static void parallelRadixSort(int[] a) {
+        RadixSort.sort(a, true);
+    }
+
+    public static void parallelRadixSort(long[] a) {
+        RadixSort.sort(a, true);
+    }
+
+    /**
+     * 按 int 关键字对对象做稳定的基数排序，关键字只提取一次
+     *
+     * @param a
+     * @param key
+     * @param <T>
+     */
+    public static <T> void radixSortByIntKey(T[] a, IntKey<? super T> key) {
+        RadixSort.sortByIntKey(a, key);
+    }
+
+    public static <T> void radixSortByLongKey(T[] a, LongKey<? super T> key) {
+        RadixSort.sortByLongKey(a, key);
+    }
+
+
+    /**
+     * 按 int 关键字返回稳定排序后的下标，a 本身不移动
+     * <p>
+     * 每个元素的关键字只提取一次，放进与下标平行的 int 数组中排序，排序过程中不再访问对象
+     *
+     * @return 下标数组，a[result[0]] 的关键字最小
+     */
+    public static <T> int[] sortedIndexesByIntKey(T[] a, IntKey<? super T> key) {
+        int n = a.length;
+        int[] keys = new int[n];
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.key(a[i]);
+            index[i] = i;
+        }
+        RadixSort.sort(keys, index);
+        return index;
+    }
+
+    public static <T> int[] sortedIndexesByLongKey(T[] a, LongKey<? super T> key) {
+        int n = a.length;
+        long[] keys = new long[n];
+        int[] index = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = key.key(a[i]);
+            index[i] = i;
+        }
+        RadixSort.sort(keys, index);
+        return index;
+    }
+
+
+    /**
+     * 变长字符串的基数排序
+     * <p>
+     * 三向字符串快速排序，按字典序（与 String.compareTo 一致）原地排序，
+     * 不需要预先知道最大长度，支持任意 UTF-16 字符
+     *
+     * @param arr
+     */
+    public static void radixSort(String[] arr) {
+        StringRadixSort.sort(arr);
+    }
+
+
+    /**
+     * @param arr
+     * @param maxLen 不再需要，保留该重载只为兼容旧的调用方
+     * @deprecated 使用 {@link #radixSort(String[])}
+     */
+    @Deprecated
+    public static void radixSort(String[] arr, int maxLen) {
+        radixSort(arr);
     }
 
 }
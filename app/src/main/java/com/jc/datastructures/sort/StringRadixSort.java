@@ -0,0 +1,104 @@
+package com.jc.datastructures.sort;
+
+/**
+ * 三向字符串快速排序（multikey quicksort）
+ * <p>
+ * 按第 d 个字符把区间分成小于、等于、大于三段，小于和大于的两段继续比较第 d 个字符，
+ * 等于的一段比较第 d+1 个字符。原地排序，不需要预先知道最大长度，按 UTF-16 码元比较，
+ * 结果与 String.compareTo 的顺序一致
+ */
+final class StringRadixSort {
+
+    private static final int CUTOFF = 16;
+
+    private StringRadixSort() {
+    }
+
+    static void sort(String[] a) {
+        sort(a, 0, a.length - 1, 0);
+    }
+
+    /**
+     * 字符串结束时返回 -1，保证短串排在以它为前缀的长串之前
+     */
+    private static int charAt(String s, int d) {
+        return d < s.length() ? s.charAt(d) : -1;
+    }
+
+    private static void sort(String[] a, int lo, int hi, int d) {
+        // 等于的一段用循环处理，递归深度只和小于、大于两段有关
+        while (hi - lo >= CUTOFF) {
+            median3(a, lo, (lo + hi) >>> 1, hi, d);
+            int v = charAt(a[lo], d);
+            int lt = lo, gt = hi, i = lo + 1;
+            while (i <= gt) {
+                int t = charAt(a[i], d);
+                if (t < v) {
+                    swap(a, lt++, i++);
+                } else if (t > v) {
+                    swap(a, i, gt--);
+                } else {
+                    i++;
+                }
+            }
+
+            sort(a, lo, lt - 1, d);
+            sort(a, gt + 1, hi, d);
+            if (v < 0) {
+                // 中间一段的字符串都已经结束，完全相等
+                return;
+            }
+            lo = lt;
+            hi = gt;
+            d++;
+        }
+        insertionSort(a, lo, hi, d);
+    }
+
+    /**
+     * 把三个位置中第 d 个字符居中的那个换到 lo
+     */
+    private static void median3(String[] a, int lo, int mid, int hi, int d) {
+        int x = charAt(a[lo], d), y = charAt(a[mid], d), z = charAt(a[hi], d);
+        if ((y <= x) == (x <= z)) {
+            return;
+        }
+        if ((x <= y) == (y <= z)) {
+            swap(a, lo, mid);
+        } else {
+            swap(a, lo, hi);
+        }
+    }
+
+    /**
+     * 前 d 个字符都相同，只比较剩下的部分
+     */
+    private static void insertionSort(String[] a, int lo, int hi, int d) {
+        for (int i = lo + 1; i <= hi; i++) {
+            String tmp = a[i];
+            int j = i;
+            for (; j > lo && less(tmp, a[j - 1], d); j--) {
+                a[j] = a[j - 1];
+            }
+            a[j] = tmp;
+        }
+    }
+
+    private static boolean less(String v, String w, int d) {
+        int n = Math.min(v.length(), w.length());
+        for (int i = d; i < n; i++) {
+            char cv = v.charAt(i);
+            char cw = w.charAt(i);
+            if (cv != cw) {
+                return cv < cw;
+            }
+        }
+        return v.length() < w.length();
+    }
+
+    private static void swap(String[] a, int i, int j) {
+        String tmp = a[i];
+        a[i] = a[j];
+        a[j] = tmp;
+    }
+}
@@ -1,15 +1,54 @@
 package com.jc.datastructures;
 
+import com.jc.datastructures.hashing.ArrayChainingHashTable;
+import com.jc.datastructures.hashing.BlockedBloomFilter;
+import com.jc.datastructures.hashing.BucketizedCuckooHashTable;
+import com.jc.datastructures.hashing.ConcurrentCuckooHashTable;
+import com.jc.datastructures.hashing.ConcurrentSeparateChainingHashTable;
+import com.jc.datastructures.hashing.CuckooFilter;
+import com.jc.datastructures.hashing.CuckooHashMap;
 import com.jc.datastructures.hashing.CuckooHashTable;
+import com.jc.datastructures.hashing.HashFunctions;
+import com.jc.datastructures.hashing.HashTableSnapshot;
+import com.jc.datastructures.hashing.IntHashSet;
+import com.jc.datastructures.hashing.IntIntHashMap;
+import com.jc.datastructures.hashing.LongHashSet;
+import com.jc.datastructures.hashing.LongLongHashMap;
+import com.jc.datastructures.hashing.OffHeapLongLongHashMap;
+import com.jc.datastructures.hashing.QuadraticProbingHashMap;
 import com.jc.datastructures.hashing.QuadraticProbingHashTable;
+import com.jc.datastructures.hashing.RobinHoodHashTable;
 import com.jc.datastructures.hashing.SeparateChainingHashTable;
+import com.jc.datastructures.hashing.SwissHashMap;
+import com.jc.datastructures.hashing.UniversalHashFamily;
 import com.jc.datastructures.heap.BinaryHeap;
+import com.jc.datastructures.heap.BinomialQueue;
 import com.jc.datastructures.heap.LeftistHeap;
+import com.jc.datastructures.sort.ExternalSort;
 import com.jc.datastructures.sort.Sort;
 import com.jc.datastructures.tree.AvlTree;
 import com.jc.datastructures.tree.BinarySearchTree;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 
 public class ExampleTest {
@@ -173,7 +212,8 @@ public class ExampleTest {
 
         cumulative += endTime - startTime;
 
-        if (H.capacity() > NUMS * 4)
+        // 数组长度是 2 的幂，装填因子 0.4 时 NUMS 个元素需要 NUMS / 0.4 向上取到 2 的幂
+        if (H.capacity() > Integer.highestOneBit((int) (NUMS / 0.4) - 1) << 1)
             System.out.println("LARGE CAPACITY " + H.capacity());
 
 
@@ -221,6 +261,26 @@ public class ExampleTest {
     }
 
 
+    @org.junit.Test
+    public void binomialQueue() {
+        int numItems = 10000;
+        BinomialQueue<Integer> h = new BinomialQueue<>();
+        BinomialQueue<Integer> h1 = new BinomialQueue<>();
+        int i = 37;
+
+        for (i = 37; i != 0; i = (i + 37) % numItems)
+            if (i % 2 == 0)
+                h1.insert(i);
+            else
+                h.insert(i);
+
+        h.merge(h1);
+        for (i = 1; i < numItems; i++)
+            assertEquals(i, (int) h.deleteMin());
+        assertTrue(h.isEmpty());
+    }
+
+
     @org.junit.Test
     public void sort() {
         final int NUM_ITEMS = 1000;
@@ -268,6 +328,1280 @@ public class ExampleTest {
     }
 
 
+    @org.junit.Test
+    public void primitiveSort() {
+        Random r = new Random(7);
+        for (int n : new int[]{0, 1, 2, 11, 1000, 20000}) {
+            int[] ints = new int[n];
+            long[] longs = new long[n];
+            double[] doubles = new double[n];
+            for (int i = 0; i < n; i++) {
+                ints[i] = i % 3 == 0 ? r.nextInt(10) : r.nextInt();
+                longs[i] = r.nextLong();
+                doubles[i] = i % 97 == 0 ? Double.NaN : r.nextGaussian();
+            }
+            int[] expectedInts = ints.clone();
+            long[] expectedLongs = longs.clone();
+            double[] expectedDoubles = doubles.clone();
+            Arrays.sort(expectedInts);
+            Arrays.sort(expectedLongs);
+            Arrays.sort(expectedDoubles);
+
+            for (int which = 0; which < 5; which++) {
+                int[] ia = ints.clone();
+                long[] la = longs.clone();
+                double[] da = doubles.clone();
+                switch (which) {
+                    case 0:
+                        Sort.insertionSort(ia);
+                        Sort.insertionSort(la);
+                        Sort.insertionSort(da);
+                        break;
+                    case 1:
+                        Sort.shellSort(ia);
+                        Sort.shellSort(la);
+                        Sort.shellSort(da);
+                        break;
+                    case 2:
+                        Sort.heapSort(ia);
+                        Sort.heapSort(la);
+                        Sort.heapSort(da);
+                        break;
+                    case 3:
+                        Sort.mergeSort(ia);
+                        Sort.mergeSort(la);
+                        Sort.mergeSort(da);
+                        break;
+                    default:
+                        Sort.quickSort(ia);
+                        Sort.quickSort(la);
+                        Sort.quickSort(da);
+                        break;
+                }
+                assertArrayEquals(expectedInts, ia);
+                assertArrayEquals(expectedLongs, la);
+                assertArrayEquals(expectedDoubles, da, 0);
+            }
+        }
+    }
+
+
+    @org.junit.Test
+    public void parallelMergeSort() {
+        Random r = new Random(11);
+        for (int n : new int[]{0, 1, 100, 100000}) {
+            int[] ints = new int[n];
+            long[] longs = new long[n];
+            double[] doubles = new double[n];
+            Test[] objects = new Test[n];
+            for (int i = 0; i < n; i++) {
+                ints[i] = r.nextInt();
+                longs[i] = r.nextLong();
+                doubles[i] = i % 1000 == 0 ? Double.NaN : r.nextDouble();
+                objects[i] = new Test(r.nextInt(50));
+            }
+            int[] expectedInts = ints.clone();
+            long[] expectedLongs = longs.clone();
+            double[] expectedDoubles = doubles.clone();
+            Test[] expectedObjects = objects.clone();
+            Arrays.sort(expectedInts);
+            Arrays.sort(expectedLongs);
+            Arrays.sort(expectedDoubles);
+            // Arrays.sort 对对象是稳定排序，可以直接比较引用
+            Arrays.sort(expectedObjects);
+
+            Sort.parallelMergeSort(ints, 16);
+            Sort.parallelMergeSort(longs);
+            Sort.parallelMergeSort(doubles, 64);
+            Sort.parallelMergeSort(objects, 16);
+            assertArrayEquals(expectedInts, ints);
+            assertArrayEquals(expectedLongs, longs);
+            assertArrayEquals(expectedDoubles, doubles, 0);
+            assertArrayEquals(expectedObjects, objects);
+        }
+    }
+
+
+    @org.junit.Test
+    public void quickSortAdversarialInputs() {
+        final int n = 200000;
+        int[][] inputs = new int[5][n];
+        Random r = new Random(3);
+        for (int i = 0; i < n; i++) {
+            inputs[0][i] = i;
+            inputs[1][i] = n - i;
+            inputs[2][i] = 7;
+            inputs[3][i] = r.nextInt(3);
+            // 锯齿形输入
+            inputs[4][i] = i % 2 == 0 ? i : n - i;
+        }
+        for (int[] input : inputs) {
+            int[] expected = input.clone();
+            Arrays.sort(expected);
+
+            int[] a = input.clone();
+            Sort.quickSort(a);
+            assertArrayEquals(expected, a);
+
+            Integer[] boxed = new Integer[n];
+            for (int i = 0; i < n; i++)
+                boxed[i] = input[i];
+            Sort.quickSort(boxed);
+            for (int i = 0; i < n; i++)
+                assertEquals(expected[i], (int) boxed[i]);
+        }
+    }
+
+
+    @org.junit.Test
+    public void timSort() {
+        Random r = new Random(5);
+        for (int n : new int[]{0, 1, 31, 1000, 100000}) {
+            Test[][] inputs = new Test[4][n];
+            for (int i = 0; i < n; i++) {
+                inputs[0][i] = new Test(r.nextInt(100));
+                inputs[1][i] = new Test(i / 3);
+                inputs[2][i] = new Test(n - i / 3);
+                // 多段有序的数据，模拟追加写入的日志
+                inputs[3][i] = new Test(i % 5000 + (i / 5000 % 2 == 0 ? 0 : r.nextInt(10)));
+            }
+            for (Test[] input : inputs) {
+                Test[] expected = input.clone();
+                Arrays.sort(expected);
+                Sort.timSort(input);
+                assertArrayEquals(expected, input);
+            }
+        }
+    }
+
+
+    @org.junit.Test
+    public void integerRadixSort() {
+        Random r = new Random(13);
+        for (int n : new int[]{0, 1, 63, 1000, 300000}) {
+            int[] ints = new int[n];
+            long[] longs = new long[n];
+            int[] small = new int[n];
+            Test[] objects = new Test[n];
+            for (int i = 0; i < n; i++) {
+                ints[i] = r.nextInt();
+                longs[i] = r.nextLong() >> r.nextInt(64);
+                small[i] = r.nextInt(200) - 100;
+                objects[i] = new Test(r.nextInt(1000) - 500);
+            }
+            int[] expectedInts = ints.clone();
+            long[] expectedLongs = longs.clone();
+            int[] expectedSmall = small.clone();
+            Test[] expectedObjects = objects.clone();
+            Arrays.sort(expectedInts);
+            Arrays.sort(expectedLongs);
+            Arrays.sort(expectedSmall);
+            Arrays.sort(expectedObjects);
+
+            int[] parallelInts = ints.clone();
+            long[] parallelLongs = longs.clone();
+            Sort.radixSort(ints);
+            Sort.radixSort(longs);
+            Sort.radixSort(small);
+            Sort.parallelRadixSort(parallelInts);
+            Sort.parallelRadixSort(parallelLongs);
+            Test[] byLongKey = objects.clone();
+            Sort.radixSortByIntKey(objects, new Sort.IntKey<Test>() {
+                @Override
+                public int key(Test x) {
+                    return x.node;
+                }
+            });
+            Sort.radixSortByLongKey(byLongKey, new Sort.LongKey<Test>() {
+                @Override
+                public long key(Test x) {
+                    return x.node;
+                }
+            });
+            assertArrayEquals(expectedInts, ints);
+            assertArrayEquals(expectedLongs, longs);
+            assertArrayEquals(expectedSmall, small);
+            assertArrayEquals(expectedInts, parallelInts);
+            assertArrayEquals(expectedLongs, parallelLongs);
+            assertArrayEquals(expectedObjects, objects);
+            assertArrayEquals(expectedObjects, byLongKey);
+        }
+    }
+
+
+    @org.junit.Test
+    public void stringRadixSort() {
+        Random r = new Random(17);
+        for (int n : new int[]{0, 1, 15, 1000, 50000}) {
+            String[] a = new String[n];
+            for (int i = 0; i < n; i++) {
+                StringBuilder sb = new StringBuilder();
+                int len = r.nextInt(12);
+                for (int j = 0; j < len; j++) {
+                    switch (r.nextInt(4)) {
+                        case 0:
+                            sb.append((char) ('a' + r.nextInt(3)));
+                            break;
+                        case 1:
+                            sb.append((char) (0x4e00 + r.nextInt(50)));
+                            break;
+                        case 2:
+                            // 代理对
+                            sb.appendCodePoint(0x1F600 + r.nextInt(5));
+                            break;
+                        default:
+                            sb.append((char) r.nextInt(0x10000));
+                            break;
+                    }
+                }
+                a[i] = i % 10 == 0 && i > 0 ? a[i - 1] : sb.toString();
+            }
+            String[] expected = a.clone();
+            Arrays.sort(expected);
+            Sort.radixSort(a);
+            assertArrayEquals(expected, a);
+        }
+    }
+
+
+    @org.junit.Test
+    public void externalSort() throws IOException {
+        final int recordSize = 16;
+        final int n = 20000;
+        File input = File.createTempFile("external-sort-in", ".dat");
+        File output = File.createTempFile("external-sort-out", ".dat");
+        try {
+            // 记录 = 8 字节序号 + 8 字节 key，key 在偏移 8 处
+            Random r = new Random(19);
+            long[] keys = new long[n];
+            ByteBuffer buf = ByteBuffer.allocate(n * recordSize);
+            for (int i = 0; i < n; i++) {
+                keys[i] = r.nextInt(5000) - 2500;
+                buf.putLong(i).putLong(keys[i]);
+            }
+            FileOutputStream os = new FileOutputStream(input);
+            os.write(buf.array());
+            os.close();
+
+            // 预算很小，强制生成大量 run 并多趟归并
+            new ExternalSort(recordSize, 8, 4096, null).sort(input, output);
+
+            byte[] bytes = new byte[(int) output.length()];
+            FileInputStream in = new FileInputStream(output);
+            int read = 0;
+            while (read < bytes.length)
+                read += in.read(bytes, read, bytes.length - read);
+            in.close();
+
+            assertEquals(n * recordSize, bytes.length);
+            ByteBuffer sorted = ByteBuffer.wrap(bytes);
+            Arrays.sort(keys);
+            long lastSeq = -1;
+            for (int i = 0; i < n; i++) {
+                long seq = sorted.getLong();
+                long key = sorted.getLong();
+                assertEquals(keys[i], key);
+                // 相同 key 保持输入顺序
+                if (i > 0 && keys[i - 1] == key)
+                    assertTrue(seq > lastSeq);
+                lastSeq = seq;
+            }
+
+            // 最后一趟归并失败时，之前各趟生成的临时 run 也要删除
+            File runDirectory = File.createTempFile("external-sort-runs", "");
+            assertTrue(runDirectory.delete() && runDirectory.mkdir());
+            try {
+                new ExternalSort(recordSize, 8, 4096, runDirectory)
+                        .sort(input, new File(runDirectory, "missing/out.dat"));
+                fail("output directory does not exist");
+            } catch (IOException expected) {
+                assertEquals(0, runDirectory.list().length);
+            } finally {
+                runDirectory.delete();
+            }
+        } finally {
+            input.delete();
+            output.delete();
+        }
+    }
+
+
+    @org.junit.Test
+    public void comparatorSort() {
+        // 按 node 降序，没有实现 Comparable 的对象也可以排序
+        Comparator<Test> byNodeDesc = new Comparator<Test>() {
+            @Override
+            public int compare(Test x, Test y) {
+                return y.node < x.node ? -1 : y.node == x.node ? 0 : 1;
+            }
+        };
+        Random r = new Random(23);
+        Test[] input = new Test[5000];
+        for (int i = 0; i < input.length; i++)
+            input[i] = new Test(r.nextInt(300));
+        Test[] expected = input.clone();
+        Arrays.sort(expected, byNodeDesc);
+
+        for (int which = 0; which < 7; which++) {
+            Test[] a = input.clone();
+            switch (which) {
+                case 0:
+                    Sort.insertionSort(a, byNodeDesc);
+                    break;
+                case 1:
+                    Sort.shellSort(a, byNodeDesc);
+                    break;
+                case 2:
+                    Sort.heapSort(a, byNodeDesc);
+                    break;
+                case 3:
+                    Sort.mergeSort(a, byNodeDesc);
+                    break;
+                case 4:
+                    Sort.quickSort(a, byNodeDesc);
+                    break;
+                case 5:
+                    Sort.timSort(a, byNodeDesc);
+                    break;
+                default:
+                    Sort.parallelMergeSort(a, byNodeDesc, 64);
+                    break;
+            }
+            for (int i = 0; i < a.length; i++)
+                assertEquals(expected[i].node, a[i].node);
+            // 稳定的算法结果应与 Arrays.sort 完全一致
+            if (which == 0 || which == 3 || which >= 5)
+                assertArrayEquals(expected, a);
+        }
+
+        int[] index = Sort.sortedIndexesByIntKey(input, new Sort.IntKey<Test>() {
+            @Override
+            public int key(Test x) {
+                return -x.node;
+            }
+        });
+        for (int i = 0; i < index.length; i++)
+            assertTrue(expected[i] == input[index[i]]);
+        index = Sort.sortedIndexesByLongKey(input, new Sort.LongKey<Test>() {
+            @Override
+            public long key(Test x) {
+                return -x.node;
+            }
+        });
+        for (int i = 0; i < index.length; i++)
+            assertTrue(expected[i] == input[index[i]]);
+    }
+
+    @org.junit.Test
+    public void rangeSort() {
+        Random r = new Random(31);
+        int n = 3000, from = 217, to = 2600;
+        Integer[] boxed = new Integer[n];
+        int[] ints = new int[n];
+        double[] doubles = new double[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = r.nextInt(500);
+            ints[i] = r.nextInt();
+            doubles[i] = i % 50 == 0 ? Double.NaN : r.nextDouble();
+        }
+        Integer[] expectedBoxed = boxed.clone();
+        int[] expectedInts = ints.clone();
+        double[] expectedDoubles = doubles.clone();
+        Arrays.sort(expectedBoxed, from, to);
+        Arrays.sort(expectedInts, from, to);
+        Arrays.sort(expectedDoubles, from, to);
+
+        for (int which = 0; which < 6; which++) {
+            Integer[] a = boxed.clone();
+            int[] ia = ints.clone();
+            double[] da = doubles.clone();
+            switch (which) {
+                case 0:
+                    Sort.insertionSort(a, from, to);
+                    Sort.insertionSort(ia, from, to);
+                    Sort.insertionSort(da, from, to);
+                    break;
+                case 1:
+                    Sort.shellSort(a, from, to);
+                    Sort.shellSort(ia, from, to);
+                    Sort.shellSort(da, from, to);
+                    break;
+                case 2:
+                    Sort.heapSort(a, from, to);
+                    Sort.heapSort(ia, from, to);
+                    Sort.heapSort(da, from, to);
+                    break;
+                case 3:
+                    Sort.mergeSort(a, from, to);
+                    Sort.mergeSort(ia, from, to);
+                    Sort.mergeSort(da, from, to);
+                    break;
+                case 4:
+                    Sort.quickSort(a, from, to);
+                    Sort.quickSort(ia, from, to);
+                    Sort.quickSort(da, from, to);
+                    break;
+                default:
+                    // 基本类型没有 timSort，只检查对象数组
+                    Sort.timSort(a, from, to);
+                    ia = expectedInts;
+                    da = expectedDoubles;
+                    break;
+            }
+            assertArrayEquals(expectedBoxed, a);
+            assertArrayEquals(expectedInts, ia);
+            assertArrayEquals(expectedDoubles, da, 0);
+        }
+
+        Sort.quickSort(ints, 5, 5);
+        try {
+            Sort.quickSort(ints, 10, 5);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            Sort.mergeSort(boxed, 0, n + 1);
+            fail();
+        } catch (ArrayIndexOutOfBoundsException expected) {
+        }
+    }
+
+    @org.junit.Test
+    public void selection() {
+        Random r = new Random(37);
+        for (int n : new int[]{1, 20, 1000, 50000}) {
+            Integer[] boxed = new Integer[n];
+            int[] ints = new int[n];
+            long[] longs = new long[n];
+            double[] doubles = new double[n];
+            for (int i = 0; i < n; i++) {
+                boxed[i] = r.nextInt(n);
+                ints[i] = i % 2 == 0 ? r.nextInt(10) : r.nextInt();
+                longs[i] = r.nextLong();
+                doubles[i] = i % 101 == 0 ? Double.NaN : r.nextGaussian();
+            }
+            Integer[] sortedBoxed = boxed.clone();
+            int[] sortedInts = ints.clone();
+            long[] sortedLongs = longs.clone();
+            double[] sortedDoubles = doubles.clone();
+            Arrays.sort(sortedBoxed);
+            Arrays.sort(sortedInts);
+            Arrays.sort(sortedLongs);
+            Arrays.sort(sortedDoubles);
+
+            for (int k : new int[]{0, n / 3, n / 2, n - 1}) {
+                Integer[] a = boxed.clone();
+                assertEquals(sortedBoxed[k], Sort.quickSelect(a, k));
+                for (int i = 0; i < n; i++)
+                    assertTrue(i < k ? a[i] <= a[k] : a[i] >= a[k]);
+                int[] ia = ints.clone();
+                assertEquals(sortedInts[k], Sort.quickSelect(ia, k));
+                for (int i = 0; i < n; i++)
+                    assertTrue(i < k ? ia[i] <= ia[k] : ia[i] >= ia[k]);
+                assertEquals(sortedLongs[k], Sort.quickSelect(longs.clone(), k));
+                assertEquals(sortedDoubles[k], Sort.quickSelect(doubles.clone(), k), 0);
+            }
+
+            for (int k : new int[]{0, 1, Math.min(100, n), n}) {
+                Integer[] a = boxed.clone();
+                int[] ia = ints.clone();
+                long[] la = longs.clone();
+                double[] da = doubles.clone();
+                Sort.partialSort(a, k);
+                Sort.partialSort(ia, k);
+                Sort.partialSort(la, k);
+                Sort.partialSort(da, k);
+                assertArrayEquals(Arrays.copyOf(sortedBoxed, k), Arrays.copyOf(a, k));
+                assertArrayEquals(Arrays.copyOf(sortedInts, k), Arrays.copyOf(ia, k));
+                assertArrayEquals(Arrays.copyOf(sortedLongs, k), Arrays.copyOf(la, k));
+                assertArrayEquals(Arrays.copyOf(sortedDoubles, k), Arrays.copyOf(da, k), 0);
+            }
+        }
+
+        // 大量重复与有序输入不会退化
+        int[] same = new int[100000];
+        assertEquals(0, Sort.quickSelect(same, 50000));
+        Integer[] ascending = new Integer[100000];
+        for (int i = 0; i < ascending.length; i++)
+            ascending[i] = i;
+        assertEquals(Integer.valueOf(77777), Sort.quickSelect(ascending, 77777));
+
+        // 逆序输入每个元素都会替换堆顶，应转为快速选择
+        Integer[] descending = new Integer[100000];
+        int[] descendingInts = new int[100000];
+        for (int i = 0; i < descending.length; i++) {
+            descending[i] = descending.length - 1 - i;
+            descendingInts[i] = descending.length - 1 - i;
+        }
+        Sort.partialSort(descending, 100);
+        Sort.partialSort(descendingInts, 100);
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i, descending[i].intValue());
+            assertEquals(i, descendingInts[i]);
+        }
+    }
+
+
+    @org.junit.Test
+    public void primitiveHashSet() {
+        Random r = new Random(41);
+        IntHashSet ints = new IntHashSet(4);
+        LongHashSet longs = new LongHashSet(4, 0.5f);
+        IntIntHashMap intMap = new IntIntHashMap();
+        LongLongHashMap longMap = new LongLongHashMap();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 200000; i++) {
+            // 范围很小，保证大量重复插入和删除，也覆盖 0 与负数
+            int x = r.nextInt(20000) - 10000;
+            long y = (long) x << 33;
+            if (r.nextInt(3) == 0) {
+                boolean removed = expected.remove(x) != null;
+                assertEquals(removed, ints.remove(x));
+                assertEquals(removed, longs.remove(y));
+                assertEquals(removed, intMap.remove(x));
+                assertEquals(removed, longMap.remove(y));
+            } else {
+                boolean added = expected.put(x, i) == null;
+                assertEquals(added, ints.insert(x));
+                assertEquals(added, longs.insert(y));
+                assertEquals(added, intMap.put(x, i));
+                assertEquals(added, longMap.put(y, i));
+            }
+        }
+        assertEquals(expected.size(), ints.size());
+        assertEquals(expected.size(), longs.size());
+        assertEquals(expected.size(), intMap.size());
+        assertEquals(expected.size(), longMap.size());
+        for (int x = -10000; x < 10000; x++) {
+            long y = (long) x << 33;
+            Integer v = expected.get(x);
+            assertEquals(v != null, ints.contains(x));
+            assertEquals(v != null, longs.contains(y));
+            assertEquals(v != null, intMap.containsKey(x));
+            assertEquals(v == null ? -1 : v, intMap.get(x, -1));
+            assertEquals(v == null ? -1 : v, longMap.get(y, -1));
+        }
+
+        ints.makeEmpty();
+        assertTrue(ints.isEmpty());
+        assertTrue(!ints.contains(0));
+        assertTrue(ints.insert(0));
+    }
+
+
+    @org.junit.Test
+    public void robinHoodHashTable() {
+        Random r = new Random(43);
+        RobinHoodHashTable<String> table = new RobinHoodHashTable<>();
+        HashSet<String> expected = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            String x = "" + r.nextInt(5000);
+            if (r.nextBoolean())
+                assertEquals(expected.add(x), table.insert(x));
+            else
+                assertEquals(expected.remove(x), table.remove(x));
+        }
+        assertEquals(expected.size(), table.size());
+        for (int i = 0; i < 5000; i++)
+            assertEquals(expected.contains("" + i), table.contains("" + i));
+
+        // 删除不留标记：元素个数不变时反复插入删除不会触发扩容
+        RobinHoodHashTable<Integer> churn = new RobinHoodHashTable<>(1000);
+        int capacity = churn.capacity();
+        for (int i = 0; i < 1000000; i++) {
+            churn.insert(i);
+            if (i >= 1000)
+                assertTrue(churn.remove(i - 1000));
+        }
+        assertEquals(1000, churn.size());
+        assertEquals(capacity, churn.capacity());
+        for (int i = 1000000 - 1000; i < 1000000; i++)
+            assertTrue(churn.contains(i));
+    }
+
+
+    @org.junit.Test
+    public void swissHashMap() {
+        Random r = new Random(47);
+        SwissHashMap<Integer, Integer> map = new SwissHashMap<>();
+        HashMap<Integer, Integer> expected = new HashMap<>();
+        for (int i = 0; i < 300000; i++) {
+            // 低位全为 0 的 key，检验散列混合与 tag 冲突
+            Integer x = r.nextInt(4000) << 12;
+            if (r.nextInt(3) == 0)
+                assertEquals(expected.remove(x), map.remove(x));
+            else
+                assertEquals(expected.put(x, i), map.put(x, i));
+        }
+        assertEquals(expected.size(), map.size());
+        for (int i = 0; i < 4000; i++) {
+            Integer x = i << 12;
+            assertEquals(expected.get(x), map.get(x));
+            assertEquals(expected.containsKey(x), map.containsKey(x));
+        }
+
+        // 大量删除后删除标记会被清理，容量不会一直增长
+        SwissHashMap<Integer, String> churn = new SwissHashMap<>(1000);
+        for (int i = 0; i < 1000000; i++) {
+            churn.put(i, "");
+            if (i >= 1000)
+                assertEquals("", churn.remove(i - 1000));
+        }
+        assertEquals(1000, churn.size());
+        assertTrue(churn.capacity() <= 4096);
+        churn.makeEmpty();
+        assertTrue(churn.isEmpty());
+        assertEquals(null, churn.get(999999));
+    }
+
+
+    @org.junit.Test
+    public void concurrentSeparateChainingHashTable() throws Exception {
+        final ConcurrentSeparateChainingHashTable<Integer> table = new ConcurrentSeparateChainingHashTable<>(16, 4);
+        final int threads = 4, perThread = 50000;
+        final AtomicBoolean failed = new AtomicBoolean();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    // 各线程写互不相交的区间，插入后立即可见，删除奇数后不可见
+                    for (int i = base; i < base + perThread; i++) {
+                        if (!table.insert(i) || !table.contains(i))
+                            failed.set(true);
+                    }
+                    for (int i = base + 1; i < base + perThread; i += 2) {
+                        if (!table.remove(i) || table.contains(i))
+                            failed.set(true);
+                    }
+                }
+            };
+        }
+        for (Thread w : workers)
+            w.start();
+        for (Thread w : workers)
+            w.join();
+
+        assertTrue(!failed.get());
+        assertEquals(threads * perThread / 2, table.size());
+        assertTrue(table.capacity() >= threads * perThread / 2);
+        for (int i = 0; i < threads * perThread; i++)
+            assertEquals(i % 2 == 0, table.contains(i));
+        table.makeEmpty();
+        assertEquals(0, table.size());
+        assertTrue(!table.contains(0));
+    }
+
+    @org.junit.Test
+    public void concurrentCuckooHashTable() throws Exception {
+        final ConcurrentCuckooHashTable<String> table = new ConcurrentCuckooHashTable<>(new StringHashFimily(2), 16);
+        final int threads = 4, perThread = 30000, stable = 1000;
+        for (int i = 0; i < stable; i++)
+            assertTrue(table.insert("s" + i));
+        final AtomicBoolean failed = new AtomicBoolean();
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                // 写线程不断踢出和扩容，始终在表中的元素不能读不到
+                while (!done.get()) {
+                    for (int i = 0; i < stable; i++) {
+                        if (!table.contains("s" + i))
+                            failed.set(true);
+                    }
+                }
+            }
+        };
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final int base = t * perThread;
+            workers[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = base; i < base + perThread; i++) {
+                        if (!table.insert("k" + i) || !table.contains("k" + i))
+                            failed.set(true);
+                    }
+                    for (int i = base + 1; i < base + perThread; i += 2) {
+                        if (!table.remove("k" + i) || table.contains("k" + i))
+                            failed.set(true);
+                    }
+                }
+            };
+        }
+        reader.start();
+        for (Thread w : workers)
+            w.start();
+        for (Thread w : workers)
+            w.join();
+        done.set(true);
+        reader.join();
+
+        assertTrue(!failed.get());
+        assertEquals(stable + threads * perThread / 2, table.size());
+        for (int i = 0; i < threads * perThread; i++)
+            assertEquals(i % 2 == 0, table.contains("k" + i));
+        assertTrue(!table.insert("s0"));
+        table.makeEmpty();
+        assertEquals(0, table.size());
+        assertTrue(!table.contains("s0"));
+    }
+
+    @org.junit.Test
+    public void bucketizedCuckooHashTable() {
+        BucketizedCuckooHashTable<String> H = new BucketizedCuckooHashTable<>(new StringHashFimily(2), 1000);
+        int capacity = H.capacity();
+        int n = (int) (capacity * 0.9);
+        // 装到 90% 不应该扩容
+        for (int i = 0; i < n; i++)
+            assertTrue(H.insert("" + i));
+        assertEquals(capacity, H.capacity());
+        assertEquals(n, H.size());
+        assertTrue(!H.insert("0"));
+
+        final int NUMS = 200000;
+        for (int i = n; i < NUMS; i++)
+            assertTrue(H.insert("" + i));
+        for (int i = 1; i < NUMS; i += 2)
+            assertTrue(H.remove("" + i));
+        assertEquals(NUMS / 2, H.size());
+        for (int i = 0; i < NUMS; i++)
+            assertEquals(i % 2 == 0, H.contains("" + i));
+        H.makeEmpty();
+        assertEquals(0, H.size());
+        assertTrue(!H.contains("0"));
+    }
+
+    @org.junit.Test
+    public void incrementalResize() {
+        SeparateChainingHashTable<Integer> chaining = new SeparateChainingHashTable<>(11, true);
+        QuadraticProbingHashTable<Integer> probing = new QuadraticProbingHashTable<>(11, true);
+        CuckooHashTable<String> cuckoo = new CuckooHashTable<>(new StringHashFimily(3), 11, true);
+        final int NUMS = 200000;
+        for (int i = 0; i < NUMS; i++) {
+            chaining.insert(i);
+            assertTrue(probing.insert(i));
+            assertTrue(cuckoo.insert("" + i));
+            // 迁移进行中，刚插入的和更早插入的都要能找到，重复插入要被拒绝
+            assertTrue(chaining.contains(i / 2) && probing.contains(i / 2) && cuckoo.contains("" + (i / 2)));
+            assertTrue(!probing.insert(i / 2) && !cuckoo.insert("" + (i / 2)));
+            if (i % 3 == 0) {
+                chaining.remove(i / 3);
+                probing.remove(i / 3);
+                assertTrue(cuckoo.remove("" + (i / 3)));
+                chaining.insert(i / 3);
+                probing.insert(i / 3);
+                cuckoo.insert("" + (i / 3));
+            }
+        }
+        assertEquals(NUMS, cuckoo.size());
+        for (int i = 1; i < NUMS; i += 2) {
+            chaining.remove(i);
+            probing.remove(i);
+            assertTrue(cuckoo.remove("" + i));
+        }
+        for (int i = 0; i < NUMS; i++) {
+            assertEquals(i % 2 == 0, chaining.contains(i));
+            assertEquals(i % 2 == 0, probing.contains(i));
+            assertEquals(i % 2 == 0, cuckoo.contains("" + i));
+        }
+        assertEquals(NUMS / 2, cuckoo.size());
+    }
+
+    @org.junit.Test
+    public void hashStrategies() {
+        List<HashFunctions.Strategy<Integer>> strategies = Arrays.asList(HashFunctions.<Integer>identity(),
+                HashFunctions.<Integer>fibonacci(), HashFunctions.<Integer>murmur3(), HashFunctions.<Integer>xxHash());
+        for (HashFunctions.Strategy<Integer> strategy : strategies) {
+            SeparateChainingHashTable<Integer> chaining = new SeparateChainingHashTable<>(16, 1.0f, false, strategy);
+            QuadraticProbingHashTable<Integer> probing = new QuadraticProbingHashTable<>(16, 0.5f, false, strategy);
+            // 低 10 位全为 0 的 key，掩码取低位时只能靠策略混合
+            for (int i = 0; i < 20000; i++) {
+                chaining.insert(i << 10);
+                assertTrue(probing.insert(i << 10));
+            }
+            for (int i = 0; i < 20000; i++) {
+                assertTrue(chaining.contains(i << 10) && probing.contains(i << 10));
+                assertTrue(!chaining.contains((i << 10) + 1) && !probing.contains((i << 10) + 1));
+            }
+        }
+
+        // 终结函数是双射，不同的输入不会冲突
+        HashSet<Integer> seen = new HashSet<>();
+        for (int i = 0; i < 100000; i++) {
+            assertTrue(seen.add(HashFunctions.fmix32(i)));
+        }
+        assertEquals(0L, HashFunctions.fmix64(0L));
+
+        UniversalHashFamily<String> f1 = new UniversalHashFamily<>(2, 7L);
+        UniversalHashFamily<String> f2 = new UniversalHashFamily<>(2, 7L);
+        assertEquals(f1.hash("abc", 0), f2.hash("abc", 0));
+        assertEquals(f1.hash("abc", 1), f2.hash("abc", 1));
+        assertTrue(f1.hash("abc", 0) != f1.hash("abc", 1));
+
+        CuckooHashTable<Integer> cuckoo = new CuckooHashTable<>();
+        for (int i = 0; i < 100000; i++)
+            assertTrue(cuckoo.insert(i << 10));
+        for (int i = 0; i < 100000; i++)
+            assertTrue(cuckoo.contains(i << 10) && !cuckoo.contains((i << 10) + 1));
+        assertEquals(100000, cuckoo.size());
+        assertEquals(Integer.bitCount(cuckoo.capacity()), 1);
+    }
+
+    @org.junit.Test
+    public void capacityPlanning() {
+        final int n = 50000;
+        SeparateChainingHashTable<Integer> chaining = new SeparateChainingHashTable<>(n, 2.0f);
+        QuadraticProbingHashTable<Integer> probing = new QuadraticProbingHashTable<>(n, 0.7f);
+        CuckooHashTable<Integer> cuckoo = new CuckooHashTable<>(new UniversalHashFamily<Integer>(3, 1L), n, 0.5f);
+        int[] capacities = {chaining.capacity(), probing.capacity(), cuckoo.capacity()};
+        assertTrue(capacities[0] * 2.0 >= n && capacities[1] * 0.7 >= n && capacities[2] * 0.5 >= n);
+        // 按预计大小构造后批量插入不会扩容
+        for (int i = 0; i < n; i++) {
+            chaining.insert(i);
+            probing.insert(i);
+            cuckoo.insert(i);
+        }
+        assertArrayEquals(capacities, new int[]{chaining.capacity(), probing.capacity(), cuckoo.capacity()});
+        assertEquals(n, chaining.size());
+
+        chaining.ensureCapacity(4 * n);
+        probing.ensureCapacity(4 * n);
+        cuckoo.ensureCapacity(4 * n);
+        capacities = new int[]{chaining.capacity(), probing.capacity(), cuckoo.capacity()};
+        for (int i = n; i < 4 * n; i++) {
+            chaining.insert(i);
+            probing.insert(i);
+            cuckoo.insert(i);
+        }
+        assertArrayEquals(capacities, new int[]{chaining.capacity(), probing.capacity(), cuckoo.capacity()});
+        for (int i = 0; i < 4 * n; i++)
+            assertTrue(chaining.contains(i) && probing.contains(i) && cuckoo.contains(i));
+        assertEquals(4 * n, cuckoo.size());
+
+        // 容量已经足够时不做任何事
+        chaining.ensureCapacity(10);
+        assertEquals(capacities[0], chaining.capacity());
+        try {
+            new QuadraticProbingHashTable<Integer>(10, 1.5f);
+            fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @org.junit.Test
+    public void arrayChainingHashTable() {
+        ArrayChainingHashTable<String> H = new ArrayChainingHashTable<>(4);
+        final int NUMS = 200000;
+        final int GAP = 37;
+        for (int i = GAP; i != 0; i = (i + GAP) % NUMS)
+            assertTrue(H.insert("" + i));
+        for (int i = GAP; i != 0; i = (i + GAP) % NUMS)
+            assertTrue(!H.insert("" + i));
+        for (int i = 1; i < NUMS; i += 2)
+            assertTrue(H.remove("" + i));
+        assertTrue(!H.remove("1"));
+        assertEquals(NUMS / 2 - 1, H.size());
+        for (int i = 1; i < NUMS; i++)
+            assertEquals(i % 2 == 0, H.contains("" + i));
+
+        // 删除留下的位置被复用，再插入同样多的元素不需要扩容
+        int capacity = H.capacity();
+        for (int i = 1; i < NUMS; i += 2)
+            assertTrue(H.insert("" + i));
+        assertEquals(capacity, H.capacity());
+        for (int i = 1; i < NUMS; i++)
+            assertTrue(H.contains("" + i));
+
+        H.makeEmpty();
+        assertEquals(0, H.size());
+        assertTrue(!H.contains("2"));
+        H.ensureCapacity(1000);
+        for (int i = 0; i < 1000; i++)
+            assertTrue(H.insert("" + i));
+        assertEquals(1000, H.size());
+    }
+
+    @org.junit.Test
+    public void probingHashMaps() {
+        QuadraticProbingHashMap<Integer, String> probing = new QuadraticProbingHashMap<>();
+        CuckooHashMap<Integer, String> cuckoo = new CuckooHashMap<>(new UniversalHashFamily<Integer>(3, 5L));
+        HashMap<Integer, String> expected = new HashMap<>();
+        Random r = new Random(11);
+        for (int i = 0; i < 300000; i++) {
+            Integer k = r.nextInt(5000);
+            String v = "v" + i;
+            switch (r.nextInt(4)) {
+                case 0:
+                case 1:
+                    String old = expected.put(k, v);
+                    assertEquals(old, probing.put(k, v));
+                    assertEquals(old, cuckoo.put(k, v));
+                    break;
+                case 2:
+                    String removed = expected.remove(k);
+                    assertEquals(removed, probing.remove(k));
+                    assertEquals(removed, cuckoo.remove(k));
+                    break;
+                default:
+                    assertEquals(expected.get(k), probing.get(k));
+                    assertEquals(expected.get(k), cuckoo.get(k));
+                    assertEquals(expected.containsKey(k), cuckoo.containsKey(k));
+            }
+        }
+        assertEquals(expected.size(), probing.size());
+        assertEquals(expected.size(), cuckoo.size());
+
+        QuadraticProbingHashMap.MappingFunction<Integer, String> f = new QuadraticProbingHashMap.MappingFunction<Integer, String>() {
+            @Override
+            public String apply(Integer key) {
+                return "computed" + key;
+            }
+        };
+        probing.makeEmpty();
+        cuckoo.makeEmpty();
+        assertEquals("computed7", probing.computeIfAbsent(7, f));
+        assertEquals("computed7", cuckoo.computeIfAbsent(7, f));
+        probing.put(7, "seven");
+        cuckoo.put(7, "seven");
+        assertEquals("seven", probing.computeIfAbsent(7, f));
+        assertEquals("seven", cuckoo.computeIfAbsent(7, f));
+        assertEquals(1, probing.size());
+        assertEquals(1, cuckoo.size());
+        assertEquals(null, probing.get(8));
+    }
+
+
+    @org.junit.Test
+    public void offHeapHashMap() throws IOException {
+        OffHeapLongLongHashMap direct = OffHeapLongLongHashMap.allocateDirect(16);
+        HashMap<Long, Long> expected = new HashMap<>();
+        Random r = new Random(23);
+        for (int i = 0; i < 200000; i++) {
+            long k = r.nextInt(20000) - 10000;
+            switch (r.nextInt(4)) {
+                case 0:
+                case 1:
+                    assertEquals(expected.put(k, (long) i) == null, direct.put(k, i));
+                    break;
+                case 2:
+                    assertEquals(expected.remove(k) != null, direct.remove(k));
+                    break;
+                default:
+                    Long v = expected.get(k);
+                    assertEquals(v == null ? -1L : v, direct.get(k, -1));
+            }
+        }
+        assertEquals(expected.size(), direct.size());
+
+        File file = File.createTempFile("off-heap-map", ".dat");
+        try {
+            OffHeapLongLongHashMap mapped = OffHeapLongLongHashMap.create(file, expected.size());
+            for (Long k : expected.keySet())
+                mapped.put(k, expected.get(k));
+            mapped.force();
+            assertEquals(expected.size(), mapped.size());
+
+            // 重新映射已经建好的表，不需要插入
+            OffHeapLongLongHashMap reopened = OffHeapLongLongHashMap.open(file);
+            assertEquals(expected.size(), reopened.size());
+            assertEquals(mapped.capacity(), reopened.capacity());
+            for (Long k : expected.keySet())
+                assertEquals((long) expected.get(k), reopened.get(k, -1));
+            assertTrue(!reopened.containsKey(10001));
+
+            // 映射文件的容量固定，装满后不会扩容
+            boolean full = false;
+            try {
+                for (long k = 1L << 40; ; k++)
+                    reopened.put(k, k);
+            } catch (IllegalStateException e) {
+                full = true;
+            }
+            assertTrue(full);
+        } finally {
+            file.delete();
+        }
+    }
+
+
+    @org.junit.Test
+    public void hashTableSnapshot() throws IOException {
+        Random r = new Random(29);
+        HashSet<Integer> expected = new HashSet<>();
+        SeparateChainingHashTable<Integer> chaining = new SeparateChainingHashTable<>();
+        // 两个函数、装填因子接近 0.5，插入过程中会更换散列函数
+        CuckooHashTable<Integer> cuckoo = new CuckooHashTable<>(new UniversalHashFamily<Integer>(2, 31L), 16, 0.45f);
+        for (int i = 0; i < 50000; i++) {
+            Integer x = r.nextInt(1000000);
+            expected.add(x);
+            chaining.insert(x);
+            cuckoo.insert(x);
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        chaining.writeTo(Channels.newChannel(out), HashTableSnapshot.integers());
+        byte[] chainingSnapshot = out.toByteArray();
+        out.reset();
+        cuckoo.writeTo(Channels.newChannel(out), HashTableSnapshot.integers());
+        byte[] cuckooSnapshot = out.toByteArray();
+
+        SeparateChainingHashTable<Integer> chaining2 = SeparateChainingHashTable.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(chainingSnapshot)), HashTableSnapshot.integers());
+        CuckooHashTable<Integer> cuckoo2 = CuckooHashTable.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(cuckooSnapshot)),
+                new UniversalHashFamily<Integer>(2, 31L), HashTableSnapshot.integers());
+        // 策略或函数族与写出时不同时仍然正确
+        SeparateChainingHashTable<Integer> chaining3 = SeparateChainingHashTable.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(chainingSnapshot)), HashTableSnapshot.integers(),
+                false, HashFunctions.<Integer>murmur3());
+        CuckooHashTable<Integer> cuckoo3 = CuckooHashTable.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(cuckooSnapshot)),
+                new UniversalHashFamily<Integer>(2, 37L), HashTableSnapshot.integers());
+
+        assertEquals(chaining.capacity(), chaining2.capacity());
+        assertEquals(cuckoo.capacity(), cuckoo2.capacity());
+        for (SeparateChainingHashTable<Integer> t : Arrays.asList(chaining2, chaining3))
+            assertEquals(expected.size(), t.size());
+        for (CuckooHashTable<Integer> t : Arrays.asList(cuckoo2, cuckoo3))
+            assertEquals(expected.size(), t.size());
+        for (int i = 0; i < 20000; i++) {
+            Integer x = r.nextInt(1000000);
+            boolean in = expected.contains(x);
+            assertEquals(in, chaining2.contains(x));
+            assertEquals(in, chaining3.contains(x));
+            assertEquals(in, cuckoo2.contains(x));
+            assertEquals(in, cuckoo3.contains(x));
+        }
+        for (Integer x : expected) {
+            assertTrue(chaining3.contains(x));
+            assertTrue(cuckoo3.contains(x));
+        }
+
+        SeparateChainingHashTable<String> strings = new SeparateChainingHashTable<>();
+        strings.insert("散列");
+        strings.insert("hash");
+        out.reset();
+        strings.writeTo(Channels.newChannel(out), HashTableSnapshot.strings());
+        SeparateChainingHashTable<String> strings2 = SeparateChainingHashTable.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())), HashTableSnapshot.strings());
+        assertTrue(strings2.contains("散列") && strings2.contains("hash"));
+        assertEquals(2, strings2.size());
+
+        boolean rejected = false;
+        try {
+            CuckooHashTable.readFrom(Channels.newChannel(new ByteArrayInputStream(chainingSnapshot)),
+                    new UniversalHashFamily<Integer>(2), HashTableSnapshot.integers());
+        } catch (IOException e) {
+            rejected = true;
+        }
+        assertTrue(rejected);
+    }
+
+
+    @org.junit.Test
+    public void batchOperations() {
+        QuadraticProbingHashTable<Integer> probing = new QuadraticProbingHashTable<>();
+        QuadraticProbingHashTable<Integer> incremental = new QuadraticProbingHashTable<>(8, true);
+        CuckooHashTable<Integer> cuckoo = new CuckooHashTable<>(new UniversalHashFamily<Integer>(2, 41L), 16, 0.45f);
+        HashSet<Integer> expected = new HashSet<>();
+        Random r = new Random(43);
+        for (int round = 0; round < 200; round++) {
+            // 批量大小不是 BATCH 的倍数，并且包含重复的 key
+            Integer[] xs = new Integer[r.nextInt(300)];
+            for (int i = 0; i < xs.length; i++)
+                xs[i] = r.nextInt(20000);
+            boolean[] results = new boolean[xs.length];
+            switch (r.nextInt(3)) {
+                case 0: {
+                    int added = 0;
+                    for (Integer x : xs)
+                        if (expected.add(x))
+                            added++;
+                    assertEquals(added, probing.insertAll(xs));
+                    assertEquals(added, incremental.insertAll(xs));
+                    assertEquals(added, cuckoo.insertAll(xs));
+                    break;
+                }
+                case 1: {
+                    int removed = 0;
+                    for (Integer x : xs)
+                        if (expected.remove(x))
+                            removed++;
+                    assertEquals(removed, probing.removeAll(xs));
+                    assertEquals(removed, incremental.removeAll(xs));
+                    assertEquals(removed, cuckoo.removeAll(xs));
+                    break;
+                }
+                default:
+                    for (QuadraticProbingHashTable<Integer> t : Arrays.asList(probing, incremental)) {
+                        int found = t.containsAll(xs, results);
+                        for (int i = 0; i < xs.length; i++) {
+                            assertEquals(expected.contains(xs[i]), results[i]);
+                            if (results[i])
+                                found--;
+                        }
+                        assertEquals(0, found);
+                    }
+                    cuckoo.containsAll(xs, results);
+                    for (int i = 0; i < xs.length; i++)
+                        assertEquals(expected.contains(xs[i]), results[i]);
+            }
+            // 批量操作与单个操作混用
+            Integer y = r.nextInt(20000);
+            expected.add(y);
+            probing.insert(y);
+            incremental.insert(y);
+            cuckoo.insert(y);
+        }
+        assertEquals(expected.size(), cuckoo.size());
+        for (int x = 0; x < 20000; x++) {
+            assertEquals(expected.contains(x), probing.contains(x));
+            assertEquals(expected.contains(x), incremental.contains(x));
+            assertEquals(expected.contains(x), cuckoo.contains(x));
+        }
+    }
+
+
+    @org.junit.Test
+    public void approximateMembershipFilters() {
+        final int n = 50000;
+        BlockedBloomFilter<Integer> bloom = new BlockedBloomFilter<>(n, 0.01);
+        CuckooFilter<Integer> cuckoo = new CuckooFilter<>(n, 0.01);
+        Integer[] added = new Integer[n];
+        Integer[] absent = new Integer[200000];
+        for (int i = 0; i < n; i++)
+            added[i] = i * 2;
+        for (int i = 0; i < absent.length; i++)
+            absent[i] = i * 2 + 1;
+        // 已经误判为在过滤器中的元素加入时不改变任何位
+        assertTrue(bloom.addAll(added) > n * 0.98);
+        assertEquals(n, cuckoo.addAll(added));
+        assertEquals(n, cuckoo.size());
+
+        // 没有漏判，批量查询与逐个查询结果相同
+        boolean[] results = new boolean[absent.length];
+        assertEquals(n, bloom.mightContainAll(added, results));
+        assertEquals(n, cuckoo.mightContainAll(added, results));
+        int bloomFalse = bloom.mightContainAll(absent, results);
+        for (int i = 0; i < absent.length; i++)
+            assertEquals(bloom.mightContain(absent[i]), results[i]);
+        int cuckooFalse = cuckoo.mightContainAll(absent, results);
+        for (int i = 0; i < absent.length; i++)
+            assertEquals(cuckoo.mightContain(absent[i]), results[i]);
+        assertTrue(bloomFalse < absent.length * 0.02);
+        assertTrue(cuckooFalse < absent.length * 0.02);
+
+        // 布谷鸟过滤器可以删除，删除后其余元素仍然在
+        for (int i = 0; i < n; i += 2)
+            assertTrue(cuckoo.remove(added[i]));
+        assertEquals(n / 2, cuckoo.size());
+        for (int i = 1; i < n; i += 2)
+            assertTrue(cuckoo.mightContain(added[i]));
+
+        // 装满之后 add 返回 false，已加入的元素仍然都能查到
+        CuckooFilter<Integer> small = new CuckooFilter<>(100, 0.01);
+        int count = 0;
+        while (small.add(count))
+            count++;
+        assertTrue(count >= 100);
+        for (int i = 0; i < count; i++)
+            assertTrue(small.mightContain(i));
+    }
+
+
+    @org.junit.Test
+    public void cuckooCollidingHashCodes() throws IOException {
+        // "Aa" 与 "BB" 的 hashCode 相同，由它们拼成的等长字符串 hashCode 全部相同
+        String[] keys = new String[16];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int b = 0; b < 4; b++)
+                sb.append((i >> b & 1) == 0 ? "Aa" : "BB");
+            keys[i] = sb.toString();
+            assertEquals(keys[0].hashCode(), keys[i].hashCode());
+        }
+
+        CuckooHashTable<String> table = new CuckooHashTable<>();
+        int capacity = table.capacity();
+        for (String key : keys)
+            assertTrue(table.insert(key));
+        for (String key : keys) {
+            assertTrue(table.contains(key));
+            assertTrue(!table.insert(key));
+        }
+        assertEquals(keys.length, table.size());
+        // 放不下的元素进入 stash，不会反复扩容
+        assertEquals(capacity, table.capacity());
+        assertEquals(0, table.insertAll(keys));
+        assertEquals(keys.length, table.containsAll(keys, new boolean[keys.length]));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        table.writeTo(Channels.newChannel(out), HashTableSnapshot.strings());
+        CuckooHashTable<String> table2 = CuckooHashTable.readFrom(
+                Channels.newChannel(new ByteArrayInputStream(out.toByteArray())),
+                new UniversalHashFamily<String>(3), HashTableSnapshot.strings());
+        assertEquals(keys.length, table2.size());
+        for (String key : keys)
+            assertTrue(table2.contains(key));
+
+        assertEquals(keys.length / 2, table.removeAll(Arrays.copyOf(keys, keys.length / 2)));
+        for (int i = 0; i < keys.length; i++)
+            assertEquals(i >= keys.length / 2, table.contains(keys[i]));
+        for (int i = keys.length / 2; i < keys.length; i++)
+            assertTrue(table.remove(keys[i]));
+        assertEquals(0, table.size());
+
+        CuckooHashMap<String, Integer> map = new CuckooHashMap<>();
+        capacity = map.capacity();
+        for (int i = 0; i < keys.length; i++)
+            assertEquals(null, map.put(keys[i], i));
+        for (int i = 0; i < keys.length; i++) {
+            assertTrue(map.containsKey(keys[i]));
+            assertEquals(i, (int) map.put(keys[i], i + 100));
+        }
+        assertEquals(keys.length, map.size());
+        assertEquals(capacity, map.capacity());
+        for (int i = 0; i < keys.length; i++)
+            assertEquals(i + 100, (int) map.remove(keys[i]));
+        assertEquals(0, map.size());
+        assertEquals(null, map.get(keys[0]));
+        // 2 个桶 8 个槽加 4 个溢出槽，第 13 个起溢出区要增长
+        BucketizedCuckooHashTable<String> bucketized =
+                new BucketizedCuckooHashTable<>(new UniversalHashFamily<String>(2));
+        capacity = bucketized.capacity();
+        for (String key : keys)
+            assertTrue(bucketized.insert(key));
+        for (String key : keys) {
+            assertTrue(bucketized.contains(key));
+            assertTrue(!bucketized.insert(key));
+        }
+        assertEquals(keys.length, bucketized.size());
+        assertEquals(capacity, bucketized.capacity());
+        for (String key : keys)
+            assertTrue(bucketized.remove(key));
+        assertEquals(0, bucketized.size());
+
+        // 每个 key 只有 2 个桶 8 个槽，第 9 个起进入 stash
+        ConcurrentCuckooHashTable<String> concurrent =
+                new ConcurrentCuckooHashTable<>(new UniversalHashFamily<String>(2));
+        capacity = concurrent.capacity();
+        for (String key : keys)
+            assertTrue(concurrent.insert(key));
+        for (String key : keys) {
+            assertTrue(concurrent.contains(key));
+            assertTrue(!concurrent.insert(key));
+        }
+        assertEquals(keys.length, concurrent.size());
+        assertEquals(capacity, concurrent.capacity());
+        for (String key : keys)
+            assertTrue(concurrent.remove(key));
+        assertEquals(0, concurrent.size());
+        assertTrue(!concurrent.contains(keys[0]));
+    }
+
+
     private static void checkSort(Integer[] a) {
         for (int i = 0; i < a.length; i++)
             if (a[i] != i)
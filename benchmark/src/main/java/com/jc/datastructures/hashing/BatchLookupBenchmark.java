@@ -0,0 +1,134 @@
+package com.jc.datastructures.hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 逐个 contains 与批量 containsAll 的吞吐量对比，表远大于缓存时批量查找可以让多次缓存未命中同时进行
+ * <p>
+ * 每次调用查找 OPS 个随机 key，一半在表中。两种过滤器（误判率 1%）对应 mightContain 与 mightContainAll
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BatchLookupBenchmark {
+
+    static final int OPS = 4096;
+
+    @Param({"quadraticProbing", "cuckoo", "bloomFilter", "cuckooFilter"})
+    public String table;
+
+    @Param({"10000", "2000000"})
+    public int keys;
+
+    private QuadraticProbingHashTable<Integer> probing;
+    private CuckooHashTable<Integer> cuckoo;
+    private BlockedBloomFilter<Integer> bloomFilter;
+    private CuckooFilter<Integer> cuckooFilter;
+    private Integer[][] batches;
+    private boolean[] results;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        Integer[] present = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            present[i] = r.nextInt() & ~1;
+        }
+        switch (table) {
+            case "quadraticProbing":
+                probing = new QuadraticProbingHashTable<>(keys);
+                probing.insertAll(present);
+                break;
+            case "cuckoo":
+                cuckoo = new CuckooHashTable<>(new IntegerHashFamily(3), keys);
+                cuckoo.insertAll(present);
+                break;
+            case "bloomFilter":
+                bloomFilter = new BlockedBloomFilter<>(keys, 0.01);
+                bloomFilter.addAll(present);
+                break;
+            case "cuckooFilter":
+                cuckooFilter = new CuckooFilter<>(keys, 0.01);
+                cuckooFilter.addAll(present);
+                break;
+            default:
+                throw new IllegalArgumentException(table);
+        }
+        batches = new Integer[16][OPS];
+        for (Integer[] batch : batches) {
+            for (int i = 0; i < OPS; i++) {
+                batch[i] = r.nextBoolean() ? present[r.nextInt(keys)] : Integer.valueOf(r.nextInt() | 1);
+            }
+        }
+        results = new boolean[OPS];
+    }
+
+    private Integer[] nextBatch() {
+        return batches[cursor++ & (batches.length - 1)];
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int containsEach() {
+        Integer[] batch = nextBatch();
+        int found = 0;
+        if (probing != null) {
+            for (Integer x : batch) {
+                if (probing.contains(x)) {
+                    found++;
+                }
+            }
+        } else if (cuckoo != null) {
+            for (Integer x : batch) {
+                if (cuckoo.contains(x)) {
+                    found++;
+                }
+            }
+        } else if (bloomFilter != null) {
+            for (Integer x : batch) {
+                if (bloomFilter.mightContain(x)) {
+                    found++;
+                }
+            }
+        } else {
+            for (Integer x : batch) {
+                if (cuckooFilter.mightContain(x)) {
+                    found++;
+                }
+            }
+        }
+        return found;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public int containsAll() {
+        Integer[] batch = nextBatch();
+        if (probing != null) {
+            return probing.containsAll(batch, results);
+        } else if (cuckoo != null) {
+            return cuckoo.containsAll(batch, results);
+        } else if (bloomFilter != null) {
+            return bloomFilter.mightContainAll(batch, results);
+        }
+        return cuckooFilter.mightContainAll(batch, results);
+    }
+}
@@ -0,0 +1,145 @@
+package com.jc.datastructures.hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.util.Collections;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程读多写少负载：分段锁的表、乐观读的布谷鸟表、整表加一把锁的 SeparateChainingHashTable 与 ConcurrentHashMap
+ * <p>
+ * 线程数用 -t 调整，例如 -t 1,2,4,8 观察吞吐随线程数的变化
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class ConcurrentHashTableBenchmark {
+
+    static final int OPS = 1024;
+
+    @Param({"striped", "cuckoo", "globalLock", "javaConcurrent"})
+    public String table;
+
+    @Param({"100000"})
+    public int keys;
+
+    /**
+     * 写操作所占的百分比
+     */
+    @Param({"0", "10"})
+    public int writePercent;
+
+    private HashTableBenchmark.Table<Integer> set;
+    private Integer[] present;
+
+    @Setup
+    public void setup() {
+        set = newTable(table, keys);
+        Random r = new Random(42);
+        present = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            present[i] = r.nextInt() & ~1;
+            set.insert(present[i]);
+        }
+    }
+
+    static HashTableBenchmark.Table<Integer> newTable(String name, int keys) {
+        switch (name) {
+            case "striped": {
+                final ConcurrentSeparateChainingHashTable<Integer> t = new ConcurrentSeparateChainingHashTable<>(keys, 64);
+                return new HashTableBenchmark.Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "cuckoo": {
+                final ConcurrentCuckooHashTable<Integer> t = new ConcurrentCuckooHashTable<>(new IntegerHashFamily(2), keys);
+                return new HashTableBenchmark.Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "globalLock": {
+                final SeparateChainingHashTable<Integer> t = new SeparateChainingHashTable<>(keys);
+                return new HashTableBenchmark.Table<Integer>() {
+                    public synchronized void insert(Integer x) { t.insert(x); }
+                    public synchronized boolean contains(Integer x) { return t.contains(x); }
+                    public synchronized void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "javaConcurrent": {
+                final Set<Integer> t = Collections.newSetFromMap(new ConcurrentHashMap<Integer, Boolean>(keys * 2));
+                return new HashTableBenchmark.Table<Integer>() {
+                    public void insert(Integer x) { t.add(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    /**
+     * 每个线程自己的游标和只有它会写的 key，写操作之间不会互相干扰
+     */
+    @State(Scope.Thread)
+    public static class ThreadState {
+        int cursor;
+        Integer[] own;
+        boolean[] writes;
+
+        @Setup
+        public void setup(ConcurrentHashTableBenchmark b, ThreadParams params) {
+            Random r = new Random(params.getThreadIndex());
+            cursor = r.nextInt(b.keys);
+            own = new Integer[OPS];
+            writes = new boolean[OPS];
+            for (int i = 0; i < OPS; i++) {
+                own[i] = (r.nextInt() | 1);
+                writes[i] = r.nextInt(100) < b.writePercent;
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void readMostly(ThreadState s, Blackhole bh) {
+        int cursor = s.cursor;
+        for (int i = 0; i < OPS; i++) {
+            if (s.writes[i]) {
+                set.insert(s.own[i]);
+                set.remove(s.own[i]);
+            } else {
+                bh.consume(set.contains(present[cursor]));
+            }
+            if (++cursor == keys) {
+                cursor = 0;
+            }
+        }
+        s.cursor = cursor;
+    }
+}
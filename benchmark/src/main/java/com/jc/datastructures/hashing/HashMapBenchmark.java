@@ -0,0 +1,123 @@
+package com.jc.datastructures.hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 映射的 get 命中 / 未命中，以 java.util.HashMap 为基线
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashMapBenchmark {
+
+    static final int OPS = 1024;
+
+    @Param({"swiss", "quadraticProbing", "cuckoo", "java"})
+    public String map;
+
+    @Param({"10000", "1000000"})
+    public int keys;
+
+    private Map<Integer, Integer> m;
+    private Integer[] present;
+    private Integer[] absent;
+    private int cursor;
+
+    /**
+     * 每个 fork 只会出现一种实现，调用点保持单态
+     */
+    interface Map<K, V> {
+        V get(K key);
+
+        V put(K key, V value);
+    }
+
+    @Setup
+    public void setup() {
+        m = newMap(map, keys);
+        Random r = new Random(42);
+        present = new Integer[keys];
+        absent = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            present[i] = r.nextInt() & ~1;
+            absent[i] = r.nextInt() | 1;
+            m.put(present[i], i);
+        }
+    }
+
+    static Map<Integer, Integer> newMap(String name, int keys) {
+        switch (name) {
+            case "swiss": {
+                final SwissHashMap<Integer, Integer> t = new SwissHashMap<>(keys);
+                return new Map<Integer, Integer>() {
+                    public Integer get(Integer key) { return t.get(key); }
+                    public Integer put(Integer key, Integer value) { return t.put(key, value); }
+                };
+            }
+            case "quadraticProbing": {
+                final QuadraticProbingHashMap<Integer, Integer> t = new QuadraticProbingHashMap<>(keys);
+                return new Map<Integer, Integer>() {
+                    public Integer get(Integer key) { return t.get(key); }
+                    public Integer put(Integer key, Integer value) { return t.put(key, value); }
+                };
+            }
+            case "cuckoo": {
+                final CuckooHashMap<Integer, Integer> t = new CuckooHashMap<>(new IntegerHashFamily(3), keys);
+                return new Map<Integer, Integer>() {
+                    public Integer get(Integer key) { return t.get(key); }
+                    public Integer put(Integer key, Integer value) { return t.put(key, value); }
+                };
+            }
+            case "java": {
+                final HashMap<Integer, Integer> t = new HashMap<>(keys * 2);
+                return new Map<Integer, Integer>() {
+                    public Integer get(Integer key) { return t.get(key); }
+                    public Integer put(Integer key, Integer value) { return t.put(key, value); }
+                };
+            }
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == keys ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getHit(Blackhole bh) {
+        for (int i = 0; i < OPS; i++) {
+            bh.consume(m.get(present[next()]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void getMiss(Blackhole bh) {
+        for (int i = 0; i < OPS; i++) {
+            bh.consume(m.get(absent[next()]));
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.jc.datastructures.hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 三种散列表在 insert / contains / remove 混合负载下的基准测试
+ * <p>
+ * loadFactor 传给各个表的构造函数，同时决定初始容量和扩容阈值；容量取 2 的幂，实际装填因子在 loadFactor / 2 与 loadFactor 之间
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashTableBenchmark {
+
+    static final int OPS = 1024;
+
+    @Param({"separateChaining", "arrayChaining", "quadraticProbing", "cuckoo", "bucketizedCuckoo", "intHashSet", "robinHood"})
+    public String table;
+
+    @Param({"100000"})
+    public int keys;
+
+    @Param({"0.25", "0.4", "0.75"})
+    public double loadFactor;
+
+    private Table<Integer> set;
+    private Integer[] present;
+    private Integer[] absent;
+    private boolean[] writes;
+    private int cursor;
+
+    /**
+     * 统一三种散列表的调用方式，每个 fork 只会出现一种实现，调用点保持单态
+     */
+    interface Table<AnyType> {
+        void insert(AnyType x);
+
+        boolean contains(AnyType x);
+
+        void remove(AnyType x);
+    }
+
+    @Setup
+    public void setup() {
+        set = newTable(table, keys, loadFactor);
+        Random r = new Random(42);
+        present = new Integer[keys];
+        absent = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            // 偶数在表中，奇数不在
+            present[i] = r.nextInt() & ~1;
+            absent[i] = r.nextInt() | 1;
+            set.insert(present[i]);
+        }
+        writes = new boolean[OPS];
+        for (int i = 0; i < OPS; i++) {
+            writes[i] = r.nextInt(10) == 0;
+        }
+    }
+
+    static Table<Integer> newTable(String name, int keys, double loadFactor) {
+        switch (name) {
+            case "separateChaining": {
+                final SeparateChainingHashTable<Integer> t = new SeparateChainingHashTable<>(keys, (float) loadFactor);
+                return new Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "arrayChaining": {
+                final ArrayChainingHashTable<Integer> t = new ArrayChainingHashTable<>(keys, (float) loadFactor);
+                return new Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "quadraticProbing": {
+                final QuadraticProbingHashTable<Integer> t = new QuadraticProbingHashTable<>(keys, (float) loadFactor);
+                return new Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "cuckoo": {
+                final CuckooHashTable<Integer> t = new CuckooHashTable<>(new IntegerHashFamily(3), keys, (float) loadFactor);
+                return new Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "bucketizedCuckoo": {
+                // 每桶 4 个槽，装填上限 0.93，容量只由 keys 决定
+                final BucketizedCuckooHashTable<Integer> t = new BucketizedCuckooHashTable<>(new IntegerHashFamily(2), keys);
+                return new Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "robinHood": {
+                final RobinHoodHashTable<Integer> t = new RobinHoodHashTable<>(keys, (float) loadFactor);
+                return new Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "intHashSet": {
+                // 拆箱不分配内存，与装箱的表比较的是表本身的开销
+                final IntHashSet t = new IntHashSet(keys, (float) loadFactor);
+                return new Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    private int next() {
+        int i = cursor;
+        cursor = i + 1 == keys ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void containsHit(Blackhole bh) {
+        for (int i = 0; i < OPS; i++) {
+            bh.consume(set.contains(present[next()]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void containsMiss(Blackhole bh) {
+        for (int i = 0; i < OPS; i++) {
+            bh.consume(set.contains(absent[next()]));
+        }
+    }
+
+    /**
+     * 插入一个不存在的 key 再删除，表的大小保持不变
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void insertRemove() {
+        for (int i = 0; i < OPS; i++) {
+            Integer x = absent[next()];
+            set.insert(x);
+            set.remove(x);
+        }
+    }
+
+    /**
+     * 90% contains，10% insert + remove
+     */
+    @Benchmark
+    @OperationsPerInvocation(OPS)
+    public void mixed(Blackhole bh) {
+        for (int i = 0; i < OPS; i++) {
+            int k = next();
+            if (writes[i]) {
+                set.insert(absent[k]);
+                set.remove(absent[k]);
+            } else {
+                bh.consume(set.contains(present[k]));
+            }
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package com.jc.datastructures.hashing;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的 Integer 散列函数族，随机乘数 + 高位折叠
+ */
+public class IntegerHashFamily implements CuckooHashTable.HashFamily<Integer> {
+    private final int[] multipliers;
+    private final Random r = new Random(17);
+
+    public IntegerHashFamily(int d) {
+        multipliers = new int[d];
+        generateNewFunctions();
+    }
+
+    @Override
+    public int hash(Integer x, int which) {
+        int h = x * multipliers[which];
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public int getNumberOfFunctions() {
+        return multipliers.length;
+    }
+
+    @Override
+    public void generateNewFunctions() {
+        for (int i = 0; i < multipliers.length; i++) {
+            multipliers[i] = r.nextInt() | 1;
+        }
+    }
+}
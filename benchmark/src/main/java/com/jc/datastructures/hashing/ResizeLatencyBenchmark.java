@@ -0,0 +1,93 @@
+package com.jc.datastructures.hashing;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从小表开始不断插入时单次 insert 的延迟分布，对比一次性扩容与渐进式扩容的 p99.9 和最大值
+ * <p>
+ * 插满 keys 个元素后换一张新表重新开始
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ResizeLatencyBenchmark {
+
+    @Param({"separateChaining", "quadraticProbing", "cuckoo"})
+    public String table;
+
+    @Param({"false", "true"})
+    public boolean incremental;
+
+    @Param({"1000000"})
+    public int keys;
+
+    private HashTableBenchmark.Table<Integer> set;
+    private Integer[] values;
+    private int cursor;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        values = new Integer[keys];
+        for (int i = 0; i < keys; i++) {
+            values[i] = r.nextInt();
+        }
+        set = newTable(table, incremental);
+    }
+
+    static HashTableBenchmark.Table<Integer> newTable(String name, boolean incremental) {
+        switch (name) {
+            case "separateChaining": {
+                final SeparateChainingHashTable<Integer> t = new SeparateChainingHashTable<>(101, incremental);
+                return new HashTableBenchmark.Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "quadraticProbing": {
+                final QuadraticProbingHashTable<Integer> t = new QuadraticProbingHashTable<>(11, incremental);
+                return new HashTableBenchmark.Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            case "cuckoo": {
+                final CuckooHashTable<Integer> t = new CuckooHashTable<>(new IntegerHashFamily(3), 101, incremental);
+                return new HashTableBenchmark.Table<Integer>() {
+                    public void insert(Integer x) { t.insert(x); }
+                    public boolean contains(Integer x) { return t.contains(x); }
+                    public void remove(Integer x) { t.remove(x); }
+                };
+            }
+            default:
+                throw new IllegalArgumentException(name);
+        }
+    }
+
+    @Benchmark
+    public void insert() {
+        if (cursor == keys) {
+            set = newTable(table, incremental);
+            cursor = 0;
+        }
+        set.insert(values[cursor++]);
+    }
+}
@@ -0,0 +1,114 @@
+package com.jc.datastructures.heap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BinaryHeap / LeftistHeap / BinomialQueue 的 insert、deleteMin、merge 基准测试
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HeapBenchmark {
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Integer[] items;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        items = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            items[i] = r.nextInt();
+        }
+    }
+
+    @Benchmark
+    public void binaryHeapInsertDeleteMin(Blackhole bh) {
+        BinaryHeap<Integer> h = new BinaryHeap<>();
+        for (Integer x : items) {
+            h.insert(x);
+        }
+        while (!h.isEmpty()) {
+            bh.consume(h.deleteMin());
+        }
+    }
+
+    /**
+     * BinaryHeap 不支持 merge，用 buildHeap 一次性建堆作对照
+     */
+    @Benchmark
+    public BinaryHeap<Integer> binaryHeapBuild() {
+        return new BinaryHeap<>(items);
+    }
+
+    @Benchmark
+    public void leftistHeapInsertDeleteMin(Blackhole bh) {
+        LeftistHeap<Integer> h = new LeftistHeap<>();
+        for (Integer x : items) {
+            h.insert(x);
+        }
+        while (!h.isEmpty()) {
+            bh.consume(h.deleteMin());
+        }
+    }
+
+    @Benchmark
+    public LeftistHeap<Integer> leftistHeapMerge() {
+        LeftistHeap<Integer> h1 = new LeftistHeap<>();
+        LeftistHeap<Integer> h2 = new LeftistHeap<>();
+        for (int i = 0; i < items.length; i++) {
+            if ((i & 1) == 0) {
+                h1.insert(items[i]);
+            } else {
+                h2.insert(items[i]);
+            }
+        }
+        h1.merge(h2);
+        return h1;
+    }
+
+    @Benchmark
+    public void binomialQueueInsertDeleteMin(Blackhole bh) {
+        BinomialQueue<Integer> h = new BinomialQueue<>();
+        for (Integer x : items) {
+            h.insert(x);
+        }
+        while (!h.isEmpty()) {
+            bh.consume(h.deleteMin());
+        }
+    }
+
+    @Benchmark
+    public BinomialQueue<Integer> binomialQueueMerge() {
+        BinomialQueue<Integer> h1 = new BinomialQueue<>();
+        BinomialQueue<Integer> h2 = new BinomialQueue<>();
+        for (int i = 0; i < items.length; i++) {
+            if ((i & 1) == 0) {
+                h1.insert(items[i]);
+            } else {
+                h2.insert(items[i]);
+            }
+        }
+        h1.merge(h2);
+        return h1;
+    }
+}
@@ -0,0 +1,83 @@
+package com.jc.datastructures.sort;
+
+import java.util.Random;
+
+/**
+ * 排序基准测试使用的输入分布
+ */
+public enum Distribution {
+    RANDOM {
+        @Override
+        int[] generate(int n, Random r) {
+            int[] a = new int[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = r.nextInt();
+            }
+            return a;
+        }
+    },
+    SORTED {
+        @Override
+        int[] generate(int n, Random r) {
+            int[] a = new int[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = i;
+            }
+            return a;
+        }
+    },
+    REVERSED {
+        @Override
+        int[] generate(int n, Random r) {
+            int[] a = new int[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = n - i;
+            }
+            return a;
+        }
+    },
+    FEW_UNIQUE {
+        @Override
+        int[] generate(int n, Random r) {
+            int[] a = new int[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = r.nextInt(16);
+            }
+            return a;
+        }
+    },
+    /**
+     * 偏斜分布：大部分值集中在很小的区间内，少量值很大
+     */
+    SKEWED {
+        @Override
+        int[] generate(int n, Random r) {
+            int[] a = new int[n];
+            for (int i = 0; i < n; i++) {
+                double u = r.nextDouble();
+                a[i] = (int) (n * u * u * u * u);
+            }
+            return a;
+        }
+    };
+
+    abstract int[] generate(int n, Random r);
+
+    public Integer[] boxed(int n, long seed) {
+        int[] a = generate(n, new Random(seed));
+        Integer[] boxed = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            boxed[i] = a[i];
+        }
+        return boxed;
+    }
+
+    public String[] strings(int n, long seed) {
+        int[] a = generate(n, new Random(seed));
+        String[] s = new String[n];
+        for (int i = 0; i < n; i++) {
+            s[i] = Integer.toString(a[i] & Integer.MAX_VALUE, 36);
+        }
+        return s;
+    }
+}
@@ -0,0 +1,116 @@
+package com.jc.datastructures.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按字段排序记录：包装成 Comparable、Comparator、提取 long 关键字三种方式的对比
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class KeySortBenchmark {
+
+    static final class Event {
+        final long timestamp;
+        final String payload;
+
+        Event(long timestamp, String payload) {
+            this.timestamp = timestamp;
+            this.payload = payload;
+        }
+    }
+
+    static final class ByTimestamp implements Comparable<ByTimestamp> {
+        final Event event;
+
+        ByTimestamp(Event event) {
+            this.event = event;
+        }
+
+        @Override
+        public int compareTo(ByTimestamp o) {
+            return event.timestamp < o.event.timestamp ? -1 : event.timestamp == o.event.timestamp ? 0 : 1;
+        }
+    }
+
+    static final Comparator<Event> TIMESTAMP_ORDER = new Comparator<Event>() {
+        @Override
+        public int compare(Event x, Event y) {
+            return x.timestamp < y.timestamp ? -1 : x.timestamp == y.timestamp ? 0 : 1;
+        }
+    };
+
+    static final Sort.LongKey<Event> TIMESTAMP = new Sort.LongKey<Event>() {
+        @Override
+        public long key(Event x) {
+            return x.timestamp;
+        }
+    };
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    private Event[] events;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(SortBenchmark.SEED);
+        events = new Event[size];
+        for (int i = 0; i < size; i++) {
+            events[i] = new Event(r.nextLong() >>> 20, "e" + i);
+        }
+    }
+
+    @Benchmark
+    public ByTimestamp[] wrappedMergeSort() {
+        ByTimestamp[] a = new ByTimestamp[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = new ByTimestamp(events[i]);
+        }
+        Sort.mergeSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Event[] comparatorMergeSort() {
+        Event[] a = events.clone();
+        Sort.mergeSort(a, TIMESTAMP_ORDER);
+        return a;
+    }
+
+    @Benchmark
+    public Event[] comparatorTimSort() {
+        Event[] a = events.clone();
+        Sort.timSort(a, TIMESTAMP_ORDER);
+        return a;
+    }
+
+    @Benchmark
+    public Event[] radixSortByLongKey() {
+        Event[] a = events.clone();
+        Sort.radixSortByLongKey(a, TIMESTAMP);
+        return a;
+    }
+
+    @Benchmark
+    public int[] sortedIndexesByLongKey() {
+        return Sort.sortedIndexesByLongKey(events, TIMESTAMP);
+    }
+}
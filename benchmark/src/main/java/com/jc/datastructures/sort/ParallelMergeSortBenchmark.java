@@ -0,0 +1,76 @@
+package com.jc.datastructures.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 顺序归并排序与并行归并排序的对比，可用 -p threshold=... 观察切分粒度的影响
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelMergeSortBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"8192"})
+    public int threshold;
+
+    private long[] primitive;
+    private Long[] boxed;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(SortBenchmark.SEED);
+        primitive = new long[size];
+        boxed = new Long[size];
+        for (int i = 0; i < size; i++) {
+            primitive[i] = r.nextLong();
+            boxed[i] = primitive[i];
+        }
+    }
+
+    @Benchmark
+    public long[] sequential() {
+        long[] a = primitive.clone();
+        Sort.mergeSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] parallel() {
+        long[] a = primitive.clone();
+        Sort.parallelMergeSort(a, threshold);
+        return a;
+    }
+
+    @Benchmark
+    public Long[] sequentialBoxed() {
+        Long[] a = boxed.clone();
+        Sort.mergeSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Long[] parallelBoxed() {
+        Long[] a = boxed.clone();
+        Sort.parallelMergeSort(a, threshold);
+        return a;
+    }
+}
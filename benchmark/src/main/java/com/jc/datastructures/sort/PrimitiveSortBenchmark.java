@@ -0,0 +1,90 @@
+package com.jc.datastructures.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 装箱版本与 long[] 版本的对比
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitiveSortBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "FEW_UNIQUE"})
+    public Distribution distribution;
+
+    private long[] primitive;
+    private Long[] boxed;
+
+    @Setup
+    public void setup() {
+        int[] a = distribution.generate(size, new Random(SortBenchmark.SEED));
+        primitive = new long[size];
+        boxed = new Long[size];
+        for (int i = 0; i < size; i++) {
+            primitive[i] = (long) a[i] << 16;
+            boxed[i] = primitive[i];
+        }
+    }
+
+    @Benchmark
+    public Long[] boxedQuickSort() {
+        Long[] a = boxed.clone();
+        Sort.quickSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] primitiveQuickSort() {
+        long[] a = primitive.clone();
+        Sort.quickSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Long[] boxedMergeSort() {
+        Long[] a = boxed.clone();
+        Sort.mergeSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] primitiveMergeSort() {
+        long[] a = primitive.clone();
+        Sort.mergeSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Long[] boxedHeapSort() {
+        Long[] a = boxed.clone();
+        Sort.heapSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] primitiveHeapSort() {
+        long[] a = primitive.clone();
+        Sort.heapSort(a);
+        return a;
+    }
+}
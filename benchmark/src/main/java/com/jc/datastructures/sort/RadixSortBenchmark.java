@@ -0,0 +1,82 @@
+package com.jc.datastructures.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 基数排序与比较排序在 int[] / long[] 上的对比
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RadixSortBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"RANDOM", "FEW_UNIQUE", "SKEWED"})
+    public Distribution distribution;
+
+    private int[] ints;
+    private long[] longs;
+
+    @Setup
+    public void setup() {
+        ints = distribution.generate(size, new Random(SortBenchmark.SEED));
+        longs = new long[size];
+        Random r = new Random(SortBenchmark.SEED);
+        for (int i = 0; i < size; i++) {
+            longs[i] = ((long) ints[i] << 32) ^ r.nextInt();
+        }
+    }
+
+    @Benchmark
+    public int[] intQuickSort() {
+        int[] a = ints.clone();
+        Sort.quickSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] intRadixSort() {
+        int[] a = ints.clone();
+        Sort.radixSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public int[] intParallelRadixSort() {
+        int[] a = ints.clone();
+        Sort.parallelRadixSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] longQuickSort() {
+        long[] a = longs.clone();
+        Sort.quickSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public long[] longRadixSort() {
+        long[] a = longs.clone();
+        Sort.radixSort(a);
+        return a;
+    }
+}
@@ -0,0 +1,130 @@
+package com.jc.datastructures.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Sort} 中各排序算法在不同输入分布下的基准测试
+ * <p>
+ * 每次调用都会先复制一份输入，复制的开销对所有算法一致
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SortBenchmark {
+
+    static final long SEED = 42;
+
+    @State(Scope.Benchmark)
+    public static class Input {
+        @Param({"1000", "100000"})
+        public int size;
+
+        @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SKEWED"})
+        public Distribution distribution;
+
+        Integer[] data;
+
+        @Setup
+        public void setup() {
+            data = distribution.boxed(size, SEED);
+        }
+    }
+
+    /**
+     * O(N^2) 的算法只在较小规模上测试
+     */
+    @State(Scope.Benchmark)
+    public static class SmallInput {
+        @Param({"1000", "10000"})
+        public int size;
+
+        @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SKEWED"})
+        public Distribution distribution;
+
+        Integer[] data;
+
+        @Setup
+        public void setup() {
+            data = distribution.boxed(size, SEED);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class StringInput {
+        @Param({"1000", "100000"})
+        public int size;
+
+        @Param({"RANDOM", "SORTED", "REVERSED", "FEW_UNIQUE", "SKEWED"})
+        public Distribution distribution;
+
+        String[] data;
+
+        @Setup
+        public void setup() {
+            data = distribution.strings(size, SEED);
+        }
+    }
+
+    @Benchmark
+    public Integer[] insertionSort(SmallInput in) {
+        Integer[] a = in.data.clone();
+        Sort.insertionSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] shellSort(Input in) {
+        Integer[] a = in.data.clone();
+        Sort.shellSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] heapSort(Input in) {
+        Integer[] a = in.data.clone();
+        Sort.heapSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] mergeSort(Input in) {
+        Integer[] a = in.data.clone();
+        Sort.mergeSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] quickSort(Input in) {
+        Integer[] a = in.data.clone();
+        Sort.quickSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] stringQuickSort(StringInput in) {
+        String[] a = in.data.clone();
+        Sort.quickSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public String[] radixSort(StringInput in) {
+        String[] a = in.data.clone();
+        Sort.radixSort(a);
+        return a;
+    }
+}
@@ -0,0 +1,67 @@
+package com.jc.datastructures.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * mergeSort 与 timSort 在有序、基本有序输入上的对比
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimSortBenchmark {
+
+    @Param({"1000000"})
+    public int size;
+
+    @Param({"RANDOM", "SORTED", "REVERSED", "NEARLY_SORTED"})
+    public String input;
+
+    private Integer[] data;
+
+    @Setup
+    public void setup() {
+        if (input.equals("NEARLY_SORTED")) {
+            data = Distribution.SORTED.boxed(size, SortBenchmark.SEED);
+            Random r = new Random(SortBenchmark.SEED);
+            // 1% 的元素被随机交换
+            for (int i = 0; i < size / 100; i++) {
+                int x = r.nextInt(size), y = r.nextInt(size);
+                Integer t = data[x];
+                data[x] = data[y];
+                data[y] = t;
+            }
+        } else {
+            data = Distribution.valueOf(input).boxed(size, SortBenchmark.SEED);
+        }
+    }
+
+    @Benchmark
+    public Integer[] mergeSort() {
+        Integer[] a = data.clone();
+        Sort.mergeSort(a);
+        return a;
+    }
+
+    @Benchmark
+    public Integer[] timSort() {
+        Integer[] a = data.clone();
+        Sort.timSort(a);
+        return a;
+    }
+}
@@ -0,0 +1,66 @@
+package com.jc.datastructures.sort;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 取最小的 k 个元素：堆筛选、快速选择后排序前 k 个、整体排序的对比
+ */
+@BenchmarkMode({Mode.AverageTime, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TopKBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int size;
+
+    @Param({"100"})
+    public int k;
+
+    @Param({"RANDOM", "SORTED", "REVERSED"})
+    public Distribution distribution;
+
+    private int[] input;
+
+    @Setup
+    public void setup() {
+        input = distribution.generate(size, new Random(SortBenchmark.SEED));
+    }
+
+    @Benchmark
+    public int[] partialSort() {
+        int[] a = input.clone();
+        Sort.partialSort(a, k);
+        return a;
+    }
+
+    @Benchmark
+    public int[] quickSelectThenSort() {
+        int[] a = input.clone();
+        Sort.quickSelect(a, k - 1);
+        Sort.quickSort(a, 0, k);
+        return a;
+    }
+
+    @Benchmark
+    public int[] fullQuickSort() {
+        int[] a = input.clone();
+        Sort.quickSort(a);
+        return a;
+    }
+}
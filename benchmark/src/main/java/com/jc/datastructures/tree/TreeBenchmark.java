@@ -0,0 +1,88 @@
+package com.jc.datastructures.tree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BinarySearchTree 与 AvlTree 的对比
+ * <p>
+ * 两者都是递归实现，有序输入会让 BinarySearchTree 退化成链表并栈溢出，这里只使用随机 key
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TreeBenchmark {
+
+    static final int LOOKUPS = 1024;
+
+    @Param({"1000", "100000"})
+    public int size;
+
+    private Integer[] keys;
+    private BinarySearchTree<Integer> bst;
+    private AvlTree<Integer> avl;
+
+    @Setup
+    public void setup() {
+        Random r = new Random(42);
+        keys = new Integer[size];
+        bst = new BinarySearchTree<>();
+        avl = new AvlTree<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = r.nextInt();
+            bst.insert(keys[i]);
+            avl.insert(keys[i]);
+        }
+    }
+
+    @Benchmark
+    public BinarySearchTree<Integer> bstInsert() {
+        BinarySearchTree<Integer> t = new BinarySearchTree<>();
+        for (Integer x : keys) {
+            t.insert(x);
+        }
+        return t;
+    }
+
+    @Benchmark
+    public AvlTree<Integer> avlInsert() {
+        AvlTree<Integer> t = new AvlTree<>();
+        for (Integer x : keys) {
+            t.insert(x);
+        }
+        return t;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void bstContains(Blackhole bh) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            bh.consume(bst.contains(keys[i % size]));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(LOOKUPS)
+    public void avlContains(Blackhole bh) {
+        for (int i = 0; i < LOOKUPS; i++) {
+            bh.consume(avl.contains(keys[i % size]));
+        }
+    }
+}